@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.EventBAttributes;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IRodinElement;
+
+import ch.ethz.eventb.utils.EventBColumnarModel;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the columnar project model.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBColumnarModel
+ * @since 0.3.0
+ */
+public class EventBColumnarModelTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBColumnarModel#build(IEventBProject,
+	 * org.eclipse.core.runtime.IProgressMonitor)}.
+	 */
+	@Test
+	public void testBuild() {
+		try {
+			EventBColumnarModel model = EventBColumnarModel.build(
+					ChannelSetup.getChannelProject(), nullMonitor);
+			assertEquals("Number of components", 5, model.getRootCount());
+
+			// Find the machine EO.
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			int EO = EventBColumnarModel.NONE;
+			for (int i = 0; i < model.getRootCount(); i++) {
+				if (model.getHandle(model.getRoot(i)).equals(EOMchRoot))
+					EO = model.getRoot(i);
+			}
+			assertTrue("Machine EO", EO != EventBColumnarModel.NONE);
+			assertEquals("EO: parent", EventBColumnarModel.NONE,
+					model.getParent(EO));
+
+			// Compare the children of EO with the database.
+			IRodinElement[] children = EOMchRoot.getChildren();
+			int child = model.getFirstChild(EO);
+			for (IRodinElement expected : children) {
+				assertTrue("EO: missing child " + expected,
+						child != EventBColumnarModel.NONE);
+				assertEquals("EO: child", expected, model.getHandle(child));
+				assertEquals("EO: parent of child", EO, model.getParent(child));
+				child = model.getNextSibling(child);
+			}
+			assertEquals("EO: number of children", EventBColumnarModel.NONE,
+					child);
+
+			// Check the attributes of the invariants of EO.
+			IInvariant[] invariants = EOMchRoot.getInvariants();
+			int count = 0;
+			for (int inv : model.getElementsOfType(IInvariant.ELEMENT_TYPE)) {
+				if (model.getParent(inv) != EO)
+					continue;
+				IInvariant expected = invariants[count++];
+				assertEquals("Label", expected.getLabel(),
+						model.getAttributeValue(inv,
+								EventBAttributes.LABEL_ATTRIBUTE));
+				assertEquals("Predicate", expected.getPredicateString(),
+						model.getAttributeValue(inv,
+								EventBAttributes.PREDICATE_ATTRIBUTE));
+				assertEquals("Theorem", expected.isTheorem(),
+						model.getAttributeValue(inv,
+								EventBAttributes.THEOREM_ATTRIBUTE, false));
+				assertFalse("No assignment", model.hasAttribute(inv,
+						EventBAttributes.ASSIGNMENT_ATTRIBUTE));
+			}
+			assertEquals("EO: number of invariants", invariants.length, count);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBComponentGraph;
+import ch.ethz.eventb.utils.EventBComponentGraph.Relation;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the component dependency graph.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBComponentGraph
+ * @since 0.3.0
+ */
+public class EventBComponentGraphTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBComponentGraph#getDependencies(IEventBRoot)} and
+	 * {@link EventBComponentGraph#getDependants(IEventBRoot)}.
+	 */
+	@Test
+	public void testGetDependencies() {
+		try {
+			EventBComponentGraph graph = EventBComponentGraph
+					.getGraph(ChannelSetup.getChannelProject());
+			IContextRoot messageCtx = ChannelSetup.getMessageContextRoot();
+			IContextRoot sizeCtx = ChannelSetup.getSizeContextRoot();
+			IMachineRoot channelMch = ChannelSetup.getChannelMachineRoot();
+			IMachineRoot EOMch = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMch = ChannelSetup.getEOIOMachineRoot();
+
+			assertEquals("Number of components", 5, graph.getComponents()
+					.size());
+
+			Map<IEventBRoot, Relation> dependencies = graph
+					.getDependencies(EOMch);
+			assertEquals("EO: number of dependencies", 3, dependencies.size());
+			assertEquals("EO refines channel", Relation.REFINES,
+					dependencies.get(channelMch));
+			assertEquals("EO sees message_ctx", Relation.SEES,
+					dependencies.get(messageCtx));
+			assertEquals("EO sees size_ctx", Relation.SEES,
+					dependencies.get(sizeCtx));
+			assertTrue("message_ctx: no dependencies", graph
+					.getDependencies(messageCtx).isEmpty());
+
+			Set<IEventBRoot> dependants = graph.getDependants(messageCtx);
+			assertEquals("message_ctx: number of dependants", 3,
+					dependants.size());
+			assertTrue("channel sees message_ctx",
+					dependants.contains(channelMch));
+			assertTrue("EO sees message_ctx", dependants.contains(EOMch));
+			assertTrue("EOIO sees message_ctx", dependants.contains(EOIOMch));
+			assertTrue("EOIO: no dependants", graph.getDependants(EOIOMch)
+					.isEmpty());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBComponentGraph#getTopologicalOrder()} and
+	 * {@link EventBComponentGraph#getCycles()}.
+	 */
+	@Test
+	public void testGetTopologicalOrder() {
+		try {
+			EventBComponentGraph graph = EventBComponentGraph
+					.getGraph(ChannelSetup.getChannelProject());
+			List<IEventBRoot> order = graph.getTopologicalOrder();
+			assertEquals("Number of components", 5, order.size());
+			for (IEventBRoot root : order) {
+				for (IEventBRoot dependency : graph.getDependencies(root)
+						.keySet()) {
+					assertTrue(dependency + " must come before " + root,
+							order.indexOf(dependency) < order.indexOf(root));
+				}
+			}
+			assertFalse("The graph is acyclic", graph.hasCycles());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBComponentGraph#getImpactedComponents(IEventBRoot)} and
+	 * {@link EventBComponentGraph#getImpactedComponents(IEventBRoot, String)}.
+	 */
+	@Test
+	public void testGetImpactedComponents() {
+		try {
+			EventBComponentGraph graph = EventBComponentGraph
+					.getGraph(ChannelSetup.getChannelProject());
+			IContextRoot messageCtx = ChannelSetup.getMessageContextRoot();
+			IContextRoot sizeCtx = ChannelSetup.getSizeContextRoot();
+			IMachineRoot channelMch = ChannelSetup.getChannelMachineRoot();
+			IMachineRoot EOMch = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMch = ChannelSetup.getEOIOMachineRoot();
+
+			assertEquals("Impact of message_ctx",
+					Arrays.asList(channelMch, EOMch, EOIOMch),
+					graph.getImpactedComponents(messageCtx));
+			assertEquals("Impact of size_ctx", Arrays.asList(EOMch, EOIOMch),
+					graph.getImpactedComponents(sizeCtx));
+			assertTrue("Impact of EOIO", graph.getImpactedComponents(EOIOMch)
+					.isEmpty());
+
+			// max_size is mentioned in EO, hence EOIO is also impacted.
+			assertEquals("Impact of max_size", Arrays.asList(EOMch, EOIOMch),
+					graph.getImpactedComponents(sizeCtx, "max_size"));
+			// min_size is mentioned nowhere.
+			assertTrue("Impact of min_size", graph.getImpactedComponents(
+					sizeCtx, "min_size").isEmpty());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test that the graph follows the changes of the components.
+	 */
+	@Test
+	public void testIncrementalUpdate() {
+		try {
+			EventBComponentGraph graph = EventBComponentGraph
+					.getGraph(ChannelSetup.getChannelProject());
+			IMachineRoot channelMch = ChannelSetup.getChannelMachineRoot();
+			IMachineRoot EOIOMch = ChannelSetup.getEOIOMachineRoot();
+
+			// Make channel refine EOIO, creating a cycle.
+			EventBUtils.createRefinesMachineClause(channelMch, "EOIO", null,
+					nullMonitor);
+			channelMch.getRodinFile().save(nullMonitor, false);
+			assertEquals("channel refines EOIO", Relation.REFINES, graph
+					.getDependencies(channelMch).get(EOIOMch));
+			List<Set<IEventBRoot>> cycles = graph.getCycles();
+			assertEquals("Number of cycles", 1, cycles.size());
+			assertEquals("Cycle channel, EO, EOIO", 3, cycles.get(0).size());
+			assertEquals("Number of components", 5, graph
+					.getTopologicalOrder().size());
+
+			// Remove the machine EOIO, breaking the cycle.
+			EOIOMch.getRodinFile().delete(true, nullMonitor);
+			assertEquals("Number of components", 4, graph.getComponents()
+					.size());
+			assertFalse("The graph is acyclic", graph.hasCycles());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
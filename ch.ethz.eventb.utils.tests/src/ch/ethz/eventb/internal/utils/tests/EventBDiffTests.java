@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IAction;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IGuard;
+import org.eventb.core.IInvariant;
+import org.eventb.core.ILabeledElement;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinFile;
+
+import ch.ethz.eventb.utils.EventBDiff;
+import ch.ethz.eventb.utils.EventBDiff.Change;
+import ch.ethz.eventb.utils.EventBDiff.Kind;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the structural difference of components.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBDiff
+ * @since 0.3.0
+ */
+public class EventBDiffTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBDiff#compare(org.eventb.core.IEventBRoot, org.eventb.core.IEventBRoot)}
+	 * .
+	 */
+	@Test
+	public void testCompare() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IRodinFile file = EOMchRoot.getRodinFile();
+			file.copy(file.getParent(), null, "EO2.bum", false, nullMonitor);
+			IMachineRoot copy = prj.getMachineRoot("EO2");
+
+			assertTrue("Identical copies", EventBDiff.compare(EOMchRoot, copy)
+					.isEmpty());
+
+			// Modify a guard, add an invariant, remove an action and move an
+			// invariant to the end of the machine.
+			IEvent sends = EventBUtils.getEvent(copy, "sends");
+			IGuard grd2 = getLabeled(sends.getGuards(), "grd2");
+			grd2.setPredicateString("card(channel) < max_size", nullMonitor);
+			IInvariant inv7 = EventBUtils.createInvariant(copy, "inv7",
+					"r_count ≤ s_count", false, null, nullMonitor);
+			IEvent receives = EventBUtils.getEvent(copy, "receives");
+			IAction act3 = getLabeled(receives.getActions(), "act3");
+			act3.delete(false, nullMonitor);
+			IInvariant inv1 = getLabeled(copy.getInvariants(), "inv1");
+			inv1.move(copy, null, null, false, nullMonitor);
+
+			EventBDiff diff = EventBDiff.compare(EOMchRoot, copy);
+			assertEquals("Number of changes", 4, diff.getChanges().size());
+			assertChange(diff, Kind.MODIFIED,
+					getLabeled(EventBUtils.getEvent(EOMchRoot, "sends")
+							.getGuards(), "grd2"), grd2);
+			assertChange(diff, Kind.ADDED, null, inv7);
+			assertChange(diff, Kind.REMOVED,
+					getLabeled(EventBUtils.getEvent(EOMchRoot, "receives")
+							.getActions(), "act3"), null);
+			assertChange(diff, Kind.MOVED,
+					getLabeled(EOMchRoot.getInvariants(), "inv1"), inv1);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBDiff#compare(org.eventb.core.IEventBRoot, org.eventb.core.IEventBRoot)}
+	 * with an element moved to another parent.
+	 */
+	@Test
+	public void testCompareMoveAcrossParents() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IRodinFile file = EOMchRoot.getRodinFile();
+			file.copy(file.getParent(), null, "EO2.bum", false, nullMonitor);
+			IMachineRoot copy = prj.getMachineRoot("EO2");
+
+			IGuard grd2 = getLabeled(EventBUtils.getEvent(copy, "sends")
+					.getGuards(), "grd2");
+			IEvent receives = EventBUtils.getEvent(copy, "receives");
+			grd2.move(receives, null, "movedGuard", false, nullMonitor);
+			IGuard moved = getLabeled(receives.getGuards(), "grd2");
+
+			EventBDiff diff = EventBDiff.compare(EOMchRoot, copy);
+			assertEquals("Number of changes", 1, diff.getChanges().size());
+			assertChange(diff, Kind.MOVED,
+					getLabeled(EventBUtils.getEvent(EOMchRoot, "sends")
+							.getGuards(), "grd2"), moved);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the element with a given label.
+	 */
+	private <T extends ILabeledElement> T getLabeled(T[] elements,
+			String label) throws CoreException {
+		for (T element : elements) {
+			if (element.getLabel().equals(label))
+				return element;
+		}
+		fail("Missing element " + label);
+		return null;
+	}
+
+	/*
+	 * Utility method to check that a difference contains a change.
+	 */
+	private void assertChange(EventBDiff diff, Kind kind,
+			IInternalElement oldElement, IInternalElement newElement) {
+		List<Change> changes = diff.getChanges(kind);
+		for (Change change : changes) {
+			if (isSame(oldElement, change.getOldElement())
+					&& isSame(newElement, change.getNewElement()))
+				return;
+		}
+		fail("Missing change " + kind + " " + oldElement + " -> "
+				+ newElement + " in " + diff.getChanges());
+	}
+
+	/*
+	 * Utility method to compare possibly null elements.
+	 */
+	private boolean isSame(IInternalElement expected, IInternalElement actual) {
+		return expected == null ? actual == null : expected.equals(actual);
+	}
+
+}
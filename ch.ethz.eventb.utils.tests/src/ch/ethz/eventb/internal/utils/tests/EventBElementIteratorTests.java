@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IGuard;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IInternalElementType;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinProject;
+
+import ch.ethz.eventb.utils.EventBElementIterator;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the streaming element iterator.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBElementIterator
+ * @since 0.3.0
+ */
+public class EventBElementIteratorTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBElementIterator#iterate(IEventBProject)}.
+	 */
+	@Test
+	public void testIterateAll() {
+		try {
+			// Generate the statically checked and proof obligation files,
+			// which are not visited.
+			workspace.build(IncrementalProjectBuilder.FULL_BUILD, nullMonitor);
+
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			List<IInternalElement> expected = new ArrayList<IInternalElement>();
+			for (IInternalElement root : getComponents(prj)) {
+				collect(root, null, expected);
+			}
+			List<IInternalElement> actual = new ArrayList<IInternalElement>();
+			EventBElementIterator.iterate(prj).forEachRemaining(actual::add);
+			assertEquals("All elements in document order", expected, actual);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBElementIterator#iterate(IEventBProject, IInternalElementType)}
+	 * and {@link EventBElementIterator#stream()}.
+	 */
+	@Test
+	public void testIterateOfType() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			List<IInternalElement> expected = new ArrayList<IInternalElement>();
+			for (IInternalElement root : getComponents(prj)) {
+				collect(root, IGuard.ELEMENT_TYPE, expected);
+			}
+			List<IGuard> actual = EventBElementIterator.stream(prj,
+					IGuard.ELEMENT_TYPE).collect(Collectors.toList());
+			assertEquals("All guards in document order", expected, actual);
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			List<IEvent> events = EventBElementIterator
+					.iterate(EOMchRoot, IEvent.ELEMENT_TYPE).stream()
+					.collect(Collectors.toList());
+			assertEquals("Events of EO", 3, events.size());
+			assertEquals("Machines of the project", 3, EventBElementIterator
+					.stream(prj, IMachineRoot.ELEMENT_TYPE).count());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the contexts then the machines of a project.
+	 */
+	private List<IInternalElement> getComponents(IEventBProject prj)
+			throws CoreException {
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IInternalElement> result = new ArrayList<IInternalElement>();
+		result.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		result.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		return result;
+	}
+
+	/*
+	 * Utility method to collect recursively the elements of a type.
+	 */
+	private void collect(IInternalElement element,
+			IInternalElementType<?> type, List<IInternalElement> result)
+			throws CoreException {
+		if (type == null || element.getElementType() == type)
+			result.add(element);
+		for (IRodinElement child : element.getChildren()) {
+			collect((IInternalElement) child, type, result);
+		}
+	}
+
+}
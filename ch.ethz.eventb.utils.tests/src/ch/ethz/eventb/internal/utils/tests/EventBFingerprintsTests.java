@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IGuard;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IRodinFile;
+
+import ch.ethz.eventb.utils.EventBFingerprints;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the content fingerprints of components.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBFingerprints
+ * @since 0.3.0
+ */
+public class EventBFingerprintsTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBFingerprints#getFingerprint(org.eventb.core.IEventBRoot)}
+	 * and
+	 * {@link EventBFingerprints#getFingerprint(org.rodinp.core.IInternalElement)}
+	 * .
+	 */
+	@Test
+	public void testGetFingerprint() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IRodinFile file = EOMchRoot.getRodinFile();
+			IEvent sends = EventBUtils.getEvent(EOMchRoot, "sends");
+			IEvent receives = EventBUtils.getEvent(EOMchRoot, "receives");
+			IGuard grd2 = null;
+			IGuard thm1 = null;
+			for (IGuard grd : sends.getGuards()) {
+				if (grd.getLabel().equals("grd2"))
+					grd2 = grd;
+				else
+					thm1 = grd;
+			}
+			long mchFingerprint = EventBFingerprints.getFingerprint(EOMchRoot);
+			long sendsFingerprint = EventBFingerprints.getFingerprint(sends);
+			long receivesFingerprint = EventBFingerprints
+					.getFingerprint(receives);
+			long grd2Fingerprint = EventBFingerprints.getFingerprint(grd2);
+			long thm1Fingerprint = EventBFingerprints.getFingerprint(thm1);
+			assertFalse("Different events",
+					sendsFingerprint == receivesFingerprint);
+
+			// A copy has the same fingerprint.
+			file.copy(file.getParent(), null, "EO2.bum", false, nullMonitor);
+			assertEquals("Copy", mchFingerprint,
+					EventBFingerprints.getFingerprint(prj.getMachineRoot("EO2")));
+
+			// Saving the same content changes the stamp but not the
+			// fingerprints.
+			grd2.setPredicateString("card(channel) < max_size", nullMonitor);
+			grd2.setPredicateString("card(channel) ≠ max_size", nullMonitor);
+			file.save(nullMonitor, false);
+			assertEquals("Re-saved machine", mchFingerprint,
+					EventBFingerprints.getFingerprint(EOMchRoot));
+			assertEquals("Re-saved guard", grd2Fingerprint,
+					EventBFingerprints.getFingerprint(grd2));
+
+			// Changing a guard changes the fingerprints of the guard, of its
+			// event and of the machine only.
+			grd2.setPredicateString("card(channel) < max_size", nullMonitor);
+			file.save(nullMonitor, false);
+			assertFalse("Modified machine",
+					mchFingerprint == EventBFingerprints
+							.getFingerprint(EOMchRoot));
+			assertFalse("Modified event",
+					sendsFingerprint == EventBFingerprints
+							.getFingerprint(sends));
+			assertFalse("Modified guard",
+					grd2Fingerprint == EventBFingerprints.getFingerprint(grd2));
+			assertEquals("Unmodified guard", thm1Fingerprint,
+					EventBFingerprints.getFingerprint(thm1));
+			assertEquals("Unmodified event", receivesFingerprint,
+					EventBFingerprints.getFingerprint(receives));
+			assertTrue("All elements", EventBFingerprints
+					.getElementFingerprints(EOMchRoot).containsKey(thm1));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IConvergenceElement.Convergence;
+import org.eventb.core.IEvent;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBFlattenedEvents;
+import ch.ethz.eventb.utils.EventBFlattenedEvents.FlattenedEvent;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the flattened events.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBFlattenedEvents
+ * @since 0.3.0
+ */
+public class EventBFlattenedEventsTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBFlattenedEvents#getFlattenedEvent(IEvent)}.
+	 */
+	@Test
+	public void testGetFlattenedEvent() {
+		try {
+			EventBFlattenedEvents flattened = EventBFlattenedEvents
+					.getFlattenedEvents(ChannelSetup.getChannelProject());
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+
+			// sends of EOIO extends sends of EO, which extends sends of
+			// channel.
+			FlattenedEvent sends = flattened.getFlattenedEvent(EventBUtils
+					.getEvent(EOIOMchRoot, "sends"));
+			assertEquals("sends: chain", 3, sends.getRefinementChain().size());
+			assertSameStrings("sends: parameters", sends.getParameters(),
+					"msg");
+			assertSameStrings("sends: guards", getLabels(sends.getGuards()),
+					"grd1", "grd2", "thm1");
+			assertSameStrings("sends: actions", getLabels(sends.getActions()),
+					"act1", "act2", "act3");
+
+			// INITIALISATION implicitly refines the abstract INITIALISATION.
+			FlattenedEvent init = flattened.getFlattenedEvent(EventBUtils
+					.getEvent(EOMchRoot, IEvent.INITIALISATION));
+			assertSameStrings("INITIALISATION: actions",
+					getLabels(init.getActions()), "act1", "act2", "act3",
+					"act4", "act5");
+
+			// receives of EO is not extended.
+			FlattenedEvent receives = flattened.getFlattenedEvent(EventBUtils
+					.getEvent(EOIOMchRoot, "receives"));
+			assertEquals("receives: chain", 2, receives.getRefinementChain()
+					.size());
+			assertSameStrings("receives: parameters",
+					receives.getParameters(), "idx");
+			assertSameStrings("receives: guards",
+					getLabels(receives.getGuards()), "grd1", "grd2");
+
+			// Changing EO invalidates the flattened events of EOIO.
+			EventBUtils.createGuard(EventBUtils.getEvent(EOMchRoot, "sends"),
+					"grd3", "s_count ∈ ℕ", false, null, nullMonitor);
+			EOMchRoot.getRodinFile().save(nullMonitor, false);
+			sends = flattened.getFlattenedEvent(EventBUtils.getEvent(
+					EOIOMchRoot, "sends"));
+			assertSameStrings("sends: new guards",
+					getLabels(sends.getGuards()), "grd1", "grd2", "thm1",
+					"grd3");
+			assertEquals("Events of EOIO", 3, flattened.getFlattenedEvents(
+					EOIOMchRoot).size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBFlattenedEvents#getFlattenedEvent(IEvent)} when the
+	 * abstract event is created after the event is flattened.
+	 */
+	@Test
+	public void testGetFlattenedEventMissingAbstraction() {
+		try {
+			EventBFlattenedEvents flattened = EventBFlattenedEvents
+					.getFlattenedEvents(ChannelSetup.getChannelProject());
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+
+			// An extended event of EOIO whose abstract event does not exist.
+			IEvent resets = EventBUtils.createEvent(EOIOMchRoot, "resets",
+					Convergence.ORDINARY, true, null, nullMonitor);
+			EventBUtils.createRefinesEventClause(resets, "resets", null,
+					nullMonitor);
+			EventBUtils.createGuard(resets, "grd2", "r_count = s_count",
+					false, null, nullMonitor);
+			EOIOMchRoot.getRodinFile().save(nullMonitor, false);
+			FlattenedEvent flattenedResets = flattened
+					.getFlattenedEvent(resets);
+			assertEquals("resets: chain", 1, flattenedResets
+					.getRefinementChain().size());
+
+			// Creating the abstract event invalidates the flattened event.
+			IEvent absResets = EventBUtils.createEvent(EOMchRoot, "resets",
+					Convergence.ORDINARY, false, null, nullMonitor);
+			EventBUtils.createGuard(absResets, "grd1", "s_count ∈ ℕ", false,
+					null, nullMonitor);
+			EOMchRoot.getRodinFile().save(nullMonitor, false);
+			flattenedResets = flattened.getFlattenedEvent(resets);
+			assertEquals("resets: new chain", 2, flattenedResets
+					.getRefinementChain().size());
+			assertSameStrings("resets: new guards",
+					getLabels(flattenedResets.getGuards()), "grd1", "grd2");
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the labels of clauses.
+	 */
+	private List<String> getLabels(List<Clause> clauses) {
+		List<String> result = new ArrayList<String>();
+		for (Clause clause : clauses) {
+			result.add(clause.getLabel());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.Map;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.ast.AssociativePredicate;
+import org.eventb.core.ast.Assignment;
+import org.eventb.core.ast.BecomesEqualTo;
+import org.eventb.core.ast.ITypeEnvironmentBuilder;
+import org.eventb.core.ast.Predicate;
+import org.eventb.core.ast.RelationalPredicate;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBFormulaStore;
+import ch.ethz.eventb.utils.EventBSCUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the shared store of formulas.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBFormulaStore
+ * @since 0.3.0
+ */
+public class EventBFormulaStoreTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * <li>Build the workspace.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+
+		// Fully build the project.
+		workspace.build(IncrementalProjectBuilder.FULL_BUILD, nullMonitor);
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBFormulaStore#getPredicate(String, org.eventb.core.ast.ITypeEnvironment)}
+	 * .
+	 */
+	@Test
+	public void testGetPredicate() {
+		ITypeEnvironmentBuilder typeEnv = ff.makeTypeEnvironment();
+		typeEnv.addName("x", ff.makeIntegerType());
+		typeEnv.addName("y", ff.makeIntegerType());
+
+		Predicate conj = EventBFormulaStore.getPredicate("x ∈ ℕ ∧ y ∈ ℕ",
+				typeEnv);
+		assertTrue("Type-checked", conj.isTypeChecked());
+		assertSame("Parsed once", conj,
+				EventBFormulaStore.getPredicate("x ∈ ℕ ∧ y ∈ ℕ", typeEnv));
+
+		// Common sub-trees are shared.
+		Predicate left = EventBFormulaStore.getPredicate("x ∈ ℕ", typeEnv);
+		assertSame("Shared sub-tree", left,
+				((AssociativePredicate) conj).getChildren()[0]);
+		Predicate other = EventBFormulaStore.getPredicate("y ∈ ℕ ∧ x ∈ ℕ",
+				typeEnv);
+		assertSame("Shared sub-tree", left,
+				((AssociativePredicate) other).getChildren()[1]);
+		assertSame("Shared leaf", ((RelationalPredicate) left).getRight(),
+				((RelationalPredicate) ((AssociativePredicate) other)
+						.getChildren()[0]).getRight());
+
+		// A different typing gives a different formula.
+		ITypeEnvironmentBuilder boolEnv = ff.makeTypeEnvironment();
+		boolEnv.addName("x", ff.makeBooleanType());
+		Predicate eq = EventBFormulaStore.getPredicate("x = x", typeEnv);
+		Predicate boolEq = EventBFormulaStore.getPredicate("x = x", boolEnv);
+		assertNotSame("Different typing", eq, boolEq);
+		assertEquals("Typed with the environment", ff.makeBooleanType(),
+				((RelationalPredicate) boolEq).getLeft().getType());
+
+		// Ill-formed predicates.
+		assertNull("Syntax error",
+				EventBFormulaStore.getPredicate("x ∈", typeEnv));
+		assertNull("Type error",
+				EventBFormulaStore.getPredicate("x ∈ BOOL", typeEnv));
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBFormulaStore#getAssignment(String, org.eventb.core.ast.ITypeEnvironment)}
+	 * .
+	 */
+	@Test
+	public void testGetAssignment() {
+		ITypeEnvironmentBuilder typeEnv = ff.makeTypeEnvironment();
+		typeEnv.addName("x", ff.makeIntegerType());
+		typeEnv.addName("y", ff.makeIntegerType());
+
+		Assignment assignment = EventBFormulaStore.getAssignment(
+				"x ≔ y + 1", typeEnv);
+		assertSame("Parsed once", assignment,
+				EventBFormulaStore.getAssignment("x ≔ y + 1", typeEnv));
+		Predicate pred = EventBFormulaStore.getPredicate("y + 1 > 0",
+				typeEnv);
+		assertSame("Shared sub-tree",
+				((RelationalPredicate) pred).getLeft(),
+				((BecomesEqualTo) assignment).getExpressions()[0]);
+	}
+
+	/**
+	 * Test that equal sub-trees with different names of bound identifiers are
+	 * not shared.
+	 */
+	@Test
+	public void testBoundIdentifierNames() {
+		ITypeEnvironmentBuilder typeEnv = ff.makeTypeEnvironment();
+		typeEnv.addName("x", ff.makeIntegerType());
+
+		Predicate first = EventBFormulaStore.getPredicate(
+				"x ∈ ℕ ∧ (∀y·y ∈ ℕ)", typeEnv);
+		Predicate second = EventBFormulaStore.getPredicate(
+				"x ∈ ℕ ∧ (∀z·z ∈ ℕ)", typeEnv);
+		assertEquals("Printed as parsed",
+				ff.parsePredicate("x ∈ ℕ ∧ (∀z·z ∈ ℕ)", null)
+						.getParsedPredicate().toString(), second.toString());
+		assertNotSame("Different bound names",
+				((AssociativePredicate) first).getChildren()[1],
+				((AssociativePredicate) second).getChildren()[1]);
+		assertSame("Shared sub-tree",
+				((AssociativePredicate) first).getChildren()[0],
+				((AssociativePredicate) second).getChildren()[0]);
+	}
+
+	/**
+	 * Test the sharing of the predicates of the checked machines.
+	 */
+	@Test
+	public void testSharedSCPredicates() {
+		try {
+			Map<String, Predicate> eoAxioms = EventBSCUtils
+					.getSCSeenAxiomPredicates(ChannelSetup.getEOMachineRoot(),
+							false);
+			Map<String, Predicate> eoioAxioms = EventBSCUtils
+					.getSCSeenAxiomPredicates(
+							ChannelSetup.getEOIOMachineRoot(), false);
+			assertSame("Shared seen axiom", eoAxioms.get("message_ctx/axm1"),
+					eoioAxioms.get("message_ctx/axm1"));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
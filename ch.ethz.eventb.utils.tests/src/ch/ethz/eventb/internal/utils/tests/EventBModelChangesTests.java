@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEvent;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.RodinCore;
+
+import ch.ethz.eventb.utils.EventBModelChanges;
+import ch.ethz.eventb.utils.EventBModelChanges.Batch;
+import ch.ethz.eventb.utils.EventBModelChanges.Change;
+import ch.ethz.eventb.utils.EventBModelChanges.Kind;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the stream of model changes.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBModelChanges
+ * @since 0.3.0
+ */
+public class EventBModelChangesTests extends AbstractEventBTests {
+
+	/*
+	 * A subscriber collecting the batches.
+	 */
+	private static final class Collector implements Flow.Subscriber<Batch> {
+
+		private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<Batch>();
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(Batch batch) {
+			batches.add(batch);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			throwable.printStackTrace();
+		}
+
+		@Override
+		public void onComplete() {
+			// Do nothing
+		}
+
+	}
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test the changes of elements.
+	 */
+	@Test
+	public void testElementChanges() {
+		Collector collector = new Collector();
+		try (EventBModelChanges changes = new EventBModelChanges(200,
+				TimeUnit.MILLISECONDS)) {
+			changes.subscribe(collector);
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IInvariant inv = EventBUtils.createInvariant(EOMchRoot, "inv9",
+					"s_count ≥ 0", false, null, nullMonitor);
+
+			Batch batch = collector.batches.poll(5, TimeUnit.SECONDS);
+			assertNotNull("Batch", batch);
+			assertTrue("Invariant added",
+					getElements(batch.getChanges(Kind.ELEMENT_ADDED))
+							.contains(inv));
+			assertTrue("Invariant not changed",
+					batch.getChanges(Kind.ELEMENT_CHANGED).isEmpty());
+			assertTrue("Component", batch.getComponents().contains(EOMchRoot));
+			assertFalse("Not summarised", batch.isSummarised());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			fail("There should be no interruption");
+			return;
+		}
+	}
+
+	/**
+	 * Test the summary of a burst of changes.
+	 */
+	@Test
+	public void testSummarisedChanges() {
+		Collector collector = new Collector();
+		try (EventBModelChanges changes = new EventBModelChanges(200,
+				TimeUnit.MILLISECONDS, 5)) {
+			changes.subscribe(collector);
+			final IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			final IEvent sends = EventBUtils.getEvent(EOMchRoot, "sends");
+			RodinCore.run(pm -> {
+				for (int i = 0; i < 20; i++) {
+					EventBUtils.createGuard(sends, "burst" + i, "s_count ≥ "
+							+ i, false, null, pm);
+				}
+			}, nullMonitor);
+
+			Batch batch = collector.batches.poll(5, TimeUnit.SECONDS);
+			assertNotNull("Batch", batch);
+			assertTrue("Summarised", batch.isSummarised());
+			assertTrue("Received", batch.getReceivedCount() >= 20);
+			assertEquals("One change", 1, batch.getChanges().size());
+			Change change = batch.getChanges().get(0);
+			assertEquals("Component changed", Kind.COMPONENT_CHANGED,
+					change.getKind());
+			assertEquals("Machine EO", EOMchRoot, change.getElement());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			fail("There should be no interruption");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBModelChanges#close()}.
+	 */
+	@Test
+	public void testClose() {
+		Collector collector = new Collector();
+		try {
+			EventBModelChanges changes = new EventBModelChanges(1,
+					TimeUnit.MINUTES);
+			changes.subscribe(collector);
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IInvariant inv = EventBUtils.createInvariant(EOMchRoot, "inv9",
+					"s_count ≥ 0", false, null, nullMonitor);
+
+			// The pending changes are published without waiting for the
+			// end of the window.
+			changes.close();
+			Batch batch = collector.batches.poll(5, TimeUnit.SECONDS);
+			assertNotNull("Batch", batch);
+			assertTrue("Invariant added",
+					getElements(batch.getChanges(Kind.ELEMENT_ADDED))
+							.contains(inv));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			fail("There should be no interruption");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the elements of changes.
+	 */
+	private List<IRodinElement> getElements(List<Change> changes) {
+		List<IRodinElement> result = new ArrayList<IRodinElement>();
+		for (Change change : changes) {
+			result.add(change.getElement());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IInternalElement;
+
+import ch.ethz.eventb.utils.EventBOccurrenceIndex;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the identifier occurrence index.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBOccurrenceIndex
+ * @since 0.3.0
+ */
+public class EventBOccurrenceIndexTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBOccurrenceIndex#getOccurrences(String)}
+	 * and {@link EventBOccurrenceIndex#getIdentifiers(IInternalElement)}.
+	 */
+	@Test
+	public void testGetOccurrences() {
+		try {
+			EventBOccurrenceIndex index = EventBOccurrenceIndex
+					.getOccurrenceIndex(ChannelSetup.getChannelProject());
+			IMachineRoot EOMch = ChannelSetup.getEOMachineRoot();
+
+			// axm1 of size_ctx, inv6 and thm3 of EO, grd2 of EO.sends.
+			List<IInternalElement> occurrences = index
+					.getOccurrences("max_size");
+			assertEquals("max_size: number of occurrences", 4,
+					occurrences.size());
+			assertEquals("max_size: number of occurrences in EO", 3, index
+					.getOccurrences("max_size", EOMch).size());
+			Set<IEventBRoot> components = index.getComponents("max_size");
+			assertEquals("max_size: number of components", 2,
+					components.size());
+			assertTrue("max_size is mentioned in size_ctx",
+					components.contains(ChannelSetup.getSizeContextRoot()));
+			assertTrue("max_size is mentioned in EO",
+					components.contains(EOMch));
+			assertTrue("foo: no occurrences", index.getOccurrences("foo")
+					.isEmpty());
+
+			IInvariant inv6 = getInvariant(EOMch, "inv6");
+			assertSameStrings("Identifiers of EO.inv6",
+					index.getIdentifiers(inv6), "channel", "max_size");
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test that the index follows the changes of the components.
+	 */
+	@Test
+	public void testIncrementalUpdate() {
+		try {
+			EventBOccurrenceIndex index = EventBOccurrenceIndex
+					.getOccurrenceIndex(ChannelSetup.getChannelProject());
+			IMachineRoot EOMch = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMch = ChannelSetup.getEOIOMachineRoot();
+
+			EventBUtils.createInvariant(EOIOMch, "inv2",
+					"card(channel) ≤ max_size", false, null, nullMonitor);
+			EOIOMch.getRodinFile().save(nullMonitor, false);
+			assertEquals("max_size: number of occurrences", 5, index
+					.getOccurrences("max_size").size());
+			assertTrue("max_size is mentioned in EOIO", index
+					.getComponents("max_size").contains(EOIOMch));
+
+			getInvariant(EOMch, "inv6").delete(true, nullMonitor);
+			EOMch.getRodinFile().save(nullMonitor, false);
+			assertEquals("max_size: number of occurrences", 4, index
+					.getOccurrences("max_size").size());
+			assertEquals("max_size: number of occurrences in EO", 2, index
+					.getOccurrences("max_size", EOMch).size());
+
+			EOMch.getRodinFile().delete(true, nullMonitor);
+			assertEquals("max_size: number of occurrences", 2, index
+					.getOccurrences("max_size").size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get an invariant of a machine by its label.
+	 */
+	private IInvariant getInvariant(IMachineRoot mch, String label)
+			throws CoreException {
+		for (IInvariant inv : mch.getInvariants()) {
+			if (inv.getLabel().equals(label))
+				return inv;
+		}
+		fail("There should be an invariant " + label);
+		return null;
+	}
+
+}
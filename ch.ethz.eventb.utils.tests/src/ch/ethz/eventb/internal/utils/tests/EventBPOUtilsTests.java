@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.Map;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+import org.rodinp.core.IRodinElement;
+
+import ch.ethz.eventb.utils.EventBPOUtils;
+import ch.ethz.eventb.utils.POStatistics;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the proof obligation utilities.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBPOUtils
+ * @since 0.3.0
+ */
+public class EventBPOUtilsTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * <li>Build the workspace.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+
+		// Fully build the project.
+		workspace.build(IncrementalProjectBuilder.FULL_BUILD, nullMonitor);
+	}
+
+	/**
+	 * Test method for {@link EventBPOUtils#getPOStatistics(IEventBRoot)}.
+	 */
+	@Test
+	public void testGetPOStatistics() {
+		try {
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			POStatistics statistics = EventBPOUtils
+					.getPOStatistics(EOMchRoot);
+			assertEquals("Machine EO: total",
+					EOMchRoot.getPORoot().getSequents().length,
+					statistics.getTotal());
+			assertEquals("Machine EO: counts", statistics.getTotal(),
+					statistics.getDischarged() + statistics.getReviewed()
+							+ statistics.getPending());
+			assertSame("Machine EO: cached statistics", statistics,
+					EventBPOUtils.getPOStatistics(EOMchRoot));
+
+			// The invariant of EO has proof obligations, which are also
+			// proof obligations of the machine.
+			IInvariant inv = EOMchRoot.getInvariants()[0];
+			assertEquals("Invariant inv1", "inv1", inv.getLabel());
+			POStatistics invStatistics = EventBPOUtils.getPOStatistics(inv);
+			assertTrue("Invariant inv1: proof obligations",
+					invStatistics.getTotal() > 0);
+			assertTrue("Invariant inv1: subset of the machine",
+					invStatistics.getTotal() <= statistics.getTotal());
+			Map<IRodinElement, POStatistics> elements = EventBPOUtils
+					.getElementPOStatistics(EOMchRoot);
+			assertEquals("Invariant inv1: element statistics", invStatistics,
+					elements.get(inv));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBPOUtils#getPOStatistics(org.eventb.core.IEventBProject, org.eclipse.core.runtime.IProgressMonitor)}
+	 * .
+	 */
+	@Test
+	public void testGetProjectPOStatistics() {
+		try {
+			Map<IEventBRoot, POStatistics> statistics = EventBPOUtils
+					.getPOStatistics(ChannelSetup.getChannelProject(),
+							nullMonitor);
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+			assertEquals("Machine EOIO",
+					EventBPOUtils.getPOStatistics(EOIOMchRoot),
+					statistics.get(EOIOMchRoot));
+			assertEquals("Machines and contexts", 5, statistics.size());
+			assertTrue("Context message_ctx", statistics
+					.containsKey(ChannelSetup.getMessageContextRoot()));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
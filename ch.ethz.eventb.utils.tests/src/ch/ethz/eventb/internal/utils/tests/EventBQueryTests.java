@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IAxiom;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IGuard;
+import org.eventb.core.IInvariant;
+import org.eventb.core.ILabeledElement;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IVariable;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBQuery;
+import ch.ethz.eventb.utils.EventBSymbolTable.Kind;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the queries over Event-B projects.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBQuery
+ * @since 0.3.0
+ */
+public class EventBQueryTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBQuery#mentioning(String)} and
+	 * {@link EventBQuery#inExtendedEvents()}, with and without indexes.
+	 */
+	@Test
+	public void testMentioning() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			IGuard EO_sends_grd2 = getLabeled(
+					EventBUtils.getEvent(ChannelSetup.getEOMachineRoot(),
+							"sends").getGuards(), "grd2");
+			IGuard EOIO_receives_grd2 = getLabeled(
+					EventBUtils.getEvent(ChannelSetup.getEOIOMachineRoot(),
+							"receives").getGuards(), "grd2");
+
+			EventBQuery<IGuard> channelQuery = EventBQuery.guards(prj)
+					.inExtendedEvents().mentioning("channel");
+			EventBQuery<IGuard> rCountQuery = EventBQuery.guards(prj)
+					.mentioning("r_count").inExtendedEvents();
+			assertEquals("Scan: channel", Arrays.asList(EO_sends_grd2),
+					channelQuery.toList());
+			assertEquals("Scan: r_count", Arrays.asList(EOIO_receives_grd2),
+					rCountQuery.toList());
+			assertEquals("Index: channel", Arrays.asList(EO_sends_grd2),
+					channelQuery.indexed().toList());
+			assertEquals("Index: r_count", Arrays.asList(EOIO_receives_grd2),
+					rCountQuery.indexed().toList());
+			assertEquals("Label", 1,
+					EventBQuery.guards(prj).mentioning("channel")
+							.withLabel("grd1").toList().size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBQuery#mentioning(Kind)} and
+	 * {@link EventBQuery#notMentioning(Kind)}.
+	 */
+	@Test
+	public void testMentioningKind() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			List<String> labels = new ArrayList<String>();
+			for (IAxiom axiom : EventBQuery.axioms(prj)
+					.notMentioning(Kind.CONSTANT).toList()) {
+				assertEquals("Axiom of message_ctx",
+						ChannelSetup.getMessageContextRoot(), axiom.getRoot());
+				labels.add(axiom.getLabel());
+			}
+			assertSameStrings("Axioms without constants", labels, "axm1",
+					"thm1");
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			labels.clear();
+			for (IInvariant invariant : EventBQuery.invariants(prj)
+					.mentioning(Kind.CONSTANT).toList()) {
+				assertEquals("Invariant of EO", EOMchRoot, invariant.getRoot());
+				labels.add(invariant.getLabel());
+			}
+			assertSameStrings("Invariants with constants", labels, "inv6",
+					"thm3");
+			assertEquals("Invariants of EO with variables",
+					EOMchRoot.getInvariants().length,
+					EventBQuery.invariants(prj).in(EOMchRoot)
+							.mentioning(Kind.VARIABLE).toList().size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBQuery#mentioning(Kind)} and
+	 * {@link EventBQuery#notMentioning(Kind)} on gluing invariants mentioning
+	 * abstract variables.
+	 */
+	@Test
+	public void testMentioningAbstractVariable() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+
+			// A variable of EO which disappears in EOIO.
+			EventBUtils.createVariable(EOMchRoot, "lost", null, nullMonitor);
+			EventBUtils.createInvariant(EOMchRoot, "inv7", "lost ⊆ channel",
+					false, null, nullMonitor);
+			IInvariant gluing = EventBUtils.createInvariant(EOIOMchRoot,
+					"inv9", "lost = ∅", false, null, nullMonitor);
+
+			assertTrue("Gluing invariant mentions a variable",
+					EventBQuery.invariants(prj).in(EOIOMchRoot)
+							.mentioning(Kind.VARIABLE).toList()
+							.contains(gluing));
+			assertFalse("Gluing invariant is not without variables",
+					EventBQuery.invariants(prj).in(EOIOMchRoot)
+							.notMentioning(Kind.VARIABLE).toList()
+							.contains(gluing));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBQuery#withIdentifier(String)} and
+	 * {@link EventBQuery#where(EventBQuery.Condition)}.
+	 */
+	@Test
+	public void testWithIdentifier() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+			EventBQuery<IVariable> query = EventBQuery.variables(prj)
+					.withIdentifier("s_count");
+			assertEquals("Scan", 3, query.toList().size());
+			assertEquals("Index", 3, query.indexed().toList().size());
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			List<IVariable> variables = query.where(
+					variable -> variable.getRoot().equals(EOMchRoot)).toList();
+			assertEquals("Variable of EO", 1, variables.size());
+			assertEquals("Variable of EO", EOMchRoot, variables.get(0)
+					.getRoot());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the element with a given label.
+	 */
+	private <T extends ILabeledElement> T getLabeled(T[] elements,
+			String label) throws CoreException {
+		for (T element : elements) {
+			if (element.getLabel().equals(label))
+				return element;
+		}
+		fail("Missing element " + label);
+		return null;
+	}
+
+}
@@ -15,17 +15,29 @@
 package ch.ethz.eventb.internal.utils.tests;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEventBRoot;
 import org.eventb.core.IMachineRoot;
 import org.eventb.core.ISCMachineRoot;
+import org.eventb.core.ast.FormulaFactory;
+import org.eventb.core.ast.ITypeEnvironment;
+import org.eventb.core.ast.Predicate;
+import org.eventb.core.ast.Type;
 import org.junit.Before;
 import org.junit.Test;
 import org.rodinp.core.RodinDBException;
 
 import ch.ethz.eventb.utils.EventBSCUtils;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.SCEventInfo;
+import ch.ethz.eventb.utils.SCMachineSummary;
+import ch.ethz.eventb.utils.SCStatus;
 import ch.ethz.eventb.utils.tests.AbstractEventBTests;
 import ch.ethz.eventb.utils.tests.ChannelSetup;
 
@@ -248,4 +260,403 @@ public class EventBSCUtilsTests extends AbstractEventBTests {
 			return;
 		}
 	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCTypeEnvironment(IMachineRoot)}.
+	 */
+	@Test
+	public void testGetSCTypeEnvironment() {
+		try {
+			Type intType = ff.makeIntegerType();
+			Type msgType = ff.makeGivenType("MESSAGE");
+
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			ITypeEnvironment typeEnv = EventBSCUtils
+					.getSCTypeEnvironment(channelMchRoot);
+			assertEquals("Machine channel: type of MESSAGE",
+					ff.makePowerSetType(msgType), typeEnv.getType("MESSAGE"));
+			assertEquals("Machine channel: type of s_count", intType,
+					typeEnv.getType("s_count"));
+			assertEquals("Machine channel: type of r_count", intType,
+					typeEnv.getType("r_count"));
+			assertSame("Machine channel: cached type environment", typeEnv,
+					EventBSCUtils.getSCTypeEnvironment(channelMchRoot));
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			typeEnv = EventBSCUtils.getSCTypeEnvironment(EOMchRoot);
+			assertEquals("Machine EO: type of max_size", intType,
+					typeEnv.getType("max_size"));
+			assertEquals("Machine EO: type of sents",
+					ff.makePowerSetType(ff.makeProductType(intType, msgType)),
+					typeEnv.getType("sents"));
+			assertEquals("Machine EO: type of channel",
+					ff.makePowerSetType(intType), typeEnv.getType("channel"));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCFormulaFactory(IMachineRoot)}.
+	 */
+	@Test
+	public void testGetSCFormulaFactory() {
+		try {
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+			FormulaFactory scFactory = EventBSCUtils
+					.getSCFormulaFactory(EOIOMchRoot);
+			assertSame("Machine EOIO: cached formula factory", scFactory,
+					EventBSCUtils.getSCFormulaFactory(EOIOMchRoot));
+			assertSame("Machine EOIO: factory of the type environment",
+					scFactory, EventBSCUtils.getSCTypeEnvironment(EOIOMchRoot)
+							.getFormulaFactory());
+			assertSame("Machine EOIO: factory of the events", scFactory,
+					EventBSCUtils.getSCEvents(EOIOMchRoot).get("sends")
+							.getTypeEnvironment().getFormulaFactory());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getVariableType(IMachineRoot, String)}.
+	 */
+	@Test
+	public void testGetVariableType() {
+		try {
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+			assertEquals("Machine EOIO: type of r_count",
+					ff.makeIntegerType(),
+					EventBSCUtils.getVariableType(EOIOMchRoot, "r_count"));
+			assertNull("Machine EOIO: max_size is not a variable",
+					EventBSCUtils.getVariableType(EOIOMchRoot, "max_size"));
+			assertNull("Machine EOIO: unknown identifier",
+					EventBSCUtils.getVariableType(EOIOMchRoot, "unknown"));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCSeenAxiomPredicates(IMachineRoot, boolean)}.
+	 */
+	@Test
+	public void testGetSCSeenAxiomPredicates() {
+		try {
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			Map<String, Predicate> scSeenAxms = EventBSCUtils
+					.getSCSeenAxiomPredicates(EOMchRoot, false);
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put("message_ctx/axm1", "finite(MESSAGE)");
+			expected.put("size_ctx/axm1", "max_size ∈ ℕ1");
+			assertSamePredicates("Test get seen axiom predicates EO",
+					expected, scSeenAxms);
+
+			scSeenAxms = EventBSCUtils.getSCSeenAxiomPredicates(EOMchRoot,
+					true);
+			expected = new HashMap<String, String>();
+			expected.put("message_ctx/thm1", "card(MESSAGE) ∈ ℕ1");
+			assertSamePredicates("Test get seen theorem predicates EO",
+					expected, scSeenAxms);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCInvariantPredicates(IMachineRoot, boolean)}.
+	 */
+	@Test
+	public void testGetSCInvariantPredicates() {
+		try {
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			Map<String, Predicate> scInvs = EventBSCUtils
+					.getSCInvariantPredicates(channelMchRoot, false);
+			String prefix = channelMchRoot.getSCMachineRoot().getElementName()
+					+ "/";
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put(prefix + "inv1", "s_count ∈ ℕ");
+			expected.put(prefix + "inv2", "r_count ∈ ℕ");
+			assertSamePredicates("Test get invariant predicates channel",
+					expected, scInvs);
+			for (Predicate scInv : scInvs.values()) {
+				assertTrue("Predicate " + scInv + " should be type-checked",
+						scInv.isTypeChecked());
+			}
+
+			scInvs = EventBSCUtils.getSCInvariantPredicates(channelMchRoot,
+					true);
+			assertTrue("Test get invariant theorems channel",
+					scInvs.isEmpty());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCSeenAxioms(ISCMachineRoot, boolean)} and
+	 * {@link EventBSCUtils#getSCInvariants(ISCMachineRoot, boolean)}.
+	 */
+	@Test
+	public void testSCOnlyPredicateStrings() {
+		try {
+			ISCMachineRoot scMchRoot = ChannelSetup.getEOIOMachineRoot()
+					.getSCMachineRoot();
+			Map<String, String> scSeenAxms = EventBSCUtils.getSCSeenAxioms(
+					scMchRoot, false);
+			assertEquals("Test SC only seen axioms EOIO", 2,
+					scSeenAxms.size());
+			assertEquals("Test SC only seen axioms EOIO",
+					ff.parsePredicate("finite(MESSAGE)", null)
+							.getParsedPredicate().toString(),
+					scSeenAxms.get("message_ctx/axm1"));
+
+			Map<String, String> scInvs = EventBSCUtils.getSCInvariants(
+					scMchRoot, true);
+			assertEquals("Test SC only invariant theorems EOIO", 5,
+					scInvs.size());
+			assertEquals("Test SC only invariant theorems EOIO",
+					ff.parsePredicate("r_count ∈ ℕ", null)
+							.getParsedPredicate().toString(),
+					scInvs.get(scMchRoot.getElementName() + "/thm1"));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBSCUtils#getSCEvents(IMachineRoot)}.
+	 */
+	@Test
+	public void testGetSCEvents() {
+		try {
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			Map<String, SCEventInfo> scEvents = EventBSCUtils
+					.getSCEvents(channelMchRoot);
+			assertSameStrings("Machine channel: SC events", scEvents.keySet(),
+					"INITIALISATION", "sends", "receives");
+			SCEventInfo sends = scEvents.get("sends");
+			assertEquals("Machine channel: parameter of sends",
+					ff.makeGivenType("MESSAGE"),
+					sends.getParameters().get("msg"));
+			assertSameStrings("Machine channel: guards of sends", sends
+					.getGuards().keySet(), "grd1");
+			assertSameStrings("Machine channel: actions of sends", sends
+					.getActions().keySet(), "act1");
+			assertTrue("Machine channel: action of sends is type-checked",
+					sends.getActions().get("act1").isTypeChecked());
+			assertSame("Machine channel: cached SC events", scEvents,
+					EventBSCUtils.getSCEvents(channelMchRoot));
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			SCEventInfo receives = EventBSCUtils.getSCEvents(EOMchRoot).get(
+					"receives");
+			assertEquals("Machine EO: parameter of receives",
+					ff.makeIntegerType(), receives.getParameters().get("idx"));
+			assertSameStrings("Machine EO: witnesses of receives", receives
+					.getWitnesses().keySet(), "msg");
+			assertSameStrings("Machine EO: actions of receives", receives
+					.getActions().keySet(), "act1", "act2", "act3");
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCMachineSummaries(org.eventb.core.IEventBProject, org.eclipse.core.runtime.IProgressMonitor)}
+	 * .
+	 */
+	@Test
+	public void testGetSCMachineSummaries() {
+		try {
+			Map<String, SCMachineSummary> summaries = EventBSCUtils
+					.getSCMachineSummaries(ChannelSetup.getChannelProject(),
+							nullMonitor);
+			assertSameStrings("Project Channel: SC machine summaries",
+					summaries.keySet(), "channel", "EO", "EOIO");
+
+			SCMachineSummary EOSummary = summaries.get("EO");
+			assertEquals("Machine EO: number of invariants", 9, EOSummary
+					.getInvariants().size());
+			assertEquals("Machine EO: number of seen axioms", 3, EOSummary
+					.getSeenAxioms().size());
+			assertSameStrings("Machine EO: events", EOSummary.getEvents()
+					.keySet(), "INITIALISATION", "sends", "receives");
+			assertTrue("Machine EO: extraction time",
+					EOSummary.getExtractionTime() >= 0);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBSCUtils#staticCheck(Collection)}.
+	 */
+	@Test
+	public void testStaticCheck() {
+		try {
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			EventBUtils.createInvariant(channelMchRoot, "inv3",
+					"r_count ≤ s_count", false, null, nullMonitor);
+			EventBSCUtils.staticCheck(Collections.singleton(channelMchRoot))
+					.get();
+
+			assertFalse("Machine channel should have been saved",
+					channelMchRoot.getRodinFile().hasUnsavedChanges());
+			Map<String, Predicate> scInvs = EventBSCUtils
+					.getSCInvariantPredicates(channelMchRoot, false);
+			assertEquals("Machine channel: invariants after static check", 3,
+					scInvs.size());
+		} catch (Exception e) {
+			failUnexpectedException(e);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCStatus(org.eventb.core.IEventBProject)}.
+	 */
+	@Test
+	public void testGetSCStatus() {
+		try {
+			Map<IEventBRoot, SCStatus> status = EventBSCUtils
+					.getSCStatus(ChannelSetup.getChannelProject());
+			assertEquals("Project Channel: number of components", 5,
+					status.size());
+			for (Map.Entry<IEventBRoot, SCStatus> entry : status.entrySet()) {
+				assertEquals("Status of " + entry.getKey(), SCStatus.CURRENT,
+						entry.getValue());
+			}
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			assertNotNull("Current checked version of EO",
+					EventBSCUtils.getCurrentSCMachineRoot(EOMchRoot));
+
+			// Make the machine channel and its checked version newer than the
+			// checked version of its refinement EO.
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			long EOStamp = EOMchRoot.getSCMachineRoot().getRodinFile()
+					.getResource().getLocalTimeStamp();
+			IResource scResource = channelMchRoot.getSCMachineRoot()
+					.getRodinFile().getResource();
+			scResource.setLocalTimeStamp(EOStamp + 20000);
+			channelMchRoot.getRodinFile().getResource()
+					.setLocalTimeStamp(EOStamp + 10000);
+			assertEquals("Status of channel", SCStatus.CURRENT,
+					EventBSCUtils.getSCStatus(channelMchRoot));
+			assertEquals("Status of EO: abstraction changed", SCStatus.STALE,
+					EventBSCUtils.getSCStatus(EOMchRoot));
+			assertEquals("Status of EOIO: indirect abstraction changed",
+					SCStatus.STALE, EventBSCUtils.getSCStatus(ChannelSetup
+							.getEOIOMachineRoot()));
+
+			// Make the machine channel newer than its checked version.
+			channelMchRoot
+					.getRodinFile()
+					.getResource()
+					.setLocalTimeStamp(scResource.getLocalTimeStamp() + 10000);
+			assertEquals("Status of channel", SCStatus.STALE,
+					EventBSCUtils.getSCStatus(channelMchRoot));
+
+			// Remove the checked version of the machine EOIO.
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+			EOIOMchRoot.getSCMachineRoot().getRodinFile()
+					.delete(true, nullMonitor);
+			assertEquals("Status of EOIO", SCStatus.MISSING,
+					EventBSCUtils.getSCStatus(EOIOMchRoot));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSCUtils#getSCInheritedInvariantPredicates(IMachineRoot, boolean)}
+	 * .
+	 */
+	@Test
+	public void testGetSCInheritedInvariantPredicates() {
+		try {
+			IMachineRoot channelMchRoot = ChannelSetup.getChannelMachineRoot();
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			IMachineRoot EOIOMchRoot = ChannelSetup.getEOIOMachineRoot();
+
+			Map<String, Predicate> invs = EventBSCUtils
+					.getSCInheritedInvariantPredicates(channelMchRoot, false);
+			assertEquals("Machine channel: inherited invariants", 2,
+					invs.size());
+
+			invs = EventBSCUtils.getSCInheritedInvariantPredicates(EOMchRoot,
+					false);
+			assertEquals("Machine EO: inherited invariants", 8, invs.size());
+			assertTrue("Machine EO: invariant inherited from channel",
+					invs.containsKey(channelMchRoot.getSCMachineRoot()
+							.getElementName() + "/inv1"));
+
+			invs = EventBSCUtils.getSCInheritedInvariantPredicates(
+					EOIOMchRoot, false);
+			assertEquals("Machine EOIO: inherited invariants", 9, invs.size());
+			invs = EventBSCUtils.getSCInheritedInvariantPredicates(
+					EOIOMchRoot, true);
+			assertEquals("Machine EOIO: inherited theorems", 8, invs.size());
+			assertSame("Machine EOIO: memoised inherited theorems", invs,
+					EventBSCUtils.getSCInheritedInvariantPredicates(
+							EOIOMchRoot, true));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Utility method to compare a map of predicates with a map of expected
+	 * predicate strings. The predicates are compared by their pretty-printed
+	 * form.
+	 * 
+	 * @param msg
+	 *            a message.
+	 * @param expected
+	 *            the expected map from labels to predicate strings.
+	 * @param actual
+	 *            the actual map from labels to predicates.
+	 */
+	private void assertSamePredicates(String msg,
+			Map<String, String> expected, Map<String, Predicate> actual) {
+		assertEquals(msg + ": Incorrect number of predicates",
+				expected.size(), actual.size());
+		for (String key : expected.keySet()) {
+			Predicate pred = actual.get(key);
+			assertNotNull(msg + ": Missing predicate " + key, pred);
+			assertEquals(msg + ": Incorrect predicate " + key, ff
+					.parsePredicate(expected.get(key), null)
+					.getParsedPredicate().toString(), pred.toString());
+		}
+	}
+
 }
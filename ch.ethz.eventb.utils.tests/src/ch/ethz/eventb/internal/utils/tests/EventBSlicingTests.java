@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IConvergenceElement.Convergence;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IVariable;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBSlicing;
+import ch.ethz.eventb.utils.EventBSlicing.Slice;
+import ch.ethz.eventb.utils.EventBSlicing.SlicedEvent;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the slicing of machines.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSlicing
+ * @since 0.3.0
+ */
+public class EventBSlicingTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSlicing#computeSlice(IMachineRoot, java.util.Collection)}.
+	 */
+	@Test
+	public void testComputeSlice() {
+		try {
+			// sents is written using s_count and guarded by channel, but
+			// does not depend on r_count nor receiveds.
+			Slice slice = EventBSlicing.computeSlice(
+					ChannelSetup.getEOMachineRoot(), Arrays.asList("sents"));
+			assertSameStrings("Variables", slice.getVariables(), "s_count",
+					"sents", "channel");
+			assertSameStrings("Invariants", getLabels(slice.getInvariants()),
+					"inv1", "thm1", "inv6");
+			assertSameStrings("Inherited invariants",
+					getLabels(slice.getInheritedInvariants()), "inv1");
+			assertEquals("Events", 3, slice.getEvents().size());
+			for (SlicedEvent event : slice.getEvents()) {
+				if (event.getLabel().equals(IEvent.INITIALISATION)) {
+					assertSameStrings("INITIALISATION: actions",
+							getLabels(event.getActions()), "act1", "act3",
+							"act5");
+				} else if (event.getLabel().equals("sends")) {
+					assertSameStrings("sends: parameters",
+							event.getParameters(), "msg");
+					assertSameStrings("sends: guards",
+							getLabels(event.getGuards()), "grd1", "grd2",
+							"thm1");
+					assertSameStrings("sends: actions",
+							getLabels(event.getActions()), "act1", "act2",
+							"act3");
+				} else {
+					assertEquals("Event", "receives", event.getLabel());
+					assertSameStrings("receives: parameters",
+							event.getParameters(), "idx");
+					assertSameStrings("receives: actions",
+							getLabels(event.getActions()), "act2");
+				}
+			}
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSlicing#createSlice(IMachineRoot, java.util.Collection, String, org.eclipse.core.runtime.IProgressMonitor)}
+	 * .
+	 */
+	@Test
+	public void testCreateSlice() {
+		try {
+			IMachineRoot slice = EventBSlicing.createSlice(
+					ChannelSetup.getEOMachineRoot(), Arrays.asList("sents"),
+					"EO_sents", nullMonitor);
+			assertTrue("Slice exists", slice.exists());
+			assertFalse("Slice saved", slice.getRodinFile()
+					.hasUnsavedChanges());
+			assertEquals("Seen contexts", 2, slice.getSeesClauses().length);
+			assertEquals("Refined machines", 0,
+					slice.getRefinesClauses().length);
+			List<String> variables = new ArrayList<String>();
+			for (IVariable variable : slice.getVariables()) {
+				variables.add(variable.getIdentifierString());
+			}
+			assertSameStrings("Variables", variables, "s_count", "sents",
+					"channel");
+			List<String> invariants = new ArrayList<String>();
+			for (IInvariant invariant : slice.getInvariants()) {
+				invariants.add(invariant.getLabel());
+			}
+			assertSameStrings("Invariants", invariants, "channel_inv1",
+					"inv1", "thm1", "inv6");
+			IEvent sends = EventBUtils.getEvent(slice, "sends");
+			assertFalse("sends: not extended", sends.isExtended());
+			assertEquals("sends: guards", 3, sends.getGuards().length);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSlicing#createSlice(IMachineRoot, java.util.Collection, String, org.eclipse.core.runtime.IProgressMonitor)}
+	 * on a refinement whose invariants mention abstract variables.
+	 */
+	@Test
+	public void testCreateSliceOfRefinement() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+
+			// The abstract machine, with variables a and b.
+			IMachineRoot abs = EventBUtils.createMachine(prj, "abs",
+					nullMonitor);
+			EventBUtils.createVariable(abs, "a", null, nullMonitor);
+			EventBUtils.createVariable(abs, "b", null, nullMonitor);
+			EventBUtils.createInvariant(abs, "inv1", "a ∈ ℕ", false, null,
+					nullMonitor);
+			EventBUtils.createInvariant(abs, "inv2", "b ∈ ℕ", false, null,
+					nullMonitor);
+			IEvent absInit = EventBUtils.createEvent(abs,
+					IEvent.INITIALISATION, Convergence.ORDINARY, false, null,
+					nullMonitor);
+			EventBUtils.createAction(absInit, "act1", "a ≔ 0", null,
+					nullMonitor);
+			EventBUtils.createAction(absInit, "act2", "b ≔ 0", null,
+					nullMonitor);
+			abs.getRodinFile().save(nullMonitor, false);
+
+			// The refinement, in which a disappears and c appears.
+			IMachineRoot conc = EventBUtils.createMachine(prj, "conc",
+					nullMonitor);
+			EventBUtils.createRefinesMachineClause(conc, "abs", null,
+					nullMonitor);
+			EventBUtils.createVariable(conc, "b", null, nullMonitor);
+			EventBUtils.createVariable(conc, "c", null, nullMonitor);
+			EventBUtils.createInvariant(conc, "inv1", "c ∈ ℕ", false, null,
+					nullMonitor);
+			EventBUtils.createInvariant(conc, "inv2", "a = b + c", false,
+					null, nullMonitor);
+			EventBUtils.createInvariant(conc, "inv3", "b ≤ a", false, null,
+					nullMonitor);
+			IEvent concInit = EventBUtils.createEvent(conc,
+					IEvent.INITIALISATION, Convergence.ORDINARY, false, null,
+					nullMonitor);
+			EventBUtils.createWitness(concInit, "a'", "a' = 0", null,
+					nullMonitor);
+			EventBUtils.createAction(concInit, "act2", "b ≔ 0", null,
+					nullMonitor);
+			EventBUtils.createAction(concInit, "act3", "c ≔ 0", null,
+					nullMonitor);
+			conc.getRodinFile().save(nullMonitor, false);
+
+			// The gluing invariants are not kept, the invariant of b is
+			// inherited.
+			Slice slice = EventBSlicing.computeSlice(conc, Arrays.asList("b"));
+			assertSameStrings("Variables", slice.getVariables(), "b");
+			assertTrue("Invariants", slice.getInvariants().isEmpty());
+			assertSameStrings("Inherited invariants",
+					getLabels(slice.getInheritedInvariants()), "inv2");
+
+			// The slice is statically checked without errors.
+			IMachineRoot sliceRoot = EventBSlicing.createSlice(conc,
+					Arrays.asList("b"), "conc_b", nullMonitor);
+			workspace.build(IncrementalProjectBuilder.FULL_BUILD, nullMonitor);
+			assertTrue("Slice: no error", sliceRoot.getRodinFile()
+					.getResource()
+					.findMaxProblemSeverity(IMarker.PROBLEM, true,
+							IResource.DEPTH_ZERO) < IMarker.SEVERITY_ERROR);
+			assertEquals("Slice: checked variables", 1, sliceRoot
+					.getSCMachineRoot().getSCVariables().length);
+			assertEquals("Slice: checked invariants", 1, sliceRoot
+					.getSCMachineRoot().getSCInvariants().length);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSlicing#createSlice(IMachineRoot, java.util.Collection, String, org.eclipse.core.runtime.IProgressMonitor)}
+	 * on a machine whose typing invariant mentions an irrelevant variable.
+	 */
+	@Test
+	public void testCreateSliceWithTypingInvariant() {
+		try {
+			IEventBProject prj = ChannelSetup.getChannelProject();
+
+			// The only typing of x also types y.
+			IMachineRoot mch = EventBUtils.createMachine(prj, "typing",
+					nullMonitor);
+			EventBUtils.createVariable(mch, "x", null, nullMonitor);
+			EventBUtils.createVariable(mch, "y", null, nullMonitor);
+			EventBUtils.createInvariant(mch, "inv1", "x ∈ ℕ ∧ y ∈ ℕ", false,
+					null, nullMonitor);
+			IEvent init = EventBUtils.createEvent(mch, IEvent.INITIALISATION,
+					Convergence.ORDINARY, false, null, nullMonitor);
+			EventBUtils.createAction(init, "act1", "x ≔ 0", null, nullMonitor);
+			EventBUtils.createAction(init, "act2", "y ≔ 0", null, nullMonitor);
+			mch.getRodinFile().save(nullMonitor, false);
+
+			// y becomes relevant to keep the typing of x.
+			Slice slice = EventBSlicing.computeSlice(mch, Arrays.asList("x"));
+			assertSameStrings("Variables", slice.getVariables(), "x", "y");
+			assertSameStrings("Invariants", getLabels(slice.getInvariants()),
+					"inv1");
+			assertSameStrings("INITIALISATION: actions", getLabels(slice
+					.getEvents().get(0).getActions()), "act1", "act2");
+
+			// The slice is statically checked without errors.
+			IMachineRoot sliceRoot = EventBSlicing.createSlice(mch,
+					Arrays.asList("x"), "typing_x", nullMonitor);
+			workspace.build(IncrementalProjectBuilder.FULL_BUILD, nullMonitor);
+			assertTrue("Slice: no error", sliceRoot.getRodinFile()
+					.getResource()
+					.findMaxProblemSeverity(IMarker.PROBLEM, true,
+							IResource.DEPTH_ZERO) < IMarker.SEVERITY_ERROR);
+			assertEquals("Slice: checked variables", 2, sliceRoot
+					.getSCMachineRoot().getSCVariables().length);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/*
+	 * Utility method to get the labels of clauses.
+	 */
+	private List<String> getLabels(List<Clause> clauses) {
+		List<String> result = new ArrayList<String>();
+		for (Clause clause : clauses) {
+			result.add(clause.getLabel());
+		}
+		return result;
+	}
+
+}
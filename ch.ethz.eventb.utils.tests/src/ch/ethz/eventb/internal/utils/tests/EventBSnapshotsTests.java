@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IConvergenceElement.Convergence;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBSnapshots;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBSnapshots.Context;
+import ch.ethz.eventb.utils.EventBSnapshots.Event;
+import ch.ethz.eventb.utils.EventBSnapshots.Machine;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the machine and context snapshots.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSnapshots
+ * @since 0.3.0
+ */
+public class EventBSnapshotsTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBSnapshots#getContextSnapshot(IContextRoot)}.
+	 */
+	@Test
+	public void testGetContextSnapshot() {
+		try {
+			Context ctx = EventBSnapshots.getContextSnapshot(ChannelSetup
+					.getMessageContextRoot());
+			assertEquals("Name", "message_ctx", ctx.getName());
+			assertTrue("No extended contexts", ctx.getExtendedContexts()
+					.isEmpty());
+			assertSameStrings("Carrier sets", ctx.getCarrierSets(), "MESSAGE");
+			assertTrue("No constants", ctx.getConstants().isEmpty());
+			assertEquals("Number of axioms", 2, ctx.getAxioms().size());
+			Clause thm1 = ctx.getAxioms().get(1);
+			assertEquals("thm1: label", "thm1", thm1.getLabel());
+			assertEquals("thm1: predicate", "card(MESSAGE) ∈ ℕ1",
+					thm1.getFormula());
+			assertTrue("thm1 is a theorem", thm1.isTheorem());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBSnapshots#getMachineSnapshot(IMachineRoot)}.
+	 */
+	@Test
+	public void testGetMachineSnapshot() {
+		try {
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			Machine mch = EventBSnapshots.getMachineSnapshot(EOMchRoot);
+			assertEquals("Name", "EO", mch.getName());
+			assertSameStrings("Refined machines", mch.getRefinedMachines(),
+					"channel");
+			assertSameStrings("Seen contexts", mch.getSeenContexts(),
+					"message_ctx", "size_ctx");
+			assertSameStrings("Variables", mch.getVariables(), "s_count",
+					"r_count", "sents", "receiveds", "channel");
+			assertEquals("Number of invariants", 9, mch.getInvariants().size());
+			assertEquals("Number of events", 3, mch.getEvents().size());
+
+			Event receives = mch.getEvent("receives");
+			assertNotNull("Event receives", receives);
+			assertFalse("receives is not extended", receives.isExtended());
+			assertEquals("receives: convergence", Convergence.ORDINARY,
+					receives.getConvergence());
+			assertSameStrings("receives: refined events",
+					receives.getRefinedEvents(), "receives");
+			assertSameStrings("receives: parameters",
+					receives.getParameters(), "idx");
+			assertEquals("receives: number of guards", 1, receives.getGuards()
+					.size());
+			assertEquals("receives: witness", "msg = sents(idx)", receives
+					.getWitnesses().get(0).getFormula());
+			assertEquals("receives: act3", "receiveds(r_count + 1) ≔ idx",
+					receives.getActions().get(2).getFormula());
+
+			// The snapshot is cached until the machine changes.
+			assertSame("Cached snapshot", mch,
+					EventBSnapshots.getMachineSnapshot(EOMchRoot));
+			EventBUtils.createVariable(EOMchRoot, "extra", null, nullMonitor);
+			EOMchRoot.getRodinFile().save(nullMonitor, false);
+			Machine newMch = EventBSnapshots.getMachineSnapshot(EOMchRoot);
+			assertEquals("New snapshot: number of variables", 6, newMch
+					.getVariables().size());
+			assertEquals("Old snapshot: number of variables", 5, mch
+					.getVariables().size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
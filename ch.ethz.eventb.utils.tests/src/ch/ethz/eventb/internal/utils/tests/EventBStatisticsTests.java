@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.Collections;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEvent;
+import org.eventb.core.IMachineRoot;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBStatistics;
+import ch.ethz.eventb.utils.EventBStatistics.ComponentStatistics;
+import ch.ethz.eventb.utils.EventBStatistics.Histogram;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the statistics of Event-B projects.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBStatistics
+ * @since 0.3.0
+ */
+public class EventBStatisticsTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBStatistics#compute(java.util.Collection, org.eclipse.core.runtime.IProgressMonitor)}
+	 * .
+	 */
+	@Test
+	public void testCompute() {
+		try {
+			EventBStatistics statistics = EventBStatistics.compute(
+					Collections.singletonList(ChannelSetup
+							.getChannelProject()), nullMonitor);
+			assertEquals("Components", 5, statistics.getComponents().size());
+
+			IMachineRoot EOMchRoot = ChannelSetup.getEOMachineRoot();
+			int events = 0;
+			for (ComponentStatistics component : statistics.getComponents()) {
+				if (!component.isMachine()) {
+					assertEquals("Context: no event", 0,
+							component.getEvents());
+					continue;
+				}
+				events += component.getEvents();
+				if (!component.getRoot().equals(EOMchRoot))
+					continue;
+				assertEquals("Machine EO: variables",
+						EOMchRoot.getVariables().length,
+						component.getVariables());
+				assertEquals("Machine EO: invariants",
+						EOMchRoot.getInvariants().length,
+						component.getInvariants());
+				assertEquals("Machine EO: events",
+						EOMchRoot.getEvents().length, component.getEvents());
+				int guards = 0;
+				for (IEvent event : EOMchRoot.getEvents()) {
+					guards += event.getGuards().length;
+				}
+				assertEquals("Machine EO: guards", guards,
+						component.getGuards());
+				assertEquals("Machine EO: guards per event", guards,
+						component.getGuardsPerEvent().getSum());
+			}
+
+			// Histograms.
+			Histogram eventsPerMachine = statistics.getEventsPerMachine();
+			assertEquals("Events per machine: machines", 3,
+					eventsPerMachine.getTotal());
+			assertEquals("Events per machine: events", events,
+					eventsPerMachine.getSum());
+			Histogram guardsPerEvent = statistics.getGuardsPerEvent();
+			assertEquals("Guards per event: events", events,
+					guardsPerEvent.getTotal());
+			long count = 0;
+			for (int i = 0; i < guardsPerEvent.getBucketCount(); i++) {
+				count += guardsPerEvent.getCount(i);
+			}
+			assertEquals("Guards per event: buckets", events, count);
+			assertTrue("Formula lengths", statistics.getFormulaLengths()
+					.getMax() > 0);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for {@link EventBStatistics#toCSV()} and
+	 * {@link EventBStatistics#toJSON()}.
+	 */
+	@Test
+	public void testOutput() {
+		try {
+			EventBStatistics statistics = EventBStatistics.compute(
+					Collections.singletonList(ChannelSetup
+							.getChannelProject()), nullMonitor);
+			String[] lines = statistics.toCSV().split("\n");
+			assertEquals("CSV: lines", 6, lines.length);
+			assertTrue("CSV: header",
+					lines[0].startsWith("project,component,kind,"));
+			assertEquals("CSV: columns", lines[0].split(",").length,
+					lines[1].split(",").length);
+
+			String json = statistics.toJSON();
+			assertTrue("JSON: components",
+					json.startsWith("{\"components\":[{\"project\":"));
+			assertTrue("JSON: histograms",
+					json.contains("\"guardsPerEvent\":{\"total\":"));
+			assertTrue("JSON: end", json.endsWith("]}}}"));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+
+package ch.ethz.eventb.internal.utils.tests;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBRoot;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.ethz.eventb.utils.EventBSymbolTable;
+import ch.ethz.eventb.utils.EventBSymbolTable.Kind;
+import ch.ethz.eventb.utils.EventBSymbolTable.Symbol;
+import ch.ethz.eventb.utils.EventBUtils;
+import ch.ethz.eventb.utils.tests.AbstractEventBTests;
+import ch.ethz.eventb.utils.tests.ChannelSetup;
+
+/**
+ * <p>
+ * Tests for the project symbol table.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSymbolTable
+ * @since 0.3.0
+ */
+public class EventBSymbolTableTests extends AbstractEventBTests {
+
+	/**
+	 * <ol>
+	 * <li>Setup the <code>Channel</code> project.</li>
+	 * </ol>
+	 *
+	 * @see AbstractEventBTests#setUp()
+	 */
+	@Before
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		ChannelSetup.setup();
+	}
+
+	/**
+	 * Test method for {@link EventBSymbolTable#getDeclarations(String)}.
+	 */
+	@Test
+	public void testGetDeclarations() {
+		try {
+			EventBSymbolTable table = EventBSymbolTable
+					.getSymbolTable(ChannelSetup.getChannelProject());
+
+			List<Symbol> symbols = table.getDeclarations("MESSAGE");
+			assertEquals("MESSAGE: number of declarations", 1, symbols.size());
+			assertEquals("MESSAGE: kind", Kind.CARRIER_SET, symbols.get(0)
+					.getKind());
+			assertEquals("MESSAGE: declaring component",
+					ChannelSetup.getMessageContextRoot(), symbols.get(0)
+							.getComponent());
+
+			symbols = table.getDeclarations("max_size");
+			assertEquals("max_size: number of declarations", 1,
+					symbols.size());
+			assertEquals("max_size: kind", Kind.CONSTANT, symbols.get(0)
+					.getKind());
+
+			symbols = table.getDeclarations("s_count");
+			assertEquals("s_count: number of declarations", 3, symbols.size());
+			for (Symbol symbol : symbols) {
+				assertEquals("s_count: kind", Kind.VARIABLE, symbol.getKind());
+			}
+
+			symbols = table.getDeclarations("sents");
+			assertEquals("sents: number of declarations", 2, symbols.size());
+			for (Symbol symbol : symbols) {
+				assertTrue("sents: declaring component", symbol.getComponent()
+						.equals(ChannelSetup.getEOMachineRoot())
+						|| symbol.getComponent().equals(
+								ChannelSetup.getEOIOMachineRoot()));
+			}
+
+			for (Symbol symbol : table.getDeclarations("msg")) {
+				assertEquals("msg: kind", Kind.PARAMETER, symbol.getKind());
+			}
+			assertTrue("foo: no declarations", table.getDeclarations("foo")
+					.isEmpty());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link EventBSymbolTable#getVisibleComponents(String)} and
+	 * {@link EventBSymbolTable#getRefinementLevels(String)}.
+	 */
+	@Test
+	public void testGetVisibility() {
+		try {
+			EventBSymbolTable table = EventBSymbolTable
+					.getSymbolTable(ChannelSetup.getChannelProject());
+
+			Set<IEventBRoot> components = table.getVisibleComponents("max_size");
+			assertEquals("max_size: number of visible components", 3,
+					components.size());
+			assertTrue("max_size is visible in size_ctx",
+					components.contains(ChannelSetup.getSizeContextRoot()));
+			assertTrue("max_size is visible in EO",
+					components.contains(ChannelSetup.getEOMachineRoot()));
+			assertTrue("max_size is visible in EOIO",
+					components.contains(ChannelSetup.getEOIOMachineRoot()));
+			assertEquals("max_size: refinement levels", Arrays.asList(1, 2),
+					Arrays.asList(table.getRefinementLevels("max_size")
+							.toArray()));
+
+			assertEquals("MESSAGE: refinement levels", Arrays.asList(0, 1, 2),
+					Arrays.asList(table.getRefinementLevels("MESSAGE")
+							.toArray()));
+			assertEquals("sents: refinement levels", Arrays.asList(1, 2),
+					Arrays.asList(table.getRefinementLevels("sents")
+							.toArray()));
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+	/**
+	 * Test that the symbol table follows the changes of the components.
+	 */
+	@Test
+	public void testIncrementalUpdate() {
+		try {
+			EventBSymbolTable table = EventBSymbolTable
+					.getSymbolTable(ChannelSetup.getChannelProject());
+			assertTrue("min_size: no declarations", table.getDeclarations(
+					"min_size").isEmpty());
+
+			IContextRoot sizeCtx = ChannelSetup.getSizeContextRoot();
+			EventBUtils.createConstant(sizeCtx, "min_size", null, nullMonitor);
+			sizeCtx.getRodinFile().save(nullMonitor, false);
+			List<Symbol> symbols = table.getDeclarations("min_size");
+			assertEquals("min_size: number of declarations", 1,
+					symbols.size());
+			assertEquals("min_size: declaring component", sizeCtx, symbols
+					.get(0).getComponent());
+
+			ChannelSetup.getEOIOMachineRoot().getRodinFile()
+					.delete(true, nullMonitor);
+			assertEquals("s_count: number of declarations", 2, table
+					.getDeclarations("s_count").size());
+		} catch (CoreException e) {
+			e.printStackTrace();
+			fail("There should be no exception");
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+
+/**
+ * <p>
+ * The activator of the plug-in, which releases the caches and the listeners
+ * to the Rodin database when the plug-in is stopped.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class Activator implements BundleActivator {
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see BundleActivator#start(BundleContext)
+	 */
+	@Override
+	public void start(BundleContext context) throws Exception {
+		// Do nothing: the caches and listeners are installed at first use.
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see BundleActivator#stop(BundleContext)
+	 */
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		ProjectRegistry.disposeAll();
+		ComponentCache.dispose();
+	}
+
+}
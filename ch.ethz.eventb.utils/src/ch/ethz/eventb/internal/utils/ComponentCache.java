@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.rodinp.core.ElementChangedEvent;
+import org.rodinp.core.IElementChangedListener;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinElementDelta;
+import org.rodinp.core.IRodinFile;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinCore;
+
+/**
+ * <p>
+ * A cache of values computed from the content of Rodin files. Values are
+ * attached to a Rodin file and are discarded as soon as the modification stamp
+ * of the underlying resource changes. Files with unsaved changes are never
+ * cached.
+ * </p>
+ * <p>
+ * The entries of the files which are changed or removed, and of the projects
+ * which are closed or removed, are evicted from the Rodin deltas, hence the
+ * cache only holds values for the files which are in use.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class ComponentCache {
+
+	/**
+	 * <p>
+	 * A typed key to values stored in the cache.
+	 * </p>
+	 *
+	 * @param <V>
+	 *            the type of the values associated with this key.
+	 */
+	public static final class Key<V> {
+
+		// The name of the key, for debugging purpose only.
+		private final String name;
+
+		/**
+		 * Creates a new key with the given name.
+		 *
+		 * @param name
+		 *            the name of the key.
+		 */
+		public Key(String name) {
+			this.name = name;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return name;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Computes a value to be stored in the cache.
+	 * </p>
+	 *
+	 * @param <V>
+	 *            the type of the computed value.
+	 */
+	public interface Loader<V> {
+
+		/**
+		 * Computes the value. The returned value must not be <code>null</code>.
+		 *
+		 * @return the computed value.
+		 * @throws CoreException
+		 *             if a problem occurs while accessing the database.
+		 */
+		V load() throws CoreException;
+
+	}
+
+	/*
+	 * The values attached to a Rodin file for a given modification stamp.
+	 */
+	private static final class Entry {
+
+		private final long stamp;
+
+		private final Map<Key<?>, Object> values = new ConcurrentHashMap<Key<?>, Object>();
+
+		private Entry(long stamp) {
+			this.stamp = stamp;
+		}
+
+	}
+
+	/*
+	 * The listener evicting the entries of the files which are changed or
+	 * removed, and of the projects which are closed or removed.
+	 */
+	private static final class EvictionListener implements
+			IElementChangedListener {
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			visit(event.getDelta());
+		}
+
+		private void visit(IRodinElementDelta delta) {
+			IRodinElement element = delta.getElement();
+			if (element instanceof IRodinProject) {
+				if (delta.getKind() == IRodinElementDelta.REMOVED
+						|| (delta.getFlags() & IRodinElementDelta.F_CLOSED) != 0) {
+					invalidate((IRodinProject) element);
+					return;
+				}
+			} else if (element instanceof IRodinFile) {
+				invalidate((IRodinFile) element);
+				return;
+			}
+			for (IRodinElementDelta child : delta.getAffectedChildren()) {
+				visit(child);
+			}
+		}
+
+	}
+
+	// The cache entries, one for each Rodin file.
+	private static final Map<IRodinFile, Entry> entries = new ConcurrentHashMap<IRodinFile, Entry>();
+
+	// The listener evicting the entries, installed at first use.
+	private static volatile EvictionListener listener;
+
+	private ComponentCache() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Returns the value associated with the given key for the Rodin file of
+	 * the given root element. The value is computed with the given loader if
+	 * it is not cached yet, or if the file has changed since it was cached.
+	 * The computed value is not cached if the file changes while it is
+	 * computed.
+	 *
+	 * @param root
+	 *            a root element.
+	 * @param key
+	 *            the key of the value.
+	 * @param loader
+	 *            the loader to compute the value if needed.
+	 * @return the value associated with the given key.
+	 * @throws CoreException
+	 *             if a problem occurs while computing the value.
+	 */
+	public static <V> V get(IInternalElement root, Key<V> key,
+			Loader<V> loader) throws CoreException {
+		IRodinFile file = root.getRodinFile();
+		if (file.hasUnsavedChanges())
+			return loader.load();
+
+		Entry entry = getEntry(file);
+		Object value = entry.values.get(key);
+		if (value == null) {
+			value = loader.load();
+			if (isCurrent(file, entry)) {
+				Object previous = entry.values.putIfAbsent(key, value);
+				if (previous != null)
+					value = previous;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		V result = (V) value;
+		return result;
+	}
+
+	/**
+	 * Recomputes the value associated with the given key for the Rodin file
+	 * of the given root element with the given loader, replacing any previous
+	 * value. The value is discarded as soon as the file changes. The value is
+	 * not cached if the file has unsaved changes or if it changes while the
+	 * value is computed.
+	 *
+	 * @param root
+	 *            a root element.
+	 * @param key
+	 *            the key of the value.
+	 * @param loader
+	 *            the loader to compute the value.
+	 * @return the computed value.
+	 * @throws CoreException
+	 *             if a problem occurs while computing the value.
+	 */
+	public static <V> V reload(IInternalElement root, Key<V> key,
+			Loader<V> loader) throws CoreException {
+		IRodinFile file = root.getRodinFile();
+		if (file.hasUnsavedChanges())
+			return loader.load();
+
+		Entry entry = getEntry(file);
+		V value = loader.load();
+		if (isCurrent(file, entry))
+			entry.values.put(key, value);
+		return value;
+	}
+
+	/*
+	 * Returns the entry of the given file for its current modification stamp,
+	 * replacing any outdated entry.
+	 */
+	private static Entry getEntry(IRodinFile file) {
+		if (listener == null)
+			install();
+		long stamp = getStamp(file);
+		Entry entry = entries.get(file);
+		if (entry == null || entry.stamp != stamp) {
+			entry = new Entry(stamp);
+			entries.put(file, entry);
+		}
+		return entry;
+	}
+
+	/*
+	 * Tells whether the given entry is still the entry of the given file, i.e.
+	 * whether the file has not changed since the entry was created.
+	 */
+	private static boolean isCurrent(IRodinFile file, Entry entry) {
+		return getStamp(file) == entry.stamp && !file.hasUnsavedChanges()
+				&& entries.get(file) == entry;
+	}
+
+	/*
+	 * Installs the listener evicting the entries.
+	 */
+	private static synchronized void install() {
+		if (listener == null) {
+			listener = new EvictionListener();
+			RodinCore.addElementChangedListener(listener);
+		}
+	}
+
+	/**
+	 * Returns the modification stamp of the resource underlying a Rodin file.
+	 *
+	 * @param file
+	 *            a Rodin file.
+	 * @return the modification stamp of the file, or
+	 *         {@link IResource#NULL_STAMP} if the file does not exist.
+	 */
+	public static long getStamp(IRodinFile file) {
+		return file.getResource().getModificationStamp();
+	}
+
+	/**
+	 * Discards all values attached to the given Rodin file.
+	 *
+	 * @param file
+	 *            a Rodin file.
+	 */
+	public static void invalidate(IRodinFile file) {
+		entries.remove(file);
+	}
+
+	/**
+	 * Discards all values attached to the Rodin files of the given project.
+	 *
+	 * @param project
+	 *            a Rodin project.
+	 */
+	public static void invalidate(IRodinProject project) {
+		Iterator<IRodinFile> iterator = entries.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (project.equals(iterator.next().getRodinProject()))
+				iterator.remove();
+		}
+	}
+
+	/**
+	 * Discards all cached values.
+	 */
+	public static void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Discards all cached values and stops listening to the Rodin database.
+	 * The listener is installed again at next use.
+	 */
+	public static synchronized void dispose() {
+		if (listener != null) {
+			RodinCore.removeElementChangedListener(listener);
+			listener = null;
+		}
+		entries.clear();
+	}
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.rodinp.core.ElementChangedEvent;
+import org.rodinp.core.IElementChangedListener;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinElementDelta;
+import org.rodinp.core.IRodinFile;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinCore;
+
+/**
+ * <p>
+ * An element changed listener which reduces Rodin deltas to notifications
+ * about changed or removed components (machines and contexts) and removed
+ * projects. Closed projects are reported as removed.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public abstract class ComponentDeltaListener implements
+		IElementChangedListener {
+
+	/**
+	 * Registers this listener with the Rodin database.
+	 */
+	public void install() {
+		RodinCore.addElementChangedListener(this);
+	}
+
+	/**
+	 * Unregisters this listener from the Rodin database.
+	 */
+	public void uninstall() {
+		RodinCore.removeElementChangedListener(this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see IElementChangedListener#elementChanged(ElementChangedEvent)
+	 */
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		visit(event.getDelta());
+	}
+
+	/*
+	 * Visits a delta down to the level of Rodin files.
+	 */
+	private void visit(IRodinElementDelta delta) {
+		IRodinElement element = delta.getElement();
+		if (element instanceof IRodinProject) {
+			if (delta.getKind() == IRodinElementDelta.REMOVED
+					|| (delta.getFlags() & IRodinElementDelta.F_CLOSED) != 0) {
+				projectRemoved((IRodinProject) element);
+				return;
+			}
+		} else if (element instanceof IRodinFile) {
+			IInternalElement root = ((IRodinFile) element).getRoot();
+			if (root instanceof IMachineRoot || root instanceof IContextRoot) {
+				if (delta.getKind() == IRodinElementDelta.REMOVED)
+					componentRemoved((IEventBRoot) root);
+				else
+					componentChanged((IEventBRoot) root);
+			}
+			return;
+		}
+		for (IRodinElementDelta child : delta.getAffectedChildren()) {
+			visit(child);
+		}
+	}
+
+	/**
+	 * Called when a component has been added or changed.
+	 *
+	 * @param root
+	 *            the root of the component (machine or context).
+	 */
+	protected abstract void componentChanged(IEventBRoot root);
+
+	/**
+	 * Called when a component has been removed.
+	 *
+	 * @param root
+	 *            the root of the component (machine or context).
+	 */
+	protected abstract void componentRemoved(IEventBRoot root);
+
+	/**
+	 * Called when a project has been removed or closed.
+	 *
+	 * @param project
+	 *            the Rodin project.
+	 */
+	protected abstract void projectRemoved(IRodinProject project);
+
+}
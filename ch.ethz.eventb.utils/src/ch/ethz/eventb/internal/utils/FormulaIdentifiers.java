@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.Set;
+
+import org.eventb.core.IAssignmentElement;
+import org.eventb.core.IExpressionElement;
+import org.eventb.core.IPredicateElement;
+import org.eventb.core.ast.Formula;
+import org.eventb.core.ast.FormulaFactory;
+import org.eventb.core.ast.FreeIdentifier;
+import org.eventb.core.ast.IParseResult;
+import org.rodinp.core.RodinDBException;
+
+/**
+ * <p>
+ * Utility for collecting the identifiers mentioned in the (unchecked) formulas
+ * of elements. Primed identifiers are reported without their prime.
+ * Formulas which do not parse are ignored.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class FormulaIdentifiers {
+
+	private FormulaIdentifiers() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Adds the identifiers mentioned in the predicate of an element.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param element
+	 *            a predicate element.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static void addPredicate(FormulaFactory ff,
+			IPredicateElement element, Set<String> result)
+			throws RodinDBException {
+		if (element.hasPredicateString())
+			addPredicate(ff, element.getPredicateString(), result);
+	}
+
+	/**
+	 * Adds the identifiers mentioned in a predicate.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param predicate
+	 *            the string of a predicate.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 */
+	public static void addPredicate(FormulaFactory ff, String predicate,
+			Set<String> result) {
+		IParseResult parseResult = ff.parsePredicate(predicate, null);
+		if (!parseResult.hasProblem())
+			addIdentifiers(parseResult.getParsedPredicate(), result);
+	}
+
+	/**
+	 * Adds the identifiers mentioned in the expression of an element.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param element
+	 *            an expression element.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static void addExpression(FormulaFactory ff,
+			IExpressionElement element, Set<String> result)
+			throws RodinDBException {
+		if (element.hasExpressionString())
+			addExpression(ff, element.getExpressionString(), result);
+	}
+
+	/**
+	 * Adds the identifiers mentioned in an expression.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param expression
+	 *            the string of an expression.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 */
+	public static void addExpression(FormulaFactory ff, String expression,
+			Set<String> result) {
+		IParseResult parseResult = ff.parseExpression(expression, null);
+		if (!parseResult.hasProblem())
+			addIdentifiers(parseResult.getParsedExpression(), result);
+	}
+
+	/**
+	 * Adds the identifiers mentioned in the assignment of an element.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param element
+	 *            an assignment element.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static void addAssignment(FormulaFactory ff,
+			IAssignmentElement element, Set<String> result)
+			throws RodinDBException {
+		if (element.hasAssignmentString())
+			addAssignment(ff, element.getAssignmentString(), result);
+	}
+
+	/**
+	 * Adds the identifiers mentioned in an assignment, including the
+	 * assigned ones.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param assignment
+	 *            the string of an assignment.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 */
+	public static void addAssignment(FormulaFactory ff, String assignment,
+			Set<String> result) {
+		IParseResult parseResult = ff.parseAssignment(assignment, null);
+		if (!parseResult.hasProblem())
+			addIdentifiers(parseResult.getParsedAssignment(), result);
+	}
+
+	/**
+	 * Adds the identifiers assigned by an assignment.
+	 *
+	 * @param ff
+	 *            the formula factory to parse with.
+	 * @param assignment
+	 *            the string of an assignment.
+	 * @param result
+	 *            the set to add the identifiers to.
+	 */
+	public static void addAssignedIdentifiers(FormulaFactory ff,
+			String assignment, Set<String> result) {
+		IParseResult parseResult = ff.parseAssignment(assignment, null);
+		if (parseResult.hasProblem())
+			return;
+		for (FreeIdentifier ident : parseResult.getParsedAssignment()
+				.getAssignedIdentifiers()) {
+			result.add(getUnprimedName(ident));
+		}
+	}
+
+	/*
+	 * Utility method to add the syntactically free identifiers of a parsed
+	 * formula, without their prime.
+	 */
+	private static void addIdentifiers(Formula<?> formula, Set<String> result) {
+		for (FreeIdentifier ident : formula.getSyntacticallyFreeIdentifiers()) {
+			result.add(getUnprimedName(ident));
+		}
+	}
+
+	/**
+	 * Returns the name of an identifier without its prime, if any.
+	 *
+	 * @param ident
+	 *            a free identifier.
+	 * @return the unprimed name of the identifier.
+	 */
+	public static String getUnprimedName(FreeIdentifier ident) {
+		String name = ident.getName();
+		if (ident.isPrimed())
+			return name.substring(0, name.length() - 1);
+		return name;
+	}
+
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eventb.core.EventBAttributes;
+import org.rodinp.core.IAttributeType;
+import org.rodinp.core.IAttributeValue;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.RodinDBException;
+
+/**
+ * <p>
+ * An immutable copy of an element tree where every element carries a content
+ * hash of its kind and attributes, and a hash of its whole subtree. Two
+ * subtrees with the same subtree hash are considered equal without being
+ * compared further.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class HashedElement {
+
+	// Seed and prime of the 64-bit FNV-1a hash.
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	// The element handle.
+	private final IInternalElement element;
+
+	// The key identifying the element among its siblings of the same type.
+	private final String key;
+
+	// The hash of the type and attributes of the element.
+	private final long contentHash;
+
+	// The hash of the content of the element and of its descendants.
+	private final long subtreeHash;
+
+	// The children of the element.
+	private final List<HashedElement> children;
+
+	/**
+	 * Constructor: Create a hashed element.
+	 */
+	private HashedElement(IInternalElement element, String key,
+			long contentHash, List<HashedElement> children) {
+		this.element = element;
+		this.key = key;
+		this.contentHash = contentHash;
+		this.children = Collections.unmodifiableList(children);
+		long hash = contentHash;
+		for (HashedElement child : children) {
+			hash = combine(hash, child.subtreeHash);
+		}
+		this.subtreeHash = hash;
+	}
+
+	/**
+	 * Reads an element and its descendants, fetching the attributes of each
+	 * element at once.
+	 *
+	 * @param element
+	 *            an existing element.
+	 * @return the hashed tree of the element.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static HashedElement build(IInternalElement element)
+			throws RodinDBException {
+		IAttributeValue[] values = element.getAttributeValues();
+		String key = element.getElementName();
+		// Attributes are combined in an order-independent way.
+		long attributesHash = 0;
+		for (IAttributeValue value : values) {
+			IAttributeType type = value.getType();
+			String string = toString(value.getValue());
+			if (type == EventBAttributes.LABEL_ATTRIBUTE
+					|| type == EventBAttributes.IDENTIFIER_ATTRIBUTE
+					|| type == EventBAttributes.TARGET_ATTRIBUTE)
+				key = string;
+			attributesHash += mix(combine(hash(type.getId()), hash(string)));
+		}
+		long contentHash = combine(hash(element.getElementType().getId()),
+				attributesHash);
+		IRodinElement[] rodinChildren = element.getChildren();
+		List<HashedElement> children = new ArrayList<HashedElement>(
+				rodinChildren.length);
+		for (IRodinElement child : rodinChildren) {
+			children.add(build((IInternalElement) child));
+		}
+		return new HashedElement(element, key, contentHash, children);
+	}
+
+	/**
+	 * Returns the handle of the element.
+	 *
+	 * @return the handle of the element.
+	 */
+	public IInternalElement getElement() {
+		return element;
+	}
+
+	/**
+	 * Returns the key of the element: its label, identifier or target if
+	 * any, its element name otherwise. Siblings of the same type and key are
+	 * considered to be versions of each other.
+	 *
+	 * @return the key of the element.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Returns the hash of the type and attributes of the element.
+	 *
+	 * @return the content hash.
+	 */
+	public long getContentHash() {
+		return contentHash;
+	}
+
+	/**
+	 * Returns the hash of the content of the element and of its descendants,
+	 * in order.
+	 *
+	 * @return the subtree hash.
+	 */
+	public long getSubtreeHash() {
+		return subtreeHash;
+	}
+
+	/**
+	 * Returns the children of the element.
+	 *
+	 * @return the children.
+	 */
+	public List<HashedElement> getChildren() {
+		return children;
+	}
+
+	/*
+	 * Utility method to convert an attribute value to a string.
+	 */
+	private static String toString(Object value) {
+		if (value instanceof IRodinElement)
+			return ((IRodinElement) value).getHandleIdentifier();
+		return String.valueOf(value);
+	}
+
+	/*
+	 * Returns the 64-bit FNV-1a hash of a string.
+	 */
+	private static long hash(String string) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < string.length(); i++) {
+			hash ^= string.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/*
+	 * Combines two hashes in an order-dependent way.
+	 */
+	private static long combine(long hash, long value) {
+		return mix(hash * 31 + value);
+	}
+
+	/*
+	 * Scrambles the bits of a hash (finaliser of MurmurHash3).
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
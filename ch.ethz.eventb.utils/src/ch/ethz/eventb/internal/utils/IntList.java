@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A growable list of primitive integers, avoiding the boxing of
+ * <code>java.util.List&lt;Integer&gt;</code>.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class IntList {
+
+	// The values, only the first size values are meaningful.
+	private int[] values;
+
+	// The number of values.
+	private int size;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public IntList() {
+		this(4);
+	}
+
+	/**
+	 * Creates an empty list with the given initial capacity.
+	 *
+	 * @param capacity
+	 *            the initial capacity.
+	 */
+	public IntList(int capacity) {
+		values = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Appends a value.
+	 *
+	 * @param value
+	 *            a value.
+	 */
+	public void add(int value) {
+		if (size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+
+	/**
+	 * Returns the value at the given index.
+	 *
+	 * @param index
+	 *            an index between 0 and {@link #size()} (excluded).
+	 * @return the value at the given index.
+	 */
+	public int get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		return values[index];
+	}
+
+	/**
+	 * Replaces the value at the given index.
+	 *
+	 * @param index
+	 *            an index between 0 and {@link #size()} (excluded).
+	 * @param value
+	 *            the new value.
+	 */
+	public void set(int index, int value) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		values[index] = value;
+	}
+
+	/**
+	 * Returns the number of values.
+	 *
+	 * @return the number of values.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns whether the list is empty.
+	 *
+	 * @return <code>true</code> if the list is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes the first occurrence of a value, keeping the order of the other
+	 * values.
+	 *
+	 * @param value
+	 *            a value.
+	 * @return <code>true</code> if the value was found.
+	 */
+	public boolean removeValue(int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				System.arraycopy(values, i + 1, values, i, size - i - 1);
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes and returns the last value.
+	 *
+	 * @return the last value.
+	 */
+	public int removeLast() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException();
+		return values[--size];
+	}
+
+	/**
+	 * Returns a copy of the values.
+	 *
+	 * @return the values.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+}
@@ -97,9 +97,29 @@ public final class Messages extends NLS {
 	public static String progress_SetActionLabel;
 	public static String progress_SetActionAssignmentString;
 
+	public static String progress_ExtractSCMachines;
+	public static String progress_StaticCheck;
+	public static String progress_SaveComponents;
+	public static String progress_BuildProjects;
+	public static String progress_BuildSymbolTable;
+	public static String progress_BuildOccurrenceIndex;
+	public static String progress_BuildColumnarModel;
+	public static String progress_CreateSlice;
+	public static String progress_ReadProofStatuses;
+	public static String progress_ComputeStatistics;
+
 
 	// Error strings
 	public static String error_NullProject;
+	public static String error_NullComponents;
+	public static String error_NullComponent;
+	public static String error_NonExistingComponent;
+	public static String error_NullElement;
+	public static String error_NonExistingElement;
+	public static String error_NullIdentifier;
+	public static String error_NullFormula;
+	public static String error_NullTypeEnvironment;
+	public static String error_IncompatibleComponents;
 	public static String error_NonExistingProject;
 
 	public static String error_NullContext;
@@ -115,8 +135,13 @@ public final class Messages extends NLS {
 
 	public static String error_NullSCMachine;
 	public static String error_NonExistingSCMachine;
+	public static String error_StaleSCMachine;
 
 	public static String error_NotAnAxiom;
+	public static String error_NotAVariable;
+
+	public static String error_InvalidWindow;
+	public static String error_InvalidMaxChanges;
 
 
 
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * <p>
+ * Utility class for running independent read-only tasks in parallel on the
+ * common fork-join pool.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class ParallelUtils {
+
+	/**
+	 * <p>
+	 * A task computing a result from an input.
+	 * </p>
+	 *
+	 * @param <T>
+	 *            the type of the inputs.
+	 * @param <R>
+	 *            the type of the results.
+	 */
+	public interface Task<T, R> {
+
+		/**
+		 * Computes the result for the given input.
+		 *
+		 * @param input
+		 *            an input.
+		 * @return the result for the input.
+		 * @throws CoreException
+		 *             if a problem occurs while computing the result.
+		 */
+		R run(T input) throws CoreException;
+
+	}
+
+	private ParallelUtils() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Runs the given task on every input in parallel and collects the results.
+	 * Progress is reported in the calling thread, one unit of work per input.
+	 * The first failure cancels the remaining tasks and is rethrown.
+	 *
+	 * @param inputs
+	 *            the inputs.
+	 * @param task
+	 *            the task to run on every input.
+	 * @param taskName
+	 *            the name of the task for progress reporting.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. Accepts <code>null</code>, indicating that no progress
+	 *            should be reported and that the operation cannot be cancelled.
+	 * @return the map from inputs to results, in the order of the inputs.
+	 * @throws CoreException
+	 *             if some task failed.
+	 * @throws OperationCanceledException
+	 *             if the operation has been cancelled.
+	 */
+	public static <T, R> Map<T, R> map(Collection<? extends T> inputs,
+			final Task<T, R> task, String taskName, IProgressMonitor monitor)
+			throws CoreException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, taskName,
+				inputs.size());
+
+		// Fork one task per input.
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		List<ForkJoinTask<R>> tasks = new ArrayList<ForkJoinTask<R>>(
+				inputs.size());
+		for (final T input : inputs) {
+			Callable<R> callable = () -> task.run(input);
+			tasks.add(pool.submit(callable));
+		}
+
+		// Join the tasks in order.
+		Map<T, R> result = new LinkedHashMap<T, R>();
+		int i = 0;
+		try {
+			for (T input : inputs) {
+				if (subMonitor.isCanceled())
+					throw new OperationCanceledException();
+				result.put(input, tasks.get(i++).get());
+				subMonitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(tasks);
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			cancel(tasks);
+			Throwable cause = e.getCause();
+			if (cause instanceof CoreException)
+				throw (CoreException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} catch (OperationCanceledException e) {
+			cancel(tasks);
+			throw e;
+		}
+		return result;
+	}
+
+	/*
+	 * Cancels the given tasks.
+	 */
+	private static void cancel(List<? extends ForkJoinTask<?>> tasks) {
+		for (ForkJoinTask<?> task : tasks) {
+			task.cancel(false);
+		}
+	}
+
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.rodinp.core.IRodinProject;
+
+/**
+ * <p>
+ * A registry of per-project indexes which are built at first use and then
+ * maintained from the Rodin element deltas. Indexes are notified of the
+ * components which changed (or were removed) and are dropped when their
+ * project is closed or removed.
+ * </p>
+ * <p>
+ * Indexes are built without holding any lock, hence the delivery of the
+ * Rodin deltas is never blocked by the build of an index. Concurrent requests
+ * for the index of the same project wait for the same build. An index whose
+ * project changes while it is built is dropped once built, and is built again
+ * at next use.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @param <T>
+ *            the type of the indexes.
+ * @since 0.3.0
+ */
+public final class ProjectRegistry<T> {
+
+	/**
+	 * <p>
+	 * Builds the index of a project.
+	 * </p>
+	 *
+	 * @param <T>
+	 *            the type of the index.
+	 */
+	public interface Factory<T> {
+
+		/**
+		 * Builds the index of an existing project.
+		 *
+		 * @param prj
+		 *            an Event-B project.
+		 * @return the index of the project.
+		 * @throws CoreException
+		 *             if a problem occurs while accessing the database.
+		 */
+		T create(IEventBProject prj) throws CoreException;
+
+	}
+
+	/**
+	 * <p>
+	 * Records the change of a component in an index.
+	 * </p>
+	 *
+	 * @param <T>
+	 *            the type of the index.
+	 */
+	public interface ChangeHandler<T> {
+
+		/**
+		 * Called when a component of the project of an index has been added,
+		 * changed or removed. This is called from the thread delivering the
+		 * Rodin deltas and should only record the change.
+		 *
+		 * @param index
+		 *            the index of the project.
+		 * @param root
+		 *            the root of the component (machine or context).
+		 */
+		void componentChanged(T index, IEventBRoot root);
+
+	}
+
+	// The registries whose listener is installed.
+	private static final Set<ProjectRegistry<?>> installed = ConcurrentHashMap
+			.newKeySet();
+
+	// The indexes built or being built so far.
+	private final Map<IRodinProject, CompletableFuture<T>> indexes = new ConcurrentHashMap<IRodinProject, CompletableFuture<T>>();
+
+	// The factory for new indexes.
+	private final Factory<T> factory;
+
+	// The handler of component changes.
+	private final ChangeHandler<T> handler;
+
+	// The listener maintaining the indexes, installed at first use.
+	private volatile ComponentDeltaListener listener;
+
+	/**
+	 * Creates a new registry.
+	 *
+	 * @param factory
+	 *            the factory building the index of a project.
+	 * @param handler
+	 *            the handler recording component changes in an index.
+	 */
+	public ProjectRegistry(Factory<T> factory, ChangeHandler<T> handler) {
+		this.factory = factory;
+		this.handler = handler;
+	}
+
+	/**
+	 * Returns the index of an existing project, building it if needed. If
+	 * the index is being built by another thread, waits for that build. If a
+	 * component changes during the build, the index is built again.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the index of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while building the index.
+	 */
+	public T get(IEventBProject prj) throws CoreException {
+		if (listener == null)
+			install();
+		IRodinProject project = prj.getRodinProject();
+		while (true) {
+			CompletableFuture<T> future = indexes.get(project);
+			if (future == null) {
+				CompletableFuture<T> created = new CompletableFuture<T>();
+				future = indexes.putIfAbsent(project, created);
+				if (future == null) {
+					future = created;
+					build(prj, created);
+				}
+			}
+			T result;
+			try {
+				result = future.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof CoreException)
+					throw (CoreException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw e;
+			}
+			// The listener drops an index whose build misses a change.
+			if (indexes.get(project) == future)
+				return result;
+		}
+	}
+
+	/**
+	 * Returns the index of a project if it has already been built.
+	 *
+	 * @param project
+	 *            a Rodin project.
+	 * @return the index of the project, or <code>null</code>.
+	 */
+	public T peek(IRodinProject project) {
+		CompletableFuture<T> future = indexes.get(project);
+		if (future == null || !future.isDone()
+				|| future.isCompletedExceptionally())
+			return null;
+		return future.join();
+	}
+
+	/**
+	 * Drops the index of a project.
+	 *
+	 * @param project
+	 *            a Rodin project.
+	 */
+	public void remove(IRodinProject project) {
+		indexes.remove(project);
+	}
+
+	/**
+	 * Drops all the indexes and stops listening to the Rodin database. The
+	 * listener is installed again at next use.
+	 */
+	public synchronized void dispose() {
+		if (listener != null) {
+			listener.uninstall();
+			listener = null;
+			installed.remove(this);
+		}
+		indexes.clear();
+	}
+
+	/**
+	 * Disposes all the registries which are listening to the Rodin database.
+	 *
+	 * @see #dispose()
+	 */
+	public static void disposeAll() {
+		for (ProjectRegistry<?> registry : installed) {
+			registry.dispose();
+		}
+	}
+
+	/*
+	 * Builds the index of a project and completes the given future with it.
+	 * The future is dropped if the build fails, so that the build is retried
+	 * at next use.
+	 */
+	private void build(IEventBProject prj, CompletableFuture<T> future) {
+		try {
+			future.complete(factory.create(prj));
+		} catch (CoreException | RuntimeException e) {
+			indexes.remove(prj.getRodinProject(), future);
+			future.completeExceptionally(e);
+		}
+	}
+
+	/*
+	 * Installs the listener maintaining the indexes.
+	 */
+	private synchronized void install() {
+		if (listener != null)
+			return;
+		listener = new ComponentDeltaListener() {
+
+			@Override
+			protected void componentChanged(IEventBRoot root) {
+				IRodinProject project = root.getRodinProject();
+				CompletableFuture<T> future = indexes.get(project);
+				if (future == null)
+					return;
+				if (!future.isDone()) {
+					// The index being built may miss the change.
+					indexes.remove(project, future);
+					return;
+				}
+				T index = peek(project);
+				if (index != null)
+					handler.componentChanged(index, root);
+			}
+
+			@Override
+			protected void componentRemoved(IEventBRoot root) {
+				componentChanged(root);
+			}
+
+			@Override
+			protected void projectRemoved(IRodinProject project) {
+				remove(project);
+			}
+
+		};
+		listener.install();
+		installed.add(this);
+	}
+
+}
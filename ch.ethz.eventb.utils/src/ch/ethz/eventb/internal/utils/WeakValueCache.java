@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.internal.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A map whose values are only weakly referenced: an entry disappears once its
+ * value is no longer used outside of the cache. The keys should not refer to
+ * the values. This class is not thread-safe.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @param <K>
+ *            the type of the keys.
+ * @param <V>
+ *            the type of the values.
+ * @since 0.3.0
+ */
+public final class WeakValueCache<K, V> {
+
+	/*
+	 * A weak reference remembering its key, to remove the entry once the
+	 * value has been collected.
+	 */
+	private static final class Entry<K, V> extends WeakReference<V> {
+
+		private final K key;
+
+		private Entry(K key, V value, ReferenceQueue<? super V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+
+	}
+
+	// The entries.
+	private final Map<K, Entry<K, V>> entries = new HashMap<K, Entry<K, V>>();
+
+	// The references whose value has been collected.
+	private final ReferenceQueue<V> queue = new ReferenceQueue<V>();
+
+	/**
+	 * Returns the value of a key.
+	 *
+	 * @param key
+	 *            a key.
+	 * @return the value of the key, or <code>null</code> if there is none or
+	 *         if it has been collected.
+	 */
+	public V get(K key) {
+		expunge();
+		Entry<K, V> entry = entries.get(key);
+		return entry == null ? null : entry.get();
+	}
+
+	/**
+	 * Associates a value to a key, unless the key already has a value.
+	 *
+	 * @param key
+	 *            a key.
+	 * @param value
+	 *            a value.
+	 * @return the value of the key after the call, i.e. either the existing
+	 *         one or the given one.
+	 */
+	public V putIfAbsent(K key, V value) {
+		V existing = get(key);
+		if (existing != null)
+			return existing;
+		entries.put(key, new Entry<K, V>(key, value, queue));
+		return value;
+	}
+
+	/**
+	 * Returns the number of entries, including the entries whose value has
+	 * been collected but not yet removed.
+	 *
+	 * @return the number of entries.
+	 */
+	public int size() {
+		expunge();
+		return entries.size();
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		entries.clear();
+		expunge();
+	}
+
+	/*
+	 * Removes the entries whose value has been collected.
+	 */
+	private void expunge() {
+		for (Object ref = queue.poll(); ref != null; ref = queue.poll()) {
+			@SuppressWarnings("unchecked")
+			Entry<K, V> entry = (Entry<K, V>) ref;
+			// The key may have been associated with a new value since.
+			if (entries.get(entry.key) == entry)
+				entries.remove(entry.key);
+		}
+	}
+
+}
@@ -0,0 +1,592 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IMachineRoot;
+import org.rodinp.core.IAttributeType;
+import org.rodinp.core.IAttributeValue;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IInternalElementType;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinCore;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.IntList;
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * A compact, read-only, columnar representation of the (unchecked) machines
+ * and contexts of an Event-B project. Elements are numbered in depth-first
+ * order and described by primitive arrays (parent, first child, next sibling,
+ * type and name); attributes are stored in flat arrays indexed by per-element
+ * offsets. All strings (names, type identifiers and string attribute values)
+ * are interned in a single string table. Queries take and return element
+ * numbers and never box values nor access the database, except
+ * {@link #getHandle(int)}.
+ * </p>
+ * <p>
+ * The model is a snapshot: it does not follow the later changes of the
+ * project.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSnapshots
+ * @since 0.3.0
+ */
+public final class EventBColumnarModel {
+
+	/**
+	 * The number used for a missing element (no parent, no child, no
+	 * sibling) or a missing string.
+	 */
+	public static final int NONE = -1;
+
+	// The string table.
+	private final String[] strings;
+
+	// The numbers of the strings of the string table.
+	private final Map<String, Integer> stringIds;
+
+	// The root handles, in the order of the root elements.
+	private final IInternalElement[] rootHandles;
+
+	// The element numbers of the roots.
+	private final int[] roots;
+
+	// The parent of each element.
+	private final int[] parent;
+
+	// The first child of each element.
+	private final int[] firstChild;
+
+	// The next sibling of each element.
+	private final int[] nextSibling;
+
+	// The type identifier (string number) of each element.
+	private final int[] type;
+
+	// The name (string number) of each element.
+	private final int[] name;
+
+	// The offset of the first attribute of each element, plus a final offset.
+	private final int[] attributeStart;
+
+	// The type identifier (string number) of each attribute.
+	private final int[] attributeType;
+
+	// The value of each attribute (string number for strings and handles).
+	private final long[] attributeValue;
+
+	/**
+	 * Constructor: Create a model from its columns.
+	 */
+	private EventBColumnarModel(Builder builder) {
+		strings = builder.strings.toArray(new String[builder.strings.size()]);
+		stringIds = builder.stringIds;
+		rootHandles = builder.rootHandles
+				.toArray(new IInternalElement[builder.rootHandles.size()]);
+		roots = builder.roots.toArray();
+		parent = builder.parent.toArray();
+		firstChild = builder.firstChild.toArray();
+		nextSibling = builder.nextSibling.toArray();
+		type = builder.type.toArray();
+		name = builder.name.toArray();
+		builder.attributeStart.add(builder.attributeType.size());
+		attributeStart = builder.attributeStart.toArray();
+		attributeType = builder.attributeType.toArray();
+		attributeValue = Arrays.copyOf(builder.attributeValue,
+				builder.attributeType.size());
+	}
+
+	/**
+	 * Builds the columnar model of the machines and contexts of an EXISTING
+	 * Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. Accepts <code>null</code>, indicating that no progress
+	 *            should be reported and that the operation cannot be cancelled.
+	 * @return the columnar model of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 * @throws OperationCanceledException
+	 *             if the operation has been cancelled.
+	 */
+	public static EventBColumnarModel build(IEventBProject prj,
+			IProgressMonitor monitor) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IInternalElement> components = new ArrayList<IInternalElement>();
+		components.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		components.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor,
+				Messages.progress_BuildColumnarModel, components.size());
+		Builder builder = new Builder();
+		for (IInternalElement root : components) {
+			if (subMonitor.isCanceled())
+				throw new OperationCanceledException();
+			builder.addComponent(root);
+			subMonitor.worked(1);
+		}
+		return new EventBColumnarModel(builder);
+	}
+
+	/**
+	 * Returns the number of elements of the model.
+	 *
+	 * @return the number of elements.
+	 */
+	public int getElementCount() {
+		return parent.length;
+	}
+
+	/**
+	 * Returns the number of components (root elements) of the model.
+	 *
+	 * @return the number of components.
+	 */
+	public int getRootCount() {
+		return roots.length;
+	}
+
+	/**
+	 * Returns the element number of a component.
+	 *
+	 * @param index
+	 *            the index of the component, between 0 and
+	 *            {@link #getRootCount()} (excluded).
+	 * @return the element number of the root of the component.
+	 */
+	public int getRoot(int index) {
+		return roots[index];
+	}
+
+	/**
+	 * Returns the parent of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the parent element number, or {@link #NONE} for a root.
+	 */
+	public int getParent(int element) {
+		return parent[element];
+	}
+
+	/**
+	 * Returns the first child of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the first child element number, or {@link #NONE}.
+	 */
+	public int getFirstChild(int element) {
+		return firstChild[element];
+	}
+
+	/**
+	 * Returns the next sibling of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the next sibling element number, or {@link #NONE}.
+	 */
+	public int getNextSibling(int element) {
+		return nextSibling[element];
+	}
+
+	/**
+	 * Returns the string number of the type identifier of an element. Types
+	 * can be compared without decoding strings, using
+	 * {@link #getStringId(String)} on the type identifier.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the string number of the element type identifier.
+	 */
+	public int getTypeId(int element) {
+		return type[element];
+	}
+
+	/**
+	 * Returns whether an element is of the given type.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param elementType
+	 *            an element type.
+	 * @return <code>true</code> if the element has the given type.
+	 */
+	public boolean isOfType(int element, IInternalElementType<?> elementType) {
+		return type[element] == getStringId(elementType.getId());
+	}
+
+	/**
+	 * Returns the name of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the name of the element.
+	 */
+	public String getElementName(int element) {
+		return strings[name[element]];
+	}
+
+	/**
+	 * Returns a string of the string table.
+	 *
+	 * @param id
+	 *            a string number.
+	 * @return the string.
+	 */
+	public String getString(int id) {
+		return strings[id];
+	}
+
+	/**
+	 * Returns the number of a string in the string table.
+	 *
+	 * @param string
+	 *            a string.
+	 * @return the string number, or {@link #NONE} if the string does not
+	 *         occur in the model.
+	 */
+	public int getStringId(String string) {
+		Integer id = stringIds.get(string);
+		return id == null ? NONE : id;
+	}
+
+	/**
+	 * Returns the elements of the given type, in depth-first order.
+	 *
+	 * @param elementType
+	 *            an element type.
+	 * @return the element numbers.
+	 */
+	public int[] getElementsOfType(IInternalElementType<?> elementType) {
+		int typeId = getStringId(elementType.getId());
+		IntList result = new IntList();
+		if (typeId != NONE) {
+			for (int i = 0; i < type.length; i++) {
+				if (type[i] == typeId)
+					result.add(i);
+			}
+		}
+		return result.toArray();
+	}
+
+	/**
+	 * Returns the number of attributes of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the number of attributes.
+	 */
+	public int getAttributeCount(int element) {
+		return attributeStart[element + 1] - attributeStart[element];
+	}
+
+	/**
+	 * Returns whether an element carries an attribute.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            an attribute type.
+	 * @return <code>true</code> if the attribute is set.
+	 */
+	public boolean hasAttribute(int element, IAttributeType attrType) {
+		return findAttribute(element, attrType) != NONE;
+	}
+
+	/**
+	 * Returns the value of a string attribute of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            a string attribute type.
+	 * @return the value, or <code>null</code> if the attribute is not set.
+	 */
+	public String getAttributeValue(int element, IAttributeType.String attrType) {
+		int attribute = findAttribute(element, attrType);
+		if (attribute == NONE)
+			return null;
+		return strings[(int) attributeValue[attribute]];
+	}
+
+	/**
+	 * Returns the value of a boolean attribute of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            a boolean attribute type.
+	 * @param defaultValue
+	 *            the value to return if the attribute is not set.
+	 * @return the value of the attribute.
+	 */
+	public boolean getAttributeValue(int element,
+			IAttributeType.Boolean attrType, boolean defaultValue) {
+		int attribute = findAttribute(element, attrType);
+		if (attribute == NONE)
+			return defaultValue;
+		return attributeValue[attribute] != 0;
+	}
+
+	/**
+	 * Returns the value of an integer attribute of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            an integer attribute type.
+	 * @param defaultValue
+	 *            the value to return if the attribute is not set.
+	 * @return the value of the attribute.
+	 */
+	public int getAttributeValue(int element, IAttributeType.Integer attrType,
+			int defaultValue) {
+		int attribute = findAttribute(element, attrType);
+		if (attribute == NONE)
+			return defaultValue;
+		return (int) attributeValue[attribute];
+	}
+
+	/**
+	 * Returns the value of a long attribute of an element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            a long attribute type.
+	 * @param defaultValue
+	 *            the value to return if the attribute is not set.
+	 * @return the value of the attribute.
+	 */
+	public long getAttributeValue(int element, IAttributeType.Long attrType,
+			long defaultValue) {
+		int attribute = findAttribute(element, attrType);
+		if (attribute == NONE)
+			return defaultValue;
+		return attributeValue[attribute];
+	}
+
+	/**
+	 * Returns the handle identifier stored in a handle attribute of an
+	 * element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @param attrType
+	 *            a handle attribute type.
+	 * @return the handle identifier, or <code>null</code> if the attribute is
+	 *         not set.
+	 * @see RodinCore#valueOf(String)
+	 */
+	public String getAttributeValue(int element, IAttributeType.Handle attrType) {
+		int attribute = findAttribute(element, attrType);
+		if (attribute == NONE)
+			return null;
+		return strings[(int) attributeValue[attribute]];
+	}
+
+	/**
+	 * Returns the Rodin handle of an element. This does not access the
+	 * database, but allocates one handle per ancestor of the element.
+	 *
+	 * @param element
+	 *            an element number.
+	 * @return the handle of the element.
+	 */
+	public IInternalElement getHandle(int element) {
+		// Climb to the root, remembering the path.
+		IntList path = new IntList();
+		int current = element;
+		while (parent[current] != NONE) {
+			path.add(current);
+			current = parent[current];
+		}
+		IInternalElement result = rootHandles[Arrays.binarySearch(roots,
+				current)];
+		for (int i = path.size() - 1; i >= 0; i--) {
+			int child = path.get(i);
+			IInternalElementType<?> childType = RodinCore
+					.getInternalElementType(strings[type[child]]);
+			result = result.getInternalElement(childType, strings[name[child]]);
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the index of an attribute of an element, or NONE.
+	 */
+	private int findAttribute(int element, IAttributeType attrType) {
+		int typeId = getStringId(attrType.getId());
+		if (typeId == NONE)
+			return NONE;
+		for (int i = attributeStart[element]; i < attributeStart[element + 1]; i++) {
+			if (attributeType[i] == typeId)
+				return i;
+		}
+		return NONE;
+	}
+
+	/*
+	 * Accumulates the columns while reading the database.
+	 */
+	private static final class Builder {
+
+		private final List<String> strings = new ArrayList<String>();
+
+		private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+		private final List<IInternalElement> rootHandles = new ArrayList<IInternalElement>();
+
+		private final IntList roots = new IntList();
+
+		private final IntList parent = new IntList(1024);
+
+		private final IntList firstChild = new IntList(1024);
+
+		private final IntList nextSibling = new IntList(1024);
+
+		private final IntList type = new IntList(1024);
+
+		private final IntList name = new IntList(1024);
+
+		// The last added child of each element, only needed while building.
+		private final IntList lastChild = new IntList(1024);
+
+		private final IntList attributeStart = new IntList(1024);
+
+		private final IntList attributeType = new IntList(1024);
+
+		private long[] attributeValue = new long[1024];
+
+		/*
+		 * Adds a component in depth-first order, iteratively.
+		 */
+		private void addComponent(IInternalElement root)
+				throws RodinDBException {
+			rootHandles.add(root);
+			roots.add(parent.size());
+			Deque<IInternalElement> elements = new ArrayDeque<IInternalElement>();
+			IntList parents = new IntList();
+			elements.push(root);
+			parents.add(NONE);
+			while (!elements.isEmpty()) {
+				IInternalElement element = elements.pop();
+				int elementParent = parents.removeLast();
+				int id = addElement(element, elementParent);
+				if (elementParent != NONE) {
+					int previous = lastChild.get(elementParent);
+					if (previous == NONE)
+						firstChild.set(elementParent, id);
+					else
+						nextSibling.set(previous, id);
+					lastChild.set(elementParent, id);
+				}
+				IRodinElement[] children = element.getChildren();
+				for (int i = children.length - 1; i >= 0; i--) {
+					elements.push((IInternalElement) children[i]);
+					parents.add(id);
+				}
+			}
+		}
+
+		/*
+		 * Adds an element and its attributes.
+		 */
+		private int addElement(IInternalElement element, int elementParent)
+				throws RodinDBException {
+			int id = parent.size();
+			parent.add(elementParent);
+			firstChild.add(NONE);
+			nextSibling.add(NONE);
+			lastChild.add(NONE);
+			type.add(intern(element.getElementType().getId()));
+			name.add(intern(element.getElementName()));
+			attributeStart.add(attributeType.size());
+			for (IAttributeValue value : element.getAttributeValues()) {
+				addAttribute(value);
+			}
+			return id;
+		}
+
+		/*
+		 * Adds an attribute value.
+		 */
+		private void addAttribute(IAttributeValue value) {
+			int index = attributeType.size();
+			if (index == attributeValue.length)
+				attributeValue = Arrays.copyOf(attributeValue, index * 2);
+			attributeType.add(intern(value.getType().getId()));
+			Object object = value.getValue();
+			if (object instanceof Boolean) {
+				attributeValue[index] = ((Boolean) object) ? 1 : 0;
+			} else if (object instanceof Integer) {
+				attributeValue[index] = (Integer) object;
+			} else if (object instanceof Long) {
+				attributeValue[index] = (Long) object;
+			} else if (object instanceof IRodinElement) {
+				attributeValue[index] = intern(((IRodinElement) object)
+						.getHandleIdentifier());
+			} else {
+				attributeValue[index] = intern(String.valueOf(object));
+			}
+		}
+
+		/*
+		 * Interns a string in the string table.
+		 */
+		private int intern(String string) {
+			Integer id = stringIds.get(string);
+			if (id == null) {
+				id = strings.size();
+				strings.add(string);
+				stringIds.put(string, id);
+			}
+			return id;
+		}
+
+	}
+
+}
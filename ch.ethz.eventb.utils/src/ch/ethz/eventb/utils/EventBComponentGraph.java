@@ -0,0 +1,517 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IExtendsContext;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IRefinesMachine;
+import org.eventb.core.ISeesContext;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ProjectRegistry;
+
+/**
+ * <p>
+ * The dependency graph of the components (machines and contexts) of an Event-B
+ * project, as given by their EXTENDS, SEES and REFINES clauses. The graph of a
+ * project is built once at first use, then maintained incrementally from the
+ * Rodin element deltas: only the components which changed since the last
+ * query are re-read.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBUtils#createExtendsContextClause
+ * @see EventBUtils#createSeesContextClause
+ * @see EventBUtils#createRefinesMachineClause
+ * @since 0.3.0
+ */
+public final class EventBComponentGraph {
+
+	/**
+	 * The relations between components.
+	 */
+	public enum Relation {
+
+		/**
+		 * A context extends an abstract context.
+		 */
+		EXTENDS,
+
+		/**
+		 * A machine sees a context.
+		 */
+		SEES,
+
+		/**
+		 * A machine refines an abstract machine.
+		 */
+		REFINES
+
+	}
+
+	// The graphs of the projects which have been queried so far.
+	private static final ProjectRegistry<EventBComponentGraph> graphs = new ProjectRegistry<EventBComponentGraph>(
+			EventBComponentGraph::new, EventBComponentGraph::setChanged);
+
+	// The Event-B project.
+	private final IEventBProject prj;
+
+	// The direct dependencies of each component.
+	private final Map<IEventBRoot, Map<IEventBRoot, Relation>> dependencies = new LinkedHashMap<IEventBRoot, Map<IEventBRoot, Relation>>();
+
+	// The direct dependants of each component (reverse edges).
+	private final Map<IEventBRoot, Set<IEventBRoot>> dependants = new HashMap<IEventBRoot, Set<IEventBRoot>>();
+
+	// The components which changed since the last query.
+	private final Set<IEventBRoot> changed = new LinkedHashSet<IEventBRoot>();
+
+	/**
+	 * Constructor: Create the graph of a project by reading all its
+	 * components.
+	 */
+	private EventBComponentGraph(IEventBProject prj) throws RodinDBException {
+		this.prj = prj;
+		IRodinProject rodinPrj = prj.getRodinProject();
+		for (IContextRoot ctx : rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)) {
+			changed.add(ctx);
+		}
+		for (IMachineRoot mch : rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)) {
+			changed.add(mch);
+		}
+		refresh();
+	}
+
+	/**
+	 * Returns the dependency graph of an EXISTING Event-B project. The graph
+	 * is built at the first call for the project, then kept up to date with
+	 * the changes of the Rodin database.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the dependency graph of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBComponentGraph getGraph(IEventBProject prj)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		return graphs.get(prj);
+	}
+
+	/**
+	 * Returns the Event-B project of this graph.
+	 *
+	 * @return the Event-B project.
+	 */
+	public IEventBProject getEventBProject() {
+		return prj;
+	}
+
+	/**
+	 * Returns the existing components of the project.
+	 *
+	 * @return the components of the project.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Set<IEventBRoot> getComponents()
+			throws RodinDBException {
+		refresh();
+		return new LinkedHashSet<IEventBRoot>(dependencies.keySet());
+	}
+
+	/**
+	 * Returns the components on which a component directly depends, with the
+	 * corresponding relation. The components may not exist.
+	 *
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the map from direct dependencies to relations.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Map<IEventBRoot, Relation> getDependencies(
+			IEventBRoot root) throws RodinDBException {
+		refresh();
+		Map<IEventBRoot, Relation> result = dependencies.get(root);
+		if (result == null)
+			return Collections.emptyMap();
+		return new LinkedHashMap<IEventBRoot, Relation>(result);
+	}
+
+	/**
+	 * Returns the components which directly depend on a component.
+	 *
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the direct dependants of the component.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Set<IEventBRoot> getDependants(IEventBRoot root)
+			throws RodinDBException {
+		refresh();
+		Set<IEventBRoot> result = dependants.get(root);
+		if (result == null)
+			return Collections.emptySet();
+		return new LinkedHashSet<IEventBRoot>(result);
+	}
+
+	/**
+	 * Returns the components impacted by a change of a component, i.e. its
+	 * existing direct and indirect dependants through the EXTENDS, SEES and
+	 * REFINES relations.
+	 *
+	 * @param root
+	 *            the changed component (machine or context).
+	 * @return the impacted components in topological order, not including the
+	 *         changed component.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<IEventBRoot> getImpactedComponents(
+			IEventBRoot root) throws RodinDBException {
+		Set<IEventBRoot> closure = getDependantClosure(root);
+		List<IEventBRoot> result = new ArrayList<IEventBRoot>();
+		for (IEventBRoot component : getTopologicalOrder()) {
+			if (closure.contains(component))
+				result.add(component);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the components impacted by a change of an identifier declared
+	 * in a component. A dependant of the changed component is impacted if it
+	 * declares the identifier or one of its formulas mentions it, or if it
+	 * depends on an impacted component.
+	 *
+	 * @param root
+	 *            the component (machine or context) declaring the identifier.
+	 * @param identifier
+	 *            the changed identifier.
+	 * @return the impacted components in topological order, not including the
+	 *         changed component.
+	 * @see EventBOccurrenceIndex#getComponents(String)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<IEventBRoot> getImpactedComponents(
+			IEventBRoot root, String identifier) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(identifier, Messages.error_NullIdentifier);
+
+		Set<IEventBRoot> mentioning = new LinkedHashSet<IEventBRoot>(
+				EventBOccurrenceIndex.getOccurrenceIndex(prj).getComponents(
+						identifier));
+		for (EventBSymbolTable.Symbol symbol : EventBSymbolTable
+				.getSymbolTable(prj).getDeclarations(identifier)) {
+			mentioning.add(symbol.getComponent());
+		}
+		Set<IEventBRoot> impacted = new LinkedHashSet<IEventBRoot>();
+		for (IEventBRoot component : getImpactedComponents(root)) {
+			boolean isImpacted = mentioning.contains(component);
+			for (IEventBRoot dependency : dependencies.get(component).keySet()) {
+				if (impacted.contains(dependency))
+					isImpacted = true;
+			}
+			if (isImpacted)
+				impacted.add(component);
+		}
+		return new ArrayList<IEventBRoot>(impacted);
+	}
+
+	/**
+	 * Returns the refinement level of a machine, i.e. the length of its
+	 * REFINES chain: 0 for a machine which does not refine any machine.
+	 * Cycles in the chain are cut.
+	 *
+	 * @param mch
+	 *            a machine.
+	 * @return the refinement level of the machine.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized int getRefinementLevel(IMachineRoot mch)
+			throws RodinDBException {
+		refresh();
+		Set<IEventBRoot> visited = new LinkedHashSet<IEventBRoot>();
+		IEventBRoot current = mch;
+		while (visited.add(current)) {
+			Map<IEventBRoot, Relation> edges = dependencies.get(current);
+			if (edges == null)
+				break;
+			IEventBRoot abstraction = null;
+			for (Map.Entry<IEventBRoot, Relation> edge : edges.entrySet()) {
+				if (edge.getValue() == Relation.REFINES)
+					abstraction = edge.getKey();
+			}
+			if (abstraction == null || !dependencies.containsKey(abstraction))
+				break;
+			current = abstraction;
+		}
+		return visited.size() - 1;
+	}
+
+	/**
+	 * Returns the existing components of the project sorted in topological
+	 * order: every component appears after the components it depends on.
+	 * Components involved in a dependency cycle (and their dependants) cannot
+	 * be ordered and are appended at the end.
+	 *
+	 * @return the components in topological order.
+	 * @see #getCycles()
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<IEventBRoot> getTopologicalOrder()
+			throws RodinDBException {
+		refresh();
+		// Kahn's algorithm on the existing components.
+		Map<IEventBRoot, Integer> inDegree = new HashMap<IEventBRoot, Integer>();
+		for (Map.Entry<IEventBRoot, Map<IEventBRoot, Relation>> entry : dependencies
+				.entrySet()) {
+			int degree = 0;
+			for (IEventBRoot dependency : entry.getValue().keySet()) {
+				if (dependencies.containsKey(dependency))
+					degree++;
+			}
+			inDegree.put(entry.getKey(), degree);
+		}
+		Deque<IEventBRoot> ready = new ArrayDeque<IEventBRoot>();
+		for (IEventBRoot root : dependencies.keySet()) {
+			if (inDegree.get(root) == 0)
+				ready.add(root);
+		}
+		Set<IEventBRoot> result = new LinkedHashSet<IEventBRoot>();
+		while (!ready.isEmpty()) {
+			IEventBRoot root = ready.poll();
+			result.add(root);
+			Set<IEventBRoot> users = dependants.get(root);
+			if (users == null)
+				continue;
+			for (IEventBRoot user : users) {
+				int degree = inDegree.get(user) - 1;
+				inDegree.put(user, degree);
+				if (degree == 0)
+					ready.add(user);
+			}
+		}
+		result.addAll(dependencies.keySet());
+		return new ArrayList<IEventBRoot>(result);
+	}
+
+	/**
+	 * Returns the dependency cycles between the existing components of the
+	 * project, i.e. the strongly connected components of the graph with more
+	 * than one component or with a component depending on itself.
+	 *
+	 * @return the list of cycles, empty if the graph is acyclic.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<Set<IEventBRoot>> getCycles()
+			throws RodinDBException {
+		refresh();
+		return new CycleFinder().run();
+	}
+
+	/**
+	 * Returns whether the components of the project have dependency cycles.
+	 *
+	 * @return <code>true</code> if the graph has cycles, <code>false</code>
+	 *         otherwise.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public boolean hasCycles() throws RodinDBException {
+		return !getCycles().isEmpty();
+	}
+
+	/*
+	 * Returns the existing direct and indirect dependants of a component.
+	 */
+	private Set<IEventBRoot> getDependantClosure(IEventBRoot root)
+			throws RodinDBException {
+		refresh();
+		Set<IEventBRoot> result = new LinkedHashSet<IEventBRoot>();
+		Deque<IEventBRoot> toVisit = new ArrayDeque<IEventBRoot>();
+		toVisit.add(root);
+		while (!toVisit.isEmpty()) {
+			Set<IEventBRoot> users = dependants.get(toVisit.poll());
+			if (users == null)
+				continue;
+			for (IEventBRoot user : users) {
+				if (!user.equals(root) && result.add(user))
+					toVisit.add(user);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Records that a component changed.
+	 */
+	private synchronized void setChanged(IEventBRoot root) {
+		changed.add(root);
+	}
+
+	/*
+	 * Re-reads the components which changed since the last query.
+	 */
+	private void refresh() throws RodinDBException {
+		while (!changed.isEmpty()) {
+			IEventBRoot root = changed.iterator().next();
+			// Remove the previous edges of the component.
+			Map<IEventBRoot, Relation> previous = dependencies.remove(root);
+			if (previous != null) {
+				for (IEventBRoot dependency : previous.keySet()) {
+					Set<IEventBRoot> users = dependants.get(dependency);
+					users.remove(root);
+					if (users.isEmpty())
+						dependants.remove(dependency);
+				}
+			}
+			// Add the current edges of the component.
+			if (root.exists()) {
+				Map<IEventBRoot, Relation> current = readDependencies(root);
+				dependencies.put(root, current);
+				for (IEventBRoot dependency : current.keySet()) {
+					Set<IEventBRoot> users = dependants.get(dependency);
+					if (users == null) {
+						users = new LinkedHashSet<IEventBRoot>();
+						dependants.put(dependency, users);
+					}
+					users.add(root);
+				}
+			}
+			changed.remove(root);
+		}
+	}
+
+	/*
+	 * Reads the direct dependencies of an existing component.
+	 */
+	private Map<IEventBRoot, Relation> readDependencies(IEventBRoot root)
+			throws RodinDBException {
+		Map<IEventBRoot, Relation> result = new LinkedHashMap<IEventBRoot, Relation>();
+		if (root instanceof IContextRoot) {
+			for (IExtendsContext clause : ((IContextRoot) root)
+					.getExtendsClauses()) {
+				if (clause.hasAbstractContextName())
+					result.put(prj.getContextRoot(clause
+							.getAbstractContextName()), Relation.EXTENDS);
+			}
+		} else if (root instanceof IMachineRoot) {
+			IMachineRoot mch = (IMachineRoot) root;
+			for (IRefinesMachine clause : mch.getRefinesClauses()) {
+				if (clause.hasAbstractMachineName())
+					result.put(prj.getMachineRoot(clause
+							.getAbstractMachineName()), Relation.REFINES);
+			}
+			for (ISeesContext clause : mch.getSeesClauses()) {
+				if (clause.hasSeenContextName())
+					result.put(
+							prj.getContextRoot(clause.getSeenContextName()),
+							Relation.SEES);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Tarjan's algorithm for the strongly connected components of the graph.
+	 */
+	private final class CycleFinder {
+
+		private final Map<IEventBRoot, Integer> index = new HashMap<IEventBRoot, Integer>();
+
+		private final Map<IEventBRoot, Integer> lowLink = new HashMap<IEventBRoot, Integer>();
+
+		private final Deque<IEventBRoot> stack = new ArrayDeque<IEventBRoot>();
+
+		private final Set<IEventBRoot> onStack = new LinkedHashSet<IEventBRoot>();
+
+		private final List<Set<IEventBRoot>> cycles = new ArrayList<Set<IEventBRoot>>();
+
+		private List<Set<IEventBRoot>> run() {
+			for (IEventBRoot root : dependencies.keySet()) {
+				if (!index.containsKey(root))
+					visit(root);
+			}
+			return cycles;
+		}
+
+		private void visit(IEventBRoot root) {
+			int rootIndex = index.size();
+			index.put(root, rootIndex);
+			lowLink.put(root, rootIndex);
+			stack.push(root);
+			onStack.add(root);
+			boolean selfLoop = false;
+			for (IEventBRoot dependency : dependencies.get(root).keySet()) {
+				if (!dependencies.containsKey(dependency))
+					continue;
+				if (dependency.equals(root))
+					selfLoop = true;
+				if (!index.containsKey(dependency)) {
+					visit(dependency);
+					lowLink.put(root, Math.min(lowLink.get(root),
+							lowLink.get(dependency)));
+				} else if (onStack.contains(dependency)) {
+					lowLink.put(root,
+							Math.min(lowLink.get(root), index.get(dependency)));
+				}
+			}
+			if (lowLink.get(root) == rootIndex) {
+				Set<IEventBRoot> component = new LinkedHashSet<IEventBRoot>();
+				IEventBRoot member;
+				do {
+					member = stack.pop();
+					onStack.remove(member);
+					component.add(member);
+				} while (!member.equals(root));
+				if (component.size() > 1 || selfLoop)
+					cycles.add(component);
+			}
+		}
+
+	}
+
+}
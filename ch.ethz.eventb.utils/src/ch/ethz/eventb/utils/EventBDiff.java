@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.rodinp.core.IInternalElement;
+
+import ch.ethz.eventb.internal.utils.HashedElement;
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * A structural difference between two versions of a machine or of a context,
+ * e.g. two machines of the same refinement chain or a machine and its backup
+ * copy.
+ * </p>
+ * <p>
+ * Every element is hashed according to its type and attributes, and the
+ * elements of the two versions are matched by type and key (label,
+ * identifier, target or element name) among their siblings. Subtrees with
+ * the same hash are not compared any further, so that the cost of a
+ * comparison depends on the size of the difference rather than on the size
+ * of the components. Elements whose position changed among their siblings,
+ * or which changed parent with the same content, are reported as moved.
+ * </p>
+ * <p>
+ * The hashes are the fingerprints of {@link EventBFingerprints}, so that
+ * comparing saved components which have not changed since their last
+ * comparison does not read the database.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBDiff {
+
+	/**
+	 * The kinds of changes.
+	 */
+	public enum Kind {
+		/** An element of the new version only. */
+		ADDED,
+		/** An element of the old version only. */
+		REMOVED,
+		/** An element whose own attributes changed. */
+		MODIFIED,
+		/** An element which changed position or parent. */
+		MOVED
+	}
+
+	/**
+	 * <p>
+	 * A change of a single element. Changes to the descendants of an element
+	 * are reported separately.
+	 * </p>
+	 */
+	public static final class Change {
+
+		// The kind of the change.
+		private final Kind kind;
+
+		// The element in the old version, or null if added.
+		private final IInternalElement oldElement;
+
+		// The element in the new version, or null if removed.
+		private final IInternalElement newElement;
+
+		/**
+		 * Constructor: Create a change.
+		 */
+		private Change(Kind kind, IInternalElement oldElement,
+				IInternalElement newElement) {
+			this.kind = kind;
+			this.oldElement = oldElement;
+			this.newElement = newElement;
+		}
+
+		/**
+		 * Returns the kind of the change.
+		 *
+		 * @return the kind of the change.
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the element in the old version.
+		 *
+		 * @return the old element, or <code>null</code> for an added element.
+		 */
+		public IInternalElement getOldElement() {
+			return oldElement;
+		}
+
+		/**
+		 * Returns the element in the new version.
+		 *
+		 * @return the new element, or <code>null</code> for a removed element.
+		 */
+		public IInternalElement getNewElement() {
+			return newElement;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return kind + " " + (oldElement == null ? "-" : oldElement) //$NON-NLS-1$ //$NON-NLS-2$
+					+ " -> " + (newElement == null ? "-" : newElement); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+	}
+
+	// The old version.
+	private final IEventBRoot oldRoot;
+
+	// The new version.
+	private final IEventBRoot newRoot;
+
+	// The changes, in document order of the new version, then the removals.
+	private final List<Change> changes;
+
+	/**
+	 * Constructor: Create a difference.
+	 */
+	private EventBDiff(IEventBRoot oldRoot, IEventBRoot newRoot,
+			List<Change> changes) {
+		this.oldRoot = oldRoot;
+		this.newRoot = newRoot;
+		this.changes = Collections.unmodifiableList(changes);
+	}
+
+	/**
+	 * Compares two EXISTING machines or two EXISTING contexts.
+	 *
+	 * @param oldRoot
+	 *            the old version.
+	 * @param newRoot
+	 *            the new version, of the same kind as the old version.
+	 * @return the difference between the two versions.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBDiff compare(IEventBRoot oldRoot, IEventBRoot newRoot)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(oldRoot, Messages.error_NullComponent);
+		Assert.isNotNull(newRoot, Messages.error_NullComponent);
+		Assert.isTrue(
+				(oldRoot instanceof IMachineRoot && newRoot instanceof IMachineRoot)
+						|| (oldRoot instanceof IContextRoot && newRoot instanceof IContextRoot),
+				Messages.bind(Messages.error_IncompatibleComponents, oldRoot,
+						newRoot));
+
+		return compare(oldRoot, newRoot,
+				EventBFingerprints.getHashedTree(oldRoot),
+				EventBFingerprints.getHashedTree(newRoot));
+	}
+
+	/**
+	 * Compares the hashed trees of two versions of a component.
+	 *
+	 * @param oldRoot
+	 *            the old version.
+	 * @param newRoot
+	 *            the new version.
+	 * @param oldTree
+	 *            the hashed tree of the old version.
+	 * @param newTree
+	 *            the hashed tree of the new version.
+	 * @return the difference between the two versions.
+	 */
+	static EventBDiff compare(IEventBRoot oldRoot, IEventBRoot newRoot,
+			HashedElement oldTree, HashedElement newTree) {
+		List<Change> changes = new ArrayList<Change>();
+		List<HashedElement> added = new ArrayList<HashedElement>();
+		List<HashedElement> removed = new ArrayList<HashedElement>();
+		compare(oldTree, newTree, changes, added, removed);
+		pairMoves(changes, added, removed);
+		return new EventBDiff(oldRoot, newRoot, changes);
+	}
+
+	/**
+	 * Returns the old version.
+	 *
+	 * @return the old version.
+	 */
+	public IEventBRoot getOldRoot() {
+		return oldRoot;
+	}
+
+	/**
+	 * Returns the new version.
+	 *
+	 * @return the new version.
+	 */
+	public IEventBRoot getNewRoot() {
+		return newRoot;
+	}
+
+	/**
+	 * Returns whether the two versions have the same content.
+	 *
+	 * @return <code>true</code> if there is no change.
+	 */
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * Returns all the changes.
+	 *
+	 * @return the changes.
+	 */
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Returns the changes of the given kind.
+	 *
+	 * @param kind
+	 *            a kind of changes.
+	 * @return the changes of this kind.
+	 */
+	public List<Change> getChanges(Kind kind) {
+		List<Change> result = new ArrayList<Change>();
+		for (Change change : changes) {
+			if (change.getKind() == kind)
+				result.add(change);
+		}
+		return result;
+	}
+
+	/*
+	 * Compares two matching elements, recording the changes and the added and
+	 * removed elements.
+	 */
+	private static void compare(HashedElement oldElement,
+			HashedElement newElement, List<Change> changes,
+			List<HashedElement> added, List<HashedElement> removed) {
+		if (oldElement.getSubtreeHash() == newElement.getSubtreeHash())
+			return;
+		if (oldElement.getContentHash() != newElement.getContentHash())
+			changes.add(new Change(Kind.MODIFIED, oldElement.getElement(),
+					newElement.getElement()));
+
+		// Match the children by type and key, in order.
+		List<HashedElement> oldChildren = oldElement.getChildren();
+		List<HashedElement> newChildren = newElement.getChildren();
+		Map<String, Deque<Integer>> unmatched = new HashMap<String, Deque<Integer>>();
+		for (int i = 0; i < oldChildren.size(); i++) {
+			String key = getMatchKey(oldChildren.get(i));
+			Deque<Integer> indexes = unmatched.get(key);
+			if (indexes == null) {
+				indexes = new ArrayDeque<Integer>();
+				unmatched.put(key, indexes);
+			}
+			indexes.add(i);
+		}
+		int[] oldIndexes = new int[newChildren.size()];
+		boolean[] matched = new boolean[oldChildren.size()];
+		for (int j = 0; j < newChildren.size(); j++) {
+			Deque<Integer> indexes = unmatched.get(getMatchKey(newChildren
+					.get(j)));
+			if (indexes == null || indexes.isEmpty()) {
+				oldIndexes[j] = -1;
+			} else {
+				oldIndexes[j] = indexes.poll();
+				matched[oldIndexes[j]] = true;
+			}
+		}
+
+		// Matched children outside of a longest increasing sequence of old
+		// positions have been moved.
+		boolean[] inOrder = getLongestIncreasingSubsequence(oldIndexes);
+		for (int j = 0; j < newChildren.size(); j++) {
+			HashedElement newChild = newChildren.get(j);
+			if (oldIndexes[j] == -1) {
+				changes.add(new Change(Kind.ADDED, null, newChild.getElement()));
+				added.add(newChild);
+				continue;
+			}
+			HashedElement oldChild = oldChildren.get(oldIndexes[j]);
+			if (!inOrder[j])
+				changes.add(new Change(Kind.MOVED, oldChild.getElement(),
+						newChild.getElement()));
+			compare(oldChild, newChild, changes, added, removed);
+		}
+		for (int i = 0; i < oldChildren.size(); i++) {
+			if (!matched[i])
+				removed.add(oldChildren.get(i));
+		}
+	}
+
+	/*
+	 * Records the removed elements, reporting an added element with the same
+	 * content as a removed one as moved.
+	 */
+	private static void pairMoves(List<Change> changes,
+			List<HashedElement> added, List<HashedElement> removed) {
+		Map<Long, Deque<HashedElement>> bySubtree = new HashMap<Long, Deque<HashedElement>>();
+		for (HashedElement element : removed) {
+			Deque<HashedElement> elements = bySubtree.get(element
+					.getSubtreeHash());
+			if (elements == null) {
+				elements = new ArrayDeque<HashedElement>();
+				bySubtree.put(element.getSubtreeHash(), elements);
+			}
+			elements.add(element);
+		}
+
+		// The added elements are in the same order as the ADDED changes.
+		Set<HashedElement> moved = new HashSet<HashedElement>();
+		Iterator<HashedElement> addedIt = added.iterator();
+		for (ListIterator<Change> it = changes.listIterator(); it.hasNext();) {
+			Change change = it.next();
+			if (change.getKind() != Kind.ADDED)
+				continue;
+			HashedElement element = addedIt.next();
+			Deque<HashedElement> candidates = bySubtree.get(element
+					.getSubtreeHash());
+			if (candidates == null || candidates.isEmpty())
+				continue;
+			HashedElement oldElement = candidates.poll();
+			moved.add(oldElement);
+			it.set(new Change(Kind.MOVED, oldElement.getElement(), element
+					.getElement()));
+		}
+		for (HashedElement element : removed) {
+			if (!moved.contains(element))
+				changes.add(new Change(Kind.REMOVED, element.getElement(),
+						null));
+		}
+	}
+
+	/*
+	 * Returns the key used to match an element with its other version among
+	 * its siblings.
+	 */
+	private static String getMatchKey(HashedElement element) {
+		return element.getElement().getElementType().getId() + ':' //$NON-NLS-1$
+				+ element.getKey();
+	}
+
+	/*
+	 * Marks the positions of a longest increasing subsequence of the
+	 * non-negative values of an array (patience sorting).
+	 */
+	private static boolean[] getLongestIncreasingSubsequence(int[] values) {
+		int n = values.length;
+		// tails[k]: position of the smallest tail of a sequence of length k+1.
+		int[] tails = new int[n];
+		int[] previous = new int[n];
+		int length = 0;
+		for (int j = 0; j < n; j++) {
+			if (values[j] < 0)
+				continue;
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[tails[middle]] < values[j])
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			previous[j] = low == 0 ? -1 : tails[low - 1];
+			tails[low] = j;
+			if (low == length)
+				length++;
+		}
+		boolean[] result = new boolean[n];
+		for (int j = length == 0 ? -1 : tails[length - 1]; j != -1; j = previous[j]) {
+			result[j] = true;
+		}
+		return result;
+	}
+
+}
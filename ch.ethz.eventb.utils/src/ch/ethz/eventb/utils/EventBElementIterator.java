@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.core.runtime.Assert;
+import org.eventb.core.IAction;
+import org.eventb.core.IAxiom;
+import org.eventb.core.ICarrierSet;
+import org.eventb.core.IConstant;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IExtendsContext;
+import org.eventb.core.IGuard;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IParameter;
+import org.eventb.core.IRefinesEvent;
+import org.eventb.core.IRefinesMachine;
+import org.eventb.core.ISeesContext;
+import org.eventb.core.IVariable;
+import org.eventb.core.IVariant;
+import org.eventb.core.IWitness;
+import org.rodinp.core.IElementType;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IInternalElementType;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * A lazy depth-first iterator over the internal elements of an Event-B
+ * project or of a single element, in document order. Only one array of
+ * children is held per level of the current path, so a full scan of a
+ * project uses memory proportional to the depth of the element tree rather
+ * than to its size.
+ * </p>
+ * <p>
+ * When iterating over the elements of a given type, the traversal only
+ * descends into the elements which can contain elements of this type (e.g.
+ * only machines and events when looking for guards), and fetches only the
+ * relevant children where possible. For element types unknown to Event-B,
+ * every element is visited.
+ * </p>
+ * <p>
+ * Database failures are reported as {@link IllegalStateException} wrapping
+ * the original {@link RodinDBException}.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @param <T>
+ *            the type of the returned elements.
+ * @see EventBColumnarModel
+ * @since 0.3.0
+ */
+public final class EventBElementIterator<T extends IInternalElement>
+		implements Iterator<T> {
+
+	// The known child types of the Event-B element types.
+	private static final Map<IElementType<?>, List<IElementType<?>>> CHILD_TYPES = new HashMap<IElementType<?>, List<IElementType<?>>>();
+
+	static {
+		CHILD_TYPES.put(IMachineRoot.ELEMENT_TYPE, Arrays
+				.<IElementType<?>> asList(IRefinesMachine.ELEMENT_TYPE,
+						ISeesContext.ELEMENT_TYPE, IVariable.ELEMENT_TYPE,
+						IInvariant.ELEMENT_TYPE, IVariant.ELEMENT_TYPE,
+						IEvent.ELEMENT_TYPE));
+		CHILD_TYPES.put(IEvent.ELEMENT_TYPE, Arrays.<IElementType<?>> asList(
+				IRefinesEvent.ELEMENT_TYPE, IParameter.ELEMENT_TYPE,
+				IGuard.ELEMENT_TYPE, IWitness.ELEMENT_TYPE,
+				IAction.ELEMENT_TYPE));
+		CHILD_TYPES.put(IContextRoot.ELEMENT_TYPE, Arrays
+				.<IElementType<?>> asList(IExtendsContext.ELEMENT_TYPE,
+						ICarrierSet.ELEMENT_TYPE, IConstant.ELEMENT_TYPE,
+						IAxiom.ELEMENT_TYPE));
+	}
+
+	/*
+	 * A level of the current path: the children being iterated.
+	 */
+	private static final class Frame {
+
+		private final IRodinElement[] elements;
+
+		private int index;
+
+		private Frame(IRodinElement[] elements) {
+			this.elements = elements;
+		}
+
+	}
+
+	// The type of the returned elements, or null for all elements.
+	private final IInternalElementType<T> type;
+
+	// The types of the elements to descend into, or null for all.
+	private final Set<IElementType<?>> containerTypes;
+
+	// The current path.
+	private final Deque<Frame> path = new ArrayDeque<Frame>();
+
+	// The next element to return, or null.
+	private T next;
+
+	/**
+	 * Constructor: Create an iterator over some top-level elements and their
+	 * descendants.
+	 */
+	private EventBElementIterator(IRodinElement[] tops,
+			IInternalElementType<T> type) {
+		this.type = type;
+		this.containerTypes = type == null ? null : getContainerTypes(type);
+		path.push(new Frame(tops));
+	}
+
+	/**
+	 * Returns an iterator over all the internal elements of the machines and
+	 * contexts of an EXISTING Event-B project, starting with the root of each
+	 * component. The generated files (statically checked, proof obligation,
+	 * proof and proof status files) are not visited.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return an iterator over the elements of the project.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBElementIterator<IInternalElement> iterate(
+			IEventBProject prj) throws RodinDBException {
+		return iterate(prj, null);
+	}
+
+	/**
+	 * Returns an iterator over the internal elements of the given type of the
+	 * machines and contexts of an EXISTING Event-B project. The contexts are
+	 * visited first, then the machines. The generated files are not visited.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @param type
+	 *            the type of the elements, or <code>null</code> for all
+	 *            elements.
+	 * @return an iterator over the elements of the project.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static <T extends IInternalElement> EventBElementIterator<T> iterate(
+			IEventBProject prj, IInternalElementType<T> type)
+			throws RodinDBException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IRodinElement> roots = new ArrayList<IRodinElement>();
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		return new EventBElementIterator<T>(
+				roots.toArray(new IRodinElement[roots.size()]), type);
+	}
+
+	/**
+	 * Returns an iterator over an element and its descendants of the given
+	 * type.
+	 *
+	 * @param element
+	 *            an internal element.
+	 * @param type
+	 *            the type of the elements, or <code>null</code> for all
+	 *            elements.
+	 * @return an iterator over the element and its descendants.
+	 */
+	public static <T extends IInternalElement> EventBElementIterator<T> iterate(
+			IInternalElement element, IInternalElementType<T> type) {
+		return new EventBElementIterator<T>(new IRodinElement[] { element },
+				type);
+	}
+
+	/**
+	 * Returns a sequential stream over the internal elements of the given type
+	 * of the machines and contexts of an EXISTING Event-B project, in the
+	 * order of {@link #iterate(IEventBProject, IInternalElementType)}. The
+	 * stream is lazy: elements are read from the database as the stream is
+	 * consumed.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @param type
+	 *            the type of the elements, or <code>null</code> for all
+	 *            elements.
+	 * @return a stream over the elements of the project.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static <T extends IInternalElement> Stream<T> stream(
+			IEventBProject prj, IInternalElementType<T> type)
+			throws RodinDBException {
+		return iterate(prj, type).stream();
+	}
+
+	/**
+	 * Returns a sequential stream over the remaining elements of this
+	 * iterator.
+	 *
+	 * @return a stream over the remaining elements.
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null)
+			next = advance();
+		return next != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		T result = next;
+		next = null;
+		return result;
+	}
+
+	/*
+	 * Moves to the next element to return, or returns null at the end.
+	 */
+	private T advance() {
+		try {
+			while (!path.isEmpty()) {
+				Frame frame = path.peek();
+				if (frame.index == frame.elements.length) {
+					path.pop();
+					continue;
+				}
+				IRodinElement element = frame.elements[frame.index++];
+				if (!(element instanceof IInternalElement))
+					continue;
+				IInternalElement internal = (IInternalElement) element;
+				IElementType<?> elementType = internal.getElementType();
+				if (containerTypes == null
+						|| containerTypes.contains(elementType)) {
+					IRodinElement[] children = getRelevantChildren(internal);
+					if (children.length != 0)
+						path.push(new Frame(children));
+				}
+				if (type == null || elementType == type) {
+					@SuppressWarnings("unchecked")
+					T result = (T) internal;
+					return result;
+				}
+			}
+			return null;
+		} catch (RodinDBException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Returns the children of an element which may be or contain elements of
+	 * the type of the iterator.
+	 */
+	private IRodinElement[] getRelevantChildren(IInternalElement element)
+			throws RodinDBException {
+		if (!element.exists())
+			return new IRodinElement[0];
+		if (containerTypes != null) {
+			List<IElementType<?>> childTypes = CHILD_TYPES.get(element
+					.getElementType());
+			IElementType<?> relevant = null;
+			int count = 0;
+			for (IElementType<?> childType : childTypes) {
+				if (childType == type || containerTypes.contains(childType)) {
+					relevant = childType;
+					count++;
+				}
+			}
+			if (count == 1)
+				return element.getChildrenOfType(relevant);
+		}
+		return element.getChildren();
+	}
+
+	/*
+	 * Returns the types of the elements which can contain elements of a given
+	 * type, or null if the type is unknown to Event-B.
+	 */
+	private static Set<IElementType<?>> getContainerTypes(
+			IElementType<?> target) {
+		Set<IElementType<?>> result = new HashSet<IElementType<?>>();
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Map.Entry<IElementType<?>, List<IElementType<?>>> entry : CHILD_TYPES
+					.entrySet()) {
+				if (result.contains(entry.getKey()))
+					continue;
+				for (IElementType<?> childType : entry.getValue()) {
+					if (childType == target || result.contains(childType)) {
+						result.add(entry.getKey());
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+		if (result.isEmpty() && !CHILD_TYPES.containsKey(target))
+			return null;
+		return Collections.unmodifiableSet(result);
+	}
+
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEventBRoot;
+import org.rodinp.core.IInternalElement;
+
+import ch.ethz.eventb.internal.utils.ComponentCache;
+import ch.ethz.eventb.internal.utils.HashedElement;
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * Content fingerprints of Event-B components and of their elements.
+ * </p>
+ * <p>
+ * The fingerprint of an element is a 64-bit hash of its type, of its
+ * attributes and of the fingerprints of its children, in order. It does not
+ * depend on the element names nor on the modification stamp of the file, so
+ * that saving a component without changing it, or regenerating it with the
+ * same content, leaves all its fingerprints unchanged. Clients caching
+ * results per component, event or clause can thus use fingerprints rather
+ * than timestamps to decide whether their results are still valid.
+ * </p>
+ * <p>
+ * Fingerprints are computed in one pass over a component and cached until
+ * its file is modified. Components with unsaved changes are read again on
+ * each call.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBDiff
+ * @since 0.3.0
+ */
+public final class EventBFingerprints {
+
+	/*
+	 * The hashed tree of a component and the fingerprints of its elements.
+	 */
+	private static final class Fingerprints {
+
+		private final HashedElement tree;
+
+		private final Map<IInternalElement, Long> elements;
+
+		private Fingerprints(HashedElement tree) {
+			this.tree = tree;
+			Map<IInternalElement, Long> map = new HashMap<IInternalElement, Long>();
+			Deque<HashedElement> stack = new ArrayDeque<HashedElement>();
+			stack.push(tree);
+			while (!stack.isEmpty()) {
+				HashedElement element = stack.pop();
+				map.put(element.getElement(), element.getSubtreeHash());
+				for (HashedElement child : element.getChildren()) {
+					stack.push(child);
+				}
+			}
+			this.elements = Collections.unmodifiableMap(map);
+		}
+
+	}
+
+	// Cache key for the fingerprints of a component.
+	private static final ComponentCache.Key<Fingerprints> FINGERPRINTS = new ComponentCache.Key<Fingerprints>(
+			"fingerprints"); //$NON-NLS-1$
+
+	private EventBFingerprints() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Returns the fingerprint of an EXISTING machine or context.
+	 *
+	 * @param root
+	 *            a component.
+	 * @return the fingerprint of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static long getFingerprint(IEventBRoot root) throws CoreException {
+		return getFingerprints(root).tree.getSubtreeHash();
+	}
+
+	/**
+	 * Returns the fingerprint of an EXISTING element of a component, e.g. an
+	 * event or a clause.
+	 *
+	 * @param element
+	 *            an element of a machine or of a context.
+	 * @return the fingerprint of the element.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static long getFingerprint(IInternalElement element)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(element, Messages.error_NullElement);
+		Assert.isTrue(
+				element.exists() && element.getRoot() instanceof IEventBRoot,
+				Messages.bind(Messages.error_NonExistingElement, element));
+
+		Long result = getFingerprints((IEventBRoot) element.getRoot()).elements
+				.get(element);
+		Assert.isNotNull(result,
+				Messages.bind(Messages.error_NonExistingElement, element));
+		return result;
+	}
+
+	/**
+	 * Returns the fingerprints of all the elements of an EXISTING machine or
+	 * context, including the component itself.
+	 *
+	 * @param root
+	 *            a component.
+	 * @return an unmodifiable map from the elements of the component to their
+	 *         fingerprints.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<IInternalElement, Long> getElementFingerprints(
+			IEventBRoot root) throws CoreException {
+		return getFingerprints(root).elements;
+	}
+
+	/**
+	 * Returns the hashed tree of an EXISTING machine or context.
+	 *
+	 * @param root
+	 *            a component.
+	 * @return the hashed tree of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	static HashedElement getHashedTree(IEventBRoot root) throws CoreException {
+		return getFingerprints(root).tree;
+	}
+
+	/*
+	 * Returns the cached fingerprints of a component.
+	 */
+	private static Fingerprints getFingerprints(IEventBRoot root)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(root, Messages.error_NullComponent);
+		Assert.isTrue(root.exists(), Messages.bind(
+				Messages.error_NonExistingComponent, root.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(root, FINGERPRINTS,
+				() -> new Fingerprints(HashedElement.build(root)));
+	}
+
+}
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ProjectRegistry;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBSnapshots.Event;
+import ch.ethz.eventb.utils.EventBSnapshots.Machine;
+
+/**
+ * <p>
+ * The flattened events of an Event-B project. The flattened version of an
+ * extended event contains the parameters, guards and actions inherited from
+ * the event it refines, recursively, followed by its own. The
+ * <code>INITIALISATION</code> event implicitly refines the
+ * <code>INITIALISATION</code> event of the abstract machine.
+ * </p>
+ * <p>
+ * Flattened events are read from the {@link EventBSnapshots} of the machines
+ * and memoised along the refinement chain: flattening an event reuses the
+ * flattened version of its abstract event. A memoised event is dropped when
+ * any machine of its chain changes.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBFlattenedEvents {
+
+	/**
+	 * <p>
+	 * An event with its inherited parameters, guards and actions.
+	 * </p>
+	 */
+	public static final class FlattenedEvent {
+
+		// The snapshot of the event.
+		private final Event event;
+
+		// The events of the chain, starting with this event.
+		private final List<IEvent> chain;
+
+		// The parameters, inherited first.
+		private final List<String> parameters;
+
+		// The guards, inherited first.
+		private final List<Clause> guards;
+
+		// The actions, inherited first.
+		private final List<Clause> actions;
+
+		// The machines of the chain, including the abstract machine referred
+		// to by the last event of the chain if any, even if it does not exist
+		// or does not contain the refined event.
+		private final Set<IMachineRoot> machines;
+
+		/**
+		 * Constructor: Create a flattened event.
+		 */
+		private FlattenedEvent(Event event, FlattenedEvent inherited,
+				IMachineRoot abstractMch) {
+			this.event = event;
+			List<IEvent> newChain = new ArrayList<IEvent>();
+			List<String> newParameters = new ArrayList<String>();
+			List<Clause> newGuards = new ArrayList<Clause>();
+			List<Clause> newActions = new ArrayList<Clause>();
+			Set<IMachineRoot> newMachines = new HashSet<IMachineRoot>();
+			newChain.add(event.getElement());
+			newMachines.add((IMachineRoot) event.getElement().getRoot());
+			if (abstractMch != null)
+				newMachines.add(abstractMch);
+			if (inherited != null) {
+				newChain.addAll(inherited.chain);
+				newParameters.addAll(inherited.parameters);
+				newGuards.addAll(inherited.guards);
+				newActions.addAll(inherited.actions);
+				newMachines.addAll(inherited.machines);
+			}
+			newParameters.addAll(event.getParameters());
+			newGuards.addAll(event.getGuards());
+			newActions.addAll(event.getActions());
+			this.chain = Collections.unmodifiableList(newChain);
+			this.parameters = Collections.unmodifiableList(newParameters);
+			this.guards = Collections.unmodifiableList(newGuards);
+			this.actions = Collections.unmodifiableList(newActions);
+			this.machines = newMachines;
+		}
+
+		/**
+		 * Returns the event.
+		 *
+		 * @return the event.
+		 */
+		public IEvent getElement() {
+			return event.getElement();
+		}
+
+		/**
+		 * Returns the snapshot of the event, without the inherited elements.
+		 *
+		 * @return the snapshot of the event.
+		 */
+		public Event getEvent() {
+			return event;
+		}
+
+		/**
+		 * Returns the event and the abstract events it inherits from,
+		 * starting with the event itself.
+		 *
+		 * @return the events of the refinement chain.
+		 */
+		public List<IEvent> getRefinementChain() {
+			return chain;
+		}
+
+		/**
+		 * Returns the identifiers of the inherited and own parameters.
+		 *
+		 * @return the parameters.
+		 */
+		public List<String> getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Returns the inherited and own guards.
+		 *
+		 * @return the guards.
+		 */
+		public List<Clause> getGuards() {
+			return guards;
+		}
+
+		/**
+		 * Returns the witnesses of the event. Witnesses are not inherited.
+		 *
+		 * @return the witnesses.
+		 */
+		public List<Clause> getWitnesses() {
+			return event.getWitnesses();
+		}
+
+		/**
+		 * Returns the inherited and own actions.
+		 *
+		 * @return the actions.
+		 */
+		public List<Clause> getActions() {
+			return actions;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return event.getLabel() + " " + chain; //$NON-NLS-1$
+		}
+
+	}
+
+	// The flattened events of the projects which have been queried so far.
+	private static final ProjectRegistry<EventBFlattenedEvents> flattenedEvents = new ProjectRegistry<EventBFlattenedEvents>(
+			EventBFlattenedEvents::new, EventBFlattenedEvents::setChanged);
+
+	// The Event-B project.
+	private final IEventBProject prj;
+
+	// The memoised flattened events.
+	private final Map<IEvent, FlattenedEvent> events = new HashMap<IEvent, FlattenedEvent>();
+
+	// The machines which changed since the last query. Changes are recorded
+	// without holding the lock of the queries, which may be reading the
+	// database.
+	private final Set<IEventBRoot> changed = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructor: Create an empty memo for a project.
+	 */
+	private EventBFlattenedEvents(IEventBProject prj) {
+		this.prj = prj;
+	}
+
+	/**
+	 * Returns the flattened events of an EXISTING Event-B project. Events are
+	 * flattened on demand, then kept until the machines of their refinement
+	 * chain change.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the flattened events of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBFlattenedEvents getFlattenedEvents(IEventBProject prj)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		return flattenedEvents.get(prj);
+	}
+
+	/**
+	 * Returns the Event-B project of these flattened events.
+	 *
+	 * @return the Event-B project.
+	 */
+	public IEventBProject getEventBProject() {
+		return prj;
+	}
+
+	/**
+	 * Returns the flattened version of an EXISTING event of the project.
+	 *
+	 * @param evt
+	 *            an event.
+	 * @return the flattened event.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized FlattenedEvent getFlattenedEvent(IEvent evt)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(evt, Messages.error_NullEvent);
+		Assert.isTrue(evt.exists(),
+				Messages.bind(Messages.error_NonExistingEvent, evt));
+
+		refresh();
+		return flatten(evt, new HashSet<IEvent>());
+	}
+
+	/**
+	 * Returns the flattened events of an EXISTING machine of the project, in
+	 * order.
+	 *
+	 * @param mch
+	 *            a machine.
+	 * @return the flattened events of the machine.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<FlattenedEvent> getFlattenedEvents(
+			IMachineRoot mch) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(mch, Messages.error_NullMachine);
+		Assert.isTrue(mch.exists(), Messages.bind(
+				Messages.error_NonExistingMachine, mch.getRodinFile()
+						.getBareName()));
+
+		refresh();
+		List<FlattenedEvent> result = new ArrayList<FlattenedEvent>();
+		for (Event event : EventBSnapshots.getMachineSnapshot(mch)
+				.getEvents()) {
+			result.add(flatten(event.getElement(), new HashSet<IEvent>()));
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the memoised flattened version of an event, flattening its
+	 * abstract event first if the event is extended. The visited events cut
+	 * refinement cycles.
+	 */
+	private FlattenedEvent flatten(IEvent evt, Set<IEvent> visited)
+			throws CoreException {
+		FlattenedEvent result = events.get(evt);
+		if (result != null)
+			return result;
+
+		IMachineRoot mch = (IMachineRoot) evt.getRoot();
+		Machine machine = EventBSnapshots.getMachineSnapshot(mch);
+		Event event = null;
+		for (Event candidate : machine.getEvents()) {
+			if (candidate.getElement().equals(evt))
+				event = candidate;
+		}
+		Assert.isNotNull(event,
+				Messages.bind(Messages.error_NonExistingEvent, evt));
+
+		FlattenedEvent inherited = null;
+		IMachineRoot abstractMch = null;
+		visited.add(evt);
+		if (event.isExtended()) {
+			// The abstract machine is a dependency even if the abstract event
+			// cannot be found yet.
+			abstractMch = getAbstractMachine(machine);
+			IEvent abstractEvt = getAbstractEvent(abstractMch, event);
+			if (abstractEvt != null && !visited.contains(abstractEvt))
+				inherited = flatten(abstractEvt, visited);
+		}
+		result = new FlattenedEvent(event, inherited, abstractMch);
+		events.put(evt, result);
+		return result;
+	}
+
+	/*
+	 * Returns the machine refined by a machine, or null if there is none. The
+	 * refined machine may not exist.
+	 */
+	private IMachineRoot getAbstractMachine(Machine machine) {
+		if (machine.getRefinedMachines().isEmpty())
+			return null;
+		return prj.getMachineRoot(machine.getRefinedMachines().get(0));
+	}
+
+	/*
+	 * Returns the event refined by an event in the given abstract machine, or
+	 * null if there is none.
+	 */
+	private IEvent getAbstractEvent(IMachineRoot abstractMch, Event event)
+			throws CoreException {
+		if (abstractMch == null)
+			return null;
+		String label;
+		if (IEvent.INITIALISATION.equals(event.getLabel()))
+			label = IEvent.INITIALISATION;
+		else if (!event.getRefinedEvents().isEmpty())
+			label = event.getRefinedEvents().get(0);
+		else
+			return null;
+		if (!abstractMch.exists())
+			return null;
+		Event abstractEvent = EventBSnapshots.getMachineSnapshot(abstractMch)
+				.getEvent(label);
+		return abstractEvent == null ? null : abstractEvent.getElement();
+	}
+
+	/*
+	 * Records that a component changed.
+	 */
+	private void setChanged(IEventBRoot root) {
+		if (root instanceof IMachineRoot)
+			changed.add(root);
+	}
+
+	/*
+	 * Drops the memoised events whose chain contains a machine which changed
+	 * since the last query.
+	 */
+	private void refresh() {
+		if (changed.isEmpty())
+			return;
+		// Only drain the changes seen here, others may be recorded meanwhile.
+		Set<IEventBRoot> drained = new HashSet<IEventBRoot>(changed);
+		changed.removeAll(drained);
+		for (Iterator<FlattenedEvent> it = events.values().iterator(); it
+				.hasNext();) {
+			FlattenedEvent event = it.next();
+			if (!Collections.disjoint(event.machines, drained))
+				it.remove();
+		}
+	}
+
+}
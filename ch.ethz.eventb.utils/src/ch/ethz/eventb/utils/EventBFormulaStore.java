@@ -0,0 +1,583 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.ISCAssignmentElement;
+import org.eventb.core.ISCPredicateElement;
+import org.eventb.core.ast.AssociativeExpression;
+import org.eventb.core.ast.AssociativePredicate;
+import org.eventb.core.ast.Assignment;
+import org.eventb.core.ast.AtomicExpression;
+import org.eventb.core.ast.BecomesEqualTo;
+import org.eventb.core.ast.BecomesMemberOf;
+import org.eventb.core.ast.BecomesSuchThat;
+import org.eventb.core.ast.BinaryExpression;
+import org.eventb.core.ast.BinaryPredicate;
+import org.eventb.core.ast.BoolExpression;
+import org.eventb.core.ast.BoundIdentifier;
+import org.eventb.core.ast.DefaultRewriter;
+import org.eventb.core.ast.Expression;
+import org.eventb.core.ast.ExtendedExpression;
+import org.eventb.core.ast.ExtendedPredicate;
+import org.eventb.core.ast.Formula;
+import org.eventb.core.ast.FormulaFactory;
+import org.eventb.core.ast.FreeIdentifier;
+import org.eventb.core.ast.IParseResult;
+import org.eventb.core.ast.ITypeCheckResult;
+import org.eventb.core.ast.ITypeEnvironment;
+import org.eventb.core.ast.IntegerLiteral;
+import org.eventb.core.ast.LiteralPredicate;
+import org.eventb.core.ast.MultiplePredicate;
+import org.eventb.core.ast.Predicate;
+import org.eventb.core.ast.QuantifiedExpression;
+import org.eventb.core.ast.QuantifiedPredicate;
+import org.eventb.core.ast.RelationalPredicate;
+import org.eventb.core.ast.SetExtension;
+import org.eventb.core.ast.SimplePredicate;
+import org.eventb.core.ast.Type;
+import org.eventb.core.ast.UnaryExpression;
+import org.eventb.core.ast.UnaryPredicate;
+
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.WeakValueCache;
+
+/**
+ * <p>
+ * A shared store of type-checked formulas. Each distinct formula is parsed and
+ * type-checked once for a given typing of its free identifiers, then the same
+ * instance is returned to all the callers, e.g. for the axioms of a context
+ * seen by several machines. Structurally equal sub-formulas are hash-consed:
+ * the formulas of the store share a single instance of each of their common
+ * sub-trees. Sub-trees are only shared when they print the same, i.e. with
+ * the same names of bound identifiers, but their source locations may be
+ * those of another formula.
+ * </p>
+ * <p>
+ * The store only keeps weak references to its formulas: a formula which is no
+ * longer used elsewhere can be garbage collected. Formulas returned by the
+ * store are shared and must not be modified, in particular they must not be
+ * type-checked again.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBFormulaStore {
+
+	/*
+	 * The source of a formula: its kind, its text and the factory used to
+	 * parse it.
+	 */
+	private static final class Source {
+
+		private final FormulaFactory ff;
+
+		private final boolean assignment;
+
+		private final String text;
+
+		private Source(FormulaFactory ff, boolean assignment, String text) {
+			this.ff = ff;
+			this.assignment = assignment;
+			this.text = text;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Source))
+				return false;
+			Source other = (Source) obj;
+			return ff == other.ff && assignment == other.assignment
+					&& text.equals(other.text);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * ff.hashCode() + Boolean.hashCode(assignment))
+					+ text.hashCode();
+		}
+
+	}
+
+	/*
+	 * The key of a type-checked formula: its source and the types of its free
+	 * identifiers in the type environment.
+	 */
+	private static final class TypedSource {
+
+		private final Source source;
+
+		private final Type[] types;
+
+		private TypedSource(Source source, Type[] types) {
+			this.source = source;
+			this.types = types;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TypedSource))
+				return false;
+			TypedSource other = (TypedSource) obj;
+			return source.equals(other.source)
+					&& Arrays.equals(types, other.types);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * source.hashCode() + Arrays.hashCode(types);
+		}
+
+	}
+
+	/*
+	 * A rewriter replacing each node of a formula by its canonical instance.
+	 * Formula.rewrite() rebuilds a node only when one of its children has
+	 * been replaced, so the result consists of canonical sub-trees only.
+	 */
+	private static final class HashConsingRewriter extends DefaultRewriter {
+
+		private HashConsingRewriter() {
+			super(false);
+		}
+
+		@Override
+		public Expression rewrite(AssociativeExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(AssociativePredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(AtomicExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Expression rewrite(BinaryExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(BinaryPredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(BoolExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Expression rewrite(BoundIdentifier identifier) {
+			return share(identifier);
+		}
+
+		@Override
+		public Expression rewrite(ExtendedExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(ExtendedPredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(FreeIdentifier identifier) {
+			return share(identifier);
+		}
+
+		@Override
+		public Expression rewrite(IntegerLiteral literal) {
+			return share(literal);
+		}
+
+		@Override
+		public Predicate rewrite(LiteralPredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Predicate rewrite(MultiplePredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(QuantifiedExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(QuantifiedPredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Predicate rewrite(RelationalPredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(SetExtension expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(SimplePredicate predicate) {
+			return share(predicate);
+		}
+
+		@Override
+		public Expression rewrite(UnaryExpression expression) {
+			return share(expression);
+		}
+
+		@Override
+		public Predicate rewrite(UnaryPredicate predicate) {
+			return share(predicate);
+		}
+
+	}
+
+	// The maximum number of sources whose free identifiers are remembered.
+	private static final int MAX_SOURCES = 4096;
+
+	// The canonical instances of each node, compared structurally. Equal
+	// nodes which differ in the names of their bound identifiers each have
+	// their own canonical instance.
+	private static final Map<Formula<?>, List<WeakReference<Formula<?>>>> nodes = new WeakHashMap<Formula<?>, List<WeakReference<Formula<?>>>>();
+
+	// The type-checked formulas, by source and typing.
+	private static final WeakValueCache<TypedSource, Formula<?>> formulas = new WeakValueCache<TypedSource, Formula<?>>();
+
+	// The names of the free identifiers of the sources parsed recently.
+	private static final Map<Source, String[]> identifiers = new LinkedHashMap<Source, String[]>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Source, String[]> eldest) {
+			return size() > MAX_SOURCES;
+		}
+
+	};
+
+	// The rewriter used to hash-cons the formulas.
+	private static final HashConsingRewriter rewriter = new HashConsingRewriter();
+
+	/**
+	 * Returns the shared predicate of an SC predicate element. This is
+	 * equivalent to {@link ISCPredicateElement#getPredicate(ITypeEnvironment)}
+	 * except that the predicate is only parsed once for a given typing.
+	 *
+	 * @param element
+	 *            an SC predicate element.
+	 * @param typeEnv
+	 *            the type environment of the element.
+	 * @return the shared predicate of the element.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database or if the
+	 *             predicate does not type-check.
+	 */
+	public static Predicate getPredicate(ISCPredicateElement element,
+			ITypeEnvironment typeEnv) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(element, Messages.error_NullElement);
+
+		Predicate result = getPredicate(element.getPredicateString(), typeEnv);
+		if (result == null) {
+			// Report the problem as the database does.
+			return element.getPredicate(typeEnv);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the shared assignment of an SC assignment element. This is
+	 * equivalent to
+	 * {@link ISCAssignmentElement#getAssignment(ITypeEnvironment)} except that
+	 * the assignment is only parsed once for a given typing.
+	 *
+	 * @param element
+	 *            an SC assignment element.
+	 * @param typeEnv
+	 *            the type environment of the element.
+	 * @return the shared assignment of the element.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database or if the
+	 *             assignment does not type-check.
+	 */
+	public static Assignment getAssignment(ISCAssignmentElement element,
+			ITypeEnvironment typeEnv) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(element, Messages.error_NullElement);
+
+		Assignment result = getAssignment(element.getAssignmentString(),
+				typeEnv);
+		if (result == null) {
+			// Report the problem as the database does.
+			return element.getAssignment(typeEnv);
+		}
+		return result;
+	}
+
+	/**
+	 * Parses and type-checks a predicate, or returns the shared instance of
+	 * the predicate if it has already been parsed for the same typing of its
+	 * free identifiers.
+	 *
+	 * @param predicate
+	 *            the text of a predicate.
+	 * @param typeEnv
+	 *            a type environment.
+	 * @return the shared type-checked predicate, or <code>null</code> if the
+	 *         predicate does not parse or type-check.
+	 */
+	public static Predicate getPredicate(String predicate,
+			ITypeEnvironment typeEnv) {
+		return (Predicate) get(predicate, false, typeEnv);
+	}
+
+	/**
+	 * Parses and type-checks an assignment, or returns the shared instance of
+	 * the assignment if it has already been parsed for the same typing of its
+	 * free identifiers.
+	 *
+	 * @param assignment
+	 *            the text of an assignment.
+	 * @param typeEnv
+	 *            a type environment.
+	 * @return the shared type-checked assignment, or <code>null</code> if the
+	 *         assignment does not parse or type-check.
+	 */
+	public static Assignment getAssignment(String assignment,
+			ITypeEnvironment typeEnv) {
+		return (Assignment) get(assignment, true, typeEnv);
+	}
+
+	/**
+	 * Returns the canonical instance of a formula. The sub-trees of a
+	 * type-checked formula are hash-consed as well, an unchecked formula is
+	 * shared as a whole. The given formula must not be modified afterwards.
+	 *
+	 * @param formula
+	 *            a formula.
+	 * @return the canonical formula structurally equal to the given one.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Formula<T>> T intern(T formula) {
+		// Assert preconditions.
+		Assert.isNotNull(formula, Messages.error_NullFormula);
+
+		if (!formula.isTypeChecked())
+			return share(formula);
+		// Assignments cannot be rewritten, their children are shared by hand.
+		if (formula instanceof Assignment)
+			return (T) share(internChildren((Assignment) formula));
+		return share(formula.rewrite(rewriter));
+	}
+
+	/**
+	 * Returns the number of distinct nodes currently held by the store.
+	 *
+	 * @return the number of distinct nodes.
+	 */
+	public static synchronized int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Forgets all the formulas of the store. Formulas returned previously
+	 * remain valid, but will no longer be shared with the new ones.
+	 */
+	public static synchronized void clear() {
+		nodes.clear();
+		formulas.clear();
+		identifiers.clear();
+	}
+
+	/*
+	 * Returns the shared type-checked formula of a source, or null if it does
+	 * not parse or type-check. Only the accesses to the maps are synchronised,
+	 * formulas are parsed, type-checked and hash-consed concurrently.
+	 */
+	private static Formula<?> get(String text, boolean assignment,
+			ITypeEnvironment typeEnv) {
+		// Assert preconditions.
+		Assert.isNotNull(text, Messages.error_NullFormula);
+		Assert.isNotNull(typeEnv, Messages.error_NullTypeEnvironment);
+
+		FormulaFactory ff = typeEnv.getFormulaFactory();
+		Source source = new Source(ff, assignment, text);
+		String[] names = getIdentifiers(source);
+		if (names != null) {
+			Formula<?> result = getFormula(getKey(source, names, typeEnv));
+			if (result != null)
+				return result;
+		}
+
+		IParseResult parseResult = assignment ? ff.parseAssignment(text, null)
+				: ff.parsePredicate(text, null);
+		if (parseResult.hasProblem())
+			return null;
+		Formula<?> parsed = assignment ? parseResult.getParsedAssignment()
+				: parseResult.getParsedPredicate();
+		FreeIdentifier[] idents = parsed.getFreeIdentifiers();
+		names = new String[idents.length];
+		for (int i = 0; i < idents.length; i++) {
+			names[i] = idents[i].getName();
+		}
+		putIdentifiers(source, names);
+		ITypeCheckResult typeCheckResult = parsed.typeCheck(typeEnv);
+		if (typeCheckResult.hasProblem())
+			return null;
+		Formula<?> result = assignment ? intern((Assignment) parsed)
+				: intern((Predicate) parsed);
+		return putFormula(getKey(source, names, typeEnv), result);
+	}
+
+	/*
+	 * Returns the names of the free identifiers of a source, or null if the
+	 * source has not been parsed recently.
+	 */
+	private static synchronized String[] getIdentifiers(Source source) {
+		return identifiers.get(source);
+	}
+
+	/*
+	 * Remembers the names of the free identifiers of a source.
+	 */
+	private static synchronized void putIdentifiers(Source source,
+			String[] names) {
+		identifiers.put(source, names);
+	}
+
+	/*
+	 * Returns the type-checked formula of a key, or null if there is none.
+	 */
+	private static synchronized Formula<?> getFormula(TypedSource key) {
+		return formulas.get(key);
+	}
+
+	/*
+	 * Stores the type-checked formula of a key, unless another thread has
+	 * stored one in the meantime, and returns the stored formula.
+	 */
+	private static synchronized Formula<?> putFormula(TypedSource key,
+			Formula<?> formula) {
+		return formulas.putIfAbsent(key, formula);
+	}
+
+	/*
+	 * Returns a type-checked assignment built from the canonical instances of
+	 * the identifiers, expressions and predicates of the given one.
+	 */
+	private static Assignment internChildren(Assignment assignment) {
+		FormulaFactory ff = assignment.getFactory();
+		FreeIdentifier[] idents = assignment.getAssignedIdentifiers();
+		FreeIdentifier[] sharedIdents = new FreeIdentifier[idents.length];
+		for (int i = 0; i < idents.length; i++) {
+			sharedIdents[i] = (FreeIdentifier) intern(idents[i]);
+		}
+		if (assignment instanceof BecomesEqualTo) {
+			Expression[] values = ((BecomesEqualTo) assignment)
+					.getExpressions();
+			Expression[] sharedValues = new Expression[values.length];
+			for (int i = 0; i < values.length; i++) {
+				sharedValues[i] = intern(values[i]);
+			}
+			return ff.makeBecomesEqualTo(sharedIdents, sharedValues, null);
+		}
+		if (assignment instanceof BecomesMemberOf) {
+			Expression set = ((BecomesMemberOf) assignment).getSet();
+			return ff.makeBecomesMemberOf(sharedIdents[0], intern(set), null);
+		}
+		if (assignment instanceof BecomesSuchThat) {
+			BecomesSuchThat suchThat = (BecomesSuchThat) assignment;
+			return ff.makeBecomesSuchThat(sharedIdents,
+					suchThat.getPrimedIdents(),
+					intern(suchThat.getCondition()), null);
+		}
+		// Unknown kind of assignment: share it as a whole.
+		return assignment;
+	}
+
+	/*
+	 * Returns the key of a source for the types of its free identifiers.
+	 */
+	private static TypedSource getKey(Source source, String[] names,
+			ITypeEnvironment typeEnv) {
+		Type[] types = new Type[names.length];
+		for (int i = 0; i < names.length; i++) {
+			types[i] = typeEnv.getType(names[i]);
+		}
+		return new TypedSource(source, types);
+	}
+
+	/*
+	 * Returns the canonical instance of a single node. Formula.equals()
+	 * ignores the names of bound identifiers, so equal nodes are only shared
+	 * when they also print the same.
+	 */
+	@SuppressWarnings("unchecked")
+	private static synchronized <T> T share(Formula<?> node) {
+		List<WeakReference<Formula<?>>> refs = nodes.get(node);
+		if (refs == null) {
+			refs = new ArrayList<WeakReference<Formula<?>>>(1);
+			nodes.put(node, refs);
+		}
+		String image = null;
+		for (Iterator<WeakReference<Formula<?>>> it = refs.iterator(); it
+				.hasNext();) {
+			Formula<?> candidate = it.next().get();
+			if (candidate == null) {
+				it.remove();
+				continue;
+			}
+			if (candidate == node)
+				return (T) candidate;
+			if (image == null)
+				image = node.toString();
+			if (image.equals(candidate.toString()))
+				return (T) candidate;
+		}
+		refs.add(new WeakReference<Formula<?>>(node));
+		return (T) node;
+	}
+
+	/**
+	 * Utility classes shall not have a public or default constructor.
+	 */
+	private EventBFormulaStore() {
+		// Do nothing
+	}
+
+}
@@ -0,0 +1,587 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Assert;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.rodinp.core.ElementChangedEvent;
+import org.rodinp.core.IElementChangedListener;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinElementDelta;
+import org.rodinp.core.IRodinFile;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinCore;
+
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * A stream of the changes made to the machines and contexts of the
+ * workspace, derived from the deltas of the Rodin database. Changes are
+ * reported at the level of the elements (e.g. an invariant added, the
+ * attributes of a guard changed) and of the components (e.g. a context
+ * removed).
+ * </p>
+ * <p>
+ * Changes are coalesced: the changes received within a time window following
+ * a first change are published together as one {@link Batch}, in which each
+ * element appears at most once and changes within added or removed elements
+ * are dropped. A batch with more changes than a given limit is summarised as
+ * one change per component. Subscribers are served through a
+ * {@link SubmissionPublisher}: a subscriber which does not keep up delays the
+ * next batches, which keep coalescing the changes in the meantime.
+ * </p>
+ * <p>
+ * The stream listens to the database from its creation until it is
+ * {@link #close() closed}.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBModelChanges implements
+		Flow.Publisher<EventBModelChanges.Batch>, AutoCloseable {
+
+	/**
+	 * <p>
+	 * The kinds of changes.
+	 * </p>
+	 */
+	public enum Kind {
+
+		/**
+		 * A project has been removed or closed.
+		 */
+		PROJECT_REMOVED,
+
+		/**
+		 * A component has been added.
+		 */
+		COMPONENT_ADDED,
+
+		/**
+		 * A component has been changed, without details about its elements.
+		 */
+		COMPONENT_CHANGED,
+
+		/**
+		 * A component has been removed.
+		 */
+		COMPONENT_REMOVED,
+
+		/**
+		 * An element has been added to a component.
+		 */
+		ELEMENT_ADDED,
+
+		/**
+		 * The attributes of an element (e.g. the predicate of a guard) have
+		 * been changed, or the element has been reordered.
+		 */
+		ELEMENT_CHANGED,
+
+		/**
+		 * An element has been removed from a component.
+		 */
+		ELEMENT_REMOVED
+
+	}
+
+	/**
+	 * <p>
+	 * A change of a project, of a component or of an element.
+	 * </p>
+	 */
+	public static final class Change {
+
+		// The kind of the change.
+		private final Kind kind;
+
+		// The changed element.
+		private final IRodinElement element;
+
+		/**
+		 * Constructor: Create a change.
+		 */
+		private Change(Kind kind, IRodinElement element) {
+			this.kind = kind;
+			this.element = element;
+		}
+
+		/**
+		 * Returns the kind of the change.
+		 *
+		 * @return the kind of the change.
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the changed element: a Rodin project, the root of a
+		 * component or an element of a component. The element may no longer
+		 * exist.
+		 *
+		 * @return the changed element.
+		 */
+		public IRodinElement getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the component of the changed element.
+		 *
+		 * @return the machine or context root, or <code>null</code> for the
+		 *         change of a project.
+		 */
+		public IEventBRoot getComponent() {
+			if (element instanceof IInternalElement)
+				return (IEventBRoot) ((IInternalElement) element).getRoot();
+			return null;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return kind + " " + element; //$NON-NLS-1$
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * The coalesced changes received within a time window.
+	 * </p>
+	 */
+	public static final class Batch {
+
+		// The coalesced changes.
+		private final List<Change> changes;
+
+		// The number of changes received.
+		private final int receivedCount;
+
+		// Whether the changes have been summarised per component.
+		private final boolean summarised;
+
+		/**
+		 * Constructor: Create a batch.
+		 */
+		private Batch(List<Change> changes, int receivedCount,
+				boolean summarised) {
+			this.changes = Collections.unmodifiableList(changes);
+			this.receivedCount = receivedCount;
+			this.summarised = summarised;
+		}
+
+		/**
+		 * Returns the coalesced changes, in the order in which the elements
+		 * first changed.
+		 *
+		 * @return the changes.
+		 */
+		public List<Change> getChanges() {
+			return changes;
+		}
+
+		/**
+		 * Returns the changes of a given kind.
+		 *
+		 * @param kind
+		 *            a kind of change.
+		 * @return the changes of the given kind.
+		 */
+		public List<Change> getChanges(Kind kind) {
+			List<Change> result = new ArrayList<Change>();
+			for (Change change : changes) {
+				if (change.getKind() == kind)
+					result.add(change);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the components affected by the changes.
+		 *
+		 * @return the affected machine and context roots.
+		 */
+		public Set<IEventBRoot> getComponents() {
+			Set<IEventBRoot> result = new LinkedHashSet<IEventBRoot>();
+			for (Change change : changes) {
+				IEventBRoot component = change.getComponent();
+				if (component != null)
+					result.add(component);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the number of changes received before coalescing.
+		 *
+		 * @return the number of changes received.
+		 */
+		public int getReceivedCount() {
+			return receivedCount;
+		}
+
+		/**
+		 * Tells whether the changes have been summarised as one change per
+		 * component, because there were too many of them.
+		 *
+		 * @return <code>true</code> if the changes have been summarised.
+		 */
+		public boolean isSummarised() {
+			return summarised;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return changes.toString();
+		}
+
+	}
+
+	/**
+	 * The default maximum number of changes of a batch before it is
+	 * summarised per component.
+	 */
+	public static final int DEFAULT_MAX_CHANGES = 1000;
+
+	// The publisher serving the subscribers.
+	private final SubmissionPublisher<Batch> publisher;
+
+	// The scheduler flushing the batches.
+	private final ScheduledExecutorService scheduler;
+
+	// The coalescing window, in milliseconds.
+	private final long window;
+
+	// The maximum number of changes of a batch.
+	private final int maxChanges;
+
+	// The listener to the Rodin database.
+	private final IElementChangedListener listener = this::elementChanged;
+
+	// The coalesced changes of the current window.
+	private Map<IRodinElement, Kind> pending = new LinkedHashMap<IRodinElement, Kind>();
+
+	// The number of changes received in the current window.
+	private int receivedCount;
+
+	// The scheduled flush of the current window, or null.
+	private ScheduledFuture<?> scheduledFlush;
+
+	/**
+	 * Creates a stream of model changes coalesced within the given window,
+	 * summarised above {@link #DEFAULT_MAX_CHANGES} changes.
+	 *
+	 * @param window
+	 *            the coalescing window.
+	 * @param unit
+	 *            the unit of the window.
+	 */
+	public EventBModelChanges(long window, TimeUnit unit) {
+		this(window, unit, DEFAULT_MAX_CHANGES);
+	}
+
+	/**
+	 * Creates a stream of model changes coalesced within the given window.
+	 *
+	 * @param window
+	 *            the coalescing window.
+	 * @param unit
+	 *            the unit of the window.
+	 * @param maxChanges
+	 *            the maximum number of changes of a batch before it is
+	 *            summarised per component.
+	 */
+	public EventBModelChanges(long window, TimeUnit unit, int maxChanges) {
+		// Assert preconditions.
+		Assert.isTrue(window >= 0,
+				Messages.bind(Messages.error_InvalidWindow, window));
+		Assert.isTrue(maxChanges > 0,
+				Messages.bind(Messages.error_InvalidMaxChanges, maxChanges));
+
+		this.window = unit.toMillis(window);
+		this.maxChanges = maxChanges;
+		this.publisher = new SubmissionPublisher<Batch>();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Event-B model changes"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		RodinCore.addElementChangedListener(listener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.concurrent.Flow.Publisher#subscribe(Flow.Subscriber)
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super Batch> subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Stops listening to the database, publishes the pending changes and
+	 * completes the subscribers. The pending changes are published after the
+	 * batches already being published, and this method returns once they
+	 * have been submitted to the subscribers. Hence it blocks while a
+	 * subscriber has no room for them, and must not be called from a
+	 * subscriber.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (scheduler.isShutdown())
+				return;
+			RodinCore.removeElementChangedListener(listener);
+			// Batches are only published from the scheduler thread, hence
+			// the final flush is published after any flush in progress.
+			if (scheduledFlush != null)
+				scheduledFlush.cancel(false);
+			scheduler.submit(this::flush);
+			scheduler.shutdown();
+		}
+		try {
+			scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		publisher.close();
+	}
+
+	/*
+	 * Records the changes of a delta and schedules the flush of the window.
+	 */
+	private synchronized void elementChanged(ElementChangedEvent event) {
+		if (scheduler.isShutdown())
+			return;
+		visit(event.getDelta());
+		if (!pending.isEmpty() && scheduledFlush == null)
+			scheduledFlush = scheduler.schedule(this::flush, window,
+					TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * Visits a delta down to the level of Rodin files.
+	 */
+	private void visit(IRodinElementDelta delta) {
+		IRodinElement element = delta.getElement();
+		if (element instanceof IRodinProject) {
+			if (delta.getKind() == IRodinElementDelta.REMOVED
+					|| (delta.getFlags() & IRodinElementDelta.F_CLOSED) != 0) {
+				record(Kind.PROJECT_REMOVED, element);
+				return;
+			}
+		} else if (element instanceof IRodinFile) {
+			IInternalElement root = ((IRodinFile) element).getRoot();
+			if (root instanceof IMachineRoot || root instanceof IContextRoot)
+				visitComponent(delta, root);
+			return;
+		}
+		for (IRodinElementDelta child : delta.getAffectedChildren()) {
+			visit(child);
+		}
+	}
+
+	/*
+	 * Visits the delta of the file of a component.
+	 */
+	private void visitComponent(IRodinElementDelta delta, IInternalElement root) {
+		switch (delta.getKind()) {
+		case IRodinElementDelta.ADDED:
+			record(Kind.COMPONENT_ADDED, root);
+			return;
+		case IRodinElementDelta.REMOVED:
+			record(Kind.COMPONENT_REMOVED, root);
+			return;
+		default:
+			break;
+		}
+		if ((delta.getFlags() & IRodinElementDelta.F_CONTENT) != 0) {
+			// The file changed on disk: there is no detail.
+			record(Kind.COMPONENT_CHANGED, root);
+			return;
+		}
+		for (IRodinElementDelta rootDelta : delta.getAffectedChildren()) {
+			if ((rootDelta.getFlags() & IRodinElementDelta.F_ATTRIBUTE) != 0)
+				record(Kind.COMPONENT_CHANGED, root);
+			for (IRodinElementDelta child : rootDelta.getAffectedChildren()) {
+				visitElement(child);
+			}
+		}
+	}
+
+	/*
+	 * Visits the delta of an element of a component.
+	 */
+	private void visitElement(IRodinElementDelta delta) {
+		IRodinElement element = delta.getElement();
+		switch (delta.getKind()) {
+		case IRodinElementDelta.ADDED:
+			record(Kind.ELEMENT_ADDED, element);
+			return;
+		case IRodinElementDelta.REMOVED:
+			record(Kind.ELEMENT_REMOVED, element);
+			return;
+		default:
+			break;
+		}
+		int flags = IRodinElementDelta.F_ATTRIBUTE
+				| IRodinElementDelta.F_REORDERED;
+		if ((delta.getFlags() & flags) != 0)
+			record(Kind.ELEMENT_CHANGED, element);
+		for (IRodinElementDelta child : delta.getAffectedChildren()) {
+			visitElement(child);
+		}
+	}
+
+	/*
+	 * Coalesces a change with the pending change of the same element, if any:
+	 * an addition followed by a change is an addition, an addition followed by
+	 * a removal cancels out, a removal followed by an addition is a change.
+	 */
+	private void record(Kind kind, IRodinElement element) {
+		receivedCount++;
+		Kind previous = pending.get(element);
+		if (previous == null || previous == kind) {
+			pending.put(element, kind);
+			return;
+		}
+		if (isAdded(previous)) {
+			if (isRemoved(kind))
+				pending.remove(element);
+			// An added element stays added.
+		} else if (isRemoved(previous)) {
+			pending.put(element, isAdded(kind) ? toChanged(kind) : kind);
+		} else {
+			pending.put(element, kind);
+		}
+	}
+
+	/*
+	 * Publishes the pending changes, blocking while a subscriber has no room
+	 * for them. This is only run on the scheduler thread, so that the batches
+	 * are published in order.
+	 */
+	private void flush() {
+		Batch batch;
+		synchronized (this) {
+			scheduledFlush = null;
+			if (pending.isEmpty())
+				return;
+			batch = makeBatch(pending, receivedCount);
+			pending = new LinkedHashMap<IRodinElement, Kind>();
+			receivedCount = 0;
+		}
+		publisher.submit(batch);
+	}
+
+	/*
+	 * Makes a batch from coalesced changes, dropping the changes within added
+	 * or removed elements, and summarising them if there are too many.
+	 */
+	private Batch makeBatch(Map<IRodinElement, Kind> changes, int received) {
+		List<Change> result = new ArrayList<Change>();
+		for (Map.Entry<IRodinElement, Kind> entry : changes.entrySet()) {
+			if (!isCovered(entry.getKey(), changes))
+				result.add(new Change(entry.getValue(), entry.getKey()));
+		}
+		if (result.size() <= maxChanges)
+			return new Batch(result, received, false);
+
+		Map<IRodinElement, Kind> summary = new LinkedHashMap<IRodinElement, Kind>();
+		for (Change change : result) {
+			Kind kind = change.getKind();
+			if (kind == Kind.PROJECT_REMOVED || kind == Kind.COMPONENT_ADDED
+					|| kind == Kind.COMPONENT_REMOVED)
+				summary.put(change.getElement(), kind);
+			else if (!summary.containsKey(change.getComponent()))
+				summary.put(change.getComponent(), Kind.COMPONENT_CHANGED);
+		}
+		List<Change> summarised = new ArrayList<Change>();
+		for (Map.Entry<IRodinElement, Kind> entry : summary.entrySet()) {
+			summarised.add(new Change(entry.getValue(), entry.getKey()));
+		}
+		return new Batch(summarised, received, true);
+	}
+
+	/*
+	 * Tells whether an ancestor of an element (its enclosing elements, its
+	 * component root or its project) has been added or removed.
+	 */
+	private static boolean isCovered(IRodinElement element,
+			Map<IRodinElement, Kind> changes) {
+		for (IRodinElement ancestor = element.getParent(); ancestor != null; ancestor = ancestor
+				.getParent()) {
+			Kind kind = changes.get(ancestor);
+			if (kind != null && (isAdded(kind) || isRemoved(kind)))
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Tells whether a kind of change is an addition.
+	 */
+	private static boolean isAdded(Kind kind) {
+		return kind == Kind.COMPONENT_ADDED || kind == Kind.ELEMENT_ADDED;
+	}
+
+	/*
+	 * Tells whether a kind of change is a removal.
+	 */
+	private static boolean isRemoved(Kind kind) {
+		return kind == Kind.PROJECT_REMOVED || kind == Kind.COMPONENT_REMOVED
+				|| kind == Kind.ELEMENT_REMOVED;
+	}
+
+	/*
+	 * Returns the change corresponding to an addition.
+	 */
+	private static Kind toChanged(Kind kind) {
+		return kind == Kind.COMPONENT_ADDED ? Kind.COMPONENT_CHANGED
+				: Kind.ELEMENT_CHANGED;
+	}
+
+}
@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IAction;
+import org.eventb.core.IAxiom;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IGuard;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IVariant;
+import org.eventb.core.IWitness;
+import org.eventb.core.ast.FormulaFactory;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.FormulaIdentifiers;
+import ch.ethz.eventb.internal.utils.IntList;
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ParallelUtils;
+import ch.ethz.eventb.internal.utils.ProjectRegistry;
+
+/**
+ * <p>
+ * An inverted index from identifiers to the formula elements (axioms,
+ * invariants, variants, guards, witnesses and actions) mentioning them in an
+ * Event-B project. Every formula is parsed once; identifiers and elements are
+ * numbered and the postings are kept as primitive integer lists. The index of
+ * a project is built in parallel at first use, then updated per changed
+ * component from the Rodin element deltas.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSymbolTable
+ * @since 0.3.0
+ */
+public final class EventBOccurrenceIndex {
+
+	// The indexes of the projects which have been queried so far.
+	private static final ProjectRegistry<EventBOccurrenceIndex> indexes = new ProjectRegistry<EventBOccurrenceIndex>(
+			EventBOccurrenceIndex::build, EventBOccurrenceIndex::setChanged);
+
+	// The Event-B project.
+	private final IEventBProject prj;
+
+	// The numbers of the identifiers.
+	private final Map<String, Integer> identifierIds = new HashMap<String, Integer>();
+
+	// The identifier of each identifier number.
+	private final List<String> identifiers = new ArrayList<String>();
+
+	// The postings (element numbers) of each identifier number.
+	private final List<IntList> postings = new ArrayList<IntList>();
+
+	// The numbers of the elements.
+	private final Map<IInternalElement, Integer> elementIds = new HashMap<IInternalElement, Integer>();
+
+	// The element of each element number (null if the number is free).
+	private final List<IInternalElement> elements = new ArrayList<IInternalElement>();
+
+	// The identifier numbers of each element number.
+	private final List<int[]> elementIdentifiers = new ArrayList<int[]>();
+
+	// The element numbers which can be reused.
+	private final IntList freeElementIds = new IntList();
+
+	// The element numbers of each component.
+	private final Map<IEventBRoot, int[]> componentElements = new HashMap<IEventBRoot, int[]>();
+
+	// The components which changed since the last query.
+	private final Set<IEventBRoot> changed = new LinkedHashSet<IEventBRoot>();
+
+	/**
+	 * Constructor: Create an empty index for a project.
+	 */
+	private EventBOccurrenceIndex(IEventBProject prj) {
+		this.prj = prj;
+	}
+
+	/*
+	 * Builds the index of a project, parsing the components in parallel.
+	 */
+	private static EventBOccurrenceIndex build(IEventBProject prj)
+			throws CoreException {
+		EventBOccurrenceIndex index = new EventBOccurrenceIndex(prj);
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IEventBRoot> roots = new ArrayList<IEventBRoot>();
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		Map<IEventBRoot, Map<IInternalElement, Set<String>>> occurrences = ParallelUtils
+				.map(roots, EventBOccurrenceIndex::readOccurrences,
+						Messages.progress_BuildOccurrenceIndex, null);
+		for (Map.Entry<IEventBRoot, Map<IInternalElement, Set<String>>> entry : occurrences
+				.entrySet()) {
+			index.add(entry.getKey(), entry.getValue());
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the occurrence index of an EXISTING Event-B project. The index
+	 * is built at the first call for the project, then kept up to date with
+	 * the changes of the Rodin database.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the occurrence index of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBOccurrenceIndex getOccurrenceIndex(IEventBProject prj)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		return indexes.get(prj);
+	}
+
+	/**
+	 * Returns the occurrence index of a project if it has already been built.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the occurrence index of the project, or <code>null</code>.
+	 */
+	static EventBOccurrenceIndex peekOccurrenceIndex(IEventBProject prj) {
+		return indexes.peek(prj.getRodinProject());
+	}
+
+	/**
+	 * Returns the Event-B project of this index.
+	 *
+	 * @return the Event-B project.
+	 */
+	public IEventBProject getEventBProject() {
+		return prj;
+	}
+
+	/**
+	 * Returns the formula elements of the project mentioning an identifier.
+	 * Primed occurrences in actions and witnesses count as occurrences of the
+	 * unprimed identifier.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the elements mentioning the identifier.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<IInternalElement> getOccurrences(
+			String identifier) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(identifier, Messages.error_NullIdentifier);
+
+		refresh();
+		IntList posting = getPosting(identifier);
+		if (posting == null)
+			return Collections.emptyList();
+		List<IInternalElement> result = new ArrayList<IInternalElement>(
+				posting.size());
+		for (int i = 0; i < posting.size(); i++) {
+			result.add(elements.get(posting.get(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the formula elements of a component mentioning an identifier.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the elements of the component mentioning the identifier.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<IInternalElement> getOccurrences(
+			String identifier, IEventBRoot root) throws CoreException {
+		List<IInternalElement> result = new ArrayList<IInternalElement>();
+		for (IInternalElement element : getOccurrences(identifier)) {
+			if (element.getRoot().equals(root))
+				result.add(element);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the components having formulas which mention an identifier.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the components mentioning the identifier.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Set<IEventBRoot> getComponents(String identifier)
+			throws CoreException {
+		Set<IEventBRoot> result = new LinkedHashSet<IEventBRoot>();
+		for (IInternalElement element : getOccurrences(identifier)) {
+			result.add((IEventBRoot) element.getRoot());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the identifiers mentioned in the formula of an element.
+	 *
+	 * @param element
+	 *            a formula element (axiom, invariant, variant, guard, witness
+	 *            or action).
+	 * @return the identifiers mentioned in the element, empty if the element
+	 *         is not indexed.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Set<String> getIdentifiers(IInternalElement element)
+			throws CoreException {
+		refresh();
+		Integer elementId = elementIds.get(element);
+		if (elementId == null)
+			return Collections.emptySet();
+		Set<String> result = new LinkedHashSet<String>();
+		for (int identifierId : elementIdentifiers.get(elementId)) {
+			result.add(identifiers.get(identifierId));
+		}
+		return result;
+	}
+
+	/*
+	 * Records that a component changed.
+	 */
+	private synchronized void setChanged(IEventBRoot root) {
+		changed.add(root);
+	}
+
+	/*
+	 * Re-parses the components which changed since the last query.
+	 */
+	private void refresh() throws CoreException {
+		while (!changed.isEmpty()) {
+			IEventBRoot root = changed.iterator().next();
+			remove(root);
+			if (root.exists())
+				add(root, readOccurrences(root));
+			changed.remove(root);
+		}
+	}
+
+	/*
+	 * Returns the posting of an identifier, or null.
+	 */
+	private IntList getPosting(String identifier) {
+		Integer identifierId = identifierIds.get(identifier);
+		if (identifierId == null)
+			return null;
+		return postings.get(identifierId);
+	}
+
+	/*
+	 * Adds the occurrences of a component.
+	 */
+	private void add(IEventBRoot root,
+			Map<IInternalElement, Set<String>> occurrences) {
+		int[] ids = new int[occurrences.size()];
+		int i = 0;
+		for (Map.Entry<IInternalElement, Set<String>> entry : occurrences
+				.entrySet()) {
+			int elementId = newElementId(entry.getKey());
+			int[] identifierIdsOfElement = new int[entry.getValue().size()];
+			int j = 0;
+			for (String identifier : entry.getValue()) {
+				Integer identifierId = identifierIds.get(identifier);
+				if (identifierId == null) {
+					identifierId = identifiers.size();
+					identifierIds.put(identifier, identifierId);
+					identifiers.add(identifier);
+					postings.add(new IntList(1));
+				}
+				postings.get(identifierId).add(elementId);
+				identifierIdsOfElement[j++] = identifierId;
+			}
+			elementIdentifiers.set(elementId, identifierIdsOfElement);
+			ids[i++] = elementId;
+		}
+		componentElements.put(root, ids);
+	}
+
+	/*
+	 * Removes the occurrences of a component. Identifier numbers are never
+	 * reused; element numbers are.
+	 */
+	private void remove(IEventBRoot root) {
+		int[] ids = componentElements.remove(root);
+		if (ids == null)
+			return;
+		for (int elementId : ids) {
+			for (int identifierId : elementIdentifiers.get(elementId)) {
+				postings.get(identifierId).removeValue(elementId);
+			}
+			elementIds.remove(elements.get(elementId));
+			elements.set(elementId, null);
+			elementIdentifiers.set(elementId, null);
+			freeElementIds.add(elementId);
+		}
+	}
+
+	/*
+	 * Numbers an element, reusing a free number if any.
+	 */
+	private int newElementId(IInternalElement element) {
+		int elementId;
+		if (freeElementIds.isEmpty()) {
+			elementId = elements.size();
+			elements.add(element);
+			elementIdentifiers.add(null);
+		} else {
+			elementId = freeElementIds.removeLast();
+			elements.set(elementId, element);
+		}
+		elementIds.put(element, elementId);
+		return elementId;
+	}
+
+	/*
+	 * Parses the formulas of an existing component.
+	 */
+	private static Map<IInternalElement, Set<String>> readOccurrences(
+			IEventBRoot root) throws CoreException {
+		Map<IInternalElement, Set<String>> result = new LinkedHashMap<IInternalElement, Set<String>>();
+		FormulaFactory ff = root.getFormulaFactory();
+		if (root instanceof IContextRoot) {
+			for (IAxiom axm : ((IContextRoot) root).getAxioms()) {
+				Set<String> identifiers = new LinkedHashSet<String>();
+				FormulaIdentifiers.addPredicate(ff, axm, identifiers);
+				result.put(axm, identifiers);
+			}
+		} else if (root instanceof IMachineRoot) {
+			IMachineRoot mch = (IMachineRoot) root;
+			for (IInvariant inv : mch.getInvariants()) {
+				Set<String> identifiers = new LinkedHashSet<String>();
+				FormulaIdentifiers.addPredicate(ff, inv, identifiers);
+				result.put(inv, identifiers);
+			}
+			for (IVariant var : mch.getVariants()) {
+				Set<String> identifiers = new LinkedHashSet<String>();
+				FormulaIdentifiers.addExpression(ff, var, identifiers);
+				result.put(var, identifiers);
+			}
+			for (IEvent evt : mch.getEvents()) {
+				readOccurrences(ff, evt, result);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Parses the formulas of an event.
+	 */
+	private static void readOccurrences(FormulaFactory ff, IEvent evt,
+			Map<IInternalElement, Set<String>> result)
+			throws RodinDBException {
+		for (IGuard grd : evt.getGuards()) {
+			Set<String> identifiers = new LinkedHashSet<String>();
+			FormulaIdentifiers.addPredicate(ff, grd, identifiers);
+			result.put(grd, identifiers);
+		}
+		for (IWitness wit : evt.getWitnesses()) {
+			Set<String> identifiers = new LinkedHashSet<String>();
+			FormulaIdentifiers.addPredicate(ff, wit, identifiers);
+			result.put(wit, identifiers);
+		}
+		for (IAction act : evt.getActions()) {
+			Set<String> identifiers = new LinkedHashSet<String>();
+			FormulaIdentifiers.addAssignment(ff, act, identifiers);
+			result.put(act, identifiers);
+		}
+	}
+
+}
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IPORoot;
+import org.eventb.core.IPOSequent;
+import org.eventb.core.IPOSource;
+import org.eventb.core.IPSRoot;
+import org.eventb.core.IPSStatus;
+import org.eventb.core.seqprover.IConfidence;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinProject;
+
+import ch.ethz.eventb.internal.utils.ComponentCache;
+import ch.ethz.eventb.internal.utils.ComponentCache.Key;
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ParallelUtils;
+
+/**
+ * <p>
+ * Utility class containing some useful methods to query the proof
+ * obligations of Event-B components and their proof statuses.
+ * </p>
+ * <p>
+ * The proof obligation file and the proof status file of a component are
+ * each read in a single pass. The sources of the proof obligations are cached
+ * until the proof obligation file changes, and the statistics are cached until
+ * the proof status file or the proof obligation file changes, hence repeated
+ * queries on unchanged components do not open any file. Proof files are never
+ * read.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see POStatistics
+ * @since 0.3.0
+ */
+public final class EventBPOUtils {
+
+	/*
+	 * The statistics of a component, together with the sources of the proof
+	 * obligations they were computed from.
+	 */
+	private static final class Statistics {
+
+		private final Map<String, List<IRodinElement>> sources;
+
+		private final POStatistics total;
+
+		private final Map<IRodinElement, POStatistics> elements;
+
+		private Statistics(Map<String, List<IRodinElement>> sources,
+				POStatistics total, Map<IRodinElement, POStatistics> elements) {
+			this.sources = sources;
+			this.total = total;
+			this.elements = elements;
+		}
+
+	}
+
+	// Cache key for the sources of the proof obligations of a proof
+	// obligation file, by proof obligation name.
+	private static final Key<Map<String, List<IRodinElement>>> SOURCES = new Key<Map<String, List<IRodinElement>>>(
+			"poSources"); //$NON-NLS-1$
+
+	// Cache key for the statistics of a proof status file.
+	private static final Key<Statistics> STATISTICS = new Key<Statistics>(
+			"poStatistics"); //$NON-NLS-1$
+
+	// The statistics of a component without proof obligation file.
+	private static final Statistics NO_STATISTICS = new Statistics(
+			Collections.<String, List<IRodinElement>> emptyMap(),
+			POStatistics.EMPTY,
+			Collections.<IRodinElement, POStatistics> emptyMap());
+
+	// The status of a discharged, reviewed or pending proof obligation.
+	private static final int DISCHARGED = 2;
+
+	private static final int REVIEWED = 1;
+
+	private static final int PENDING = 0;
+
+	/**
+	 * Returns the statistics of the proof obligations of an EXISTING
+	 * component (machine or context). A component which has not been through
+	 * the proof obligation generator has no proof obligation.
+	 *
+	 * @param root
+	 *            a machine or context root.
+	 * @return the statistics of the proof obligations of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static POStatistics getPOStatistics(IEventBRoot root)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(root, Messages.error_NullComponent);
+		Assert.isTrue(root.exists(), Messages.bind(
+				Messages.error_NonExistingComponent, root.getRodinFile()
+						.getBareName()));
+
+		return getStatistics(root).total;
+	}
+
+	/**
+	 * Returns the statistics of the proof obligations of an EXISTING element
+	 * of a component, e.g. an event or an invariant. The proof obligations of
+	 * an element are those having the element as a source.
+	 *
+	 * @param element
+	 *            an element of a machine or of a context.
+	 * @return the statistics of the proof obligations of the element.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static POStatistics getPOStatistics(IInternalElement element)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(element, Messages.error_NullElement);
+		Assert.isTrue(
+				element.exists() && element.getRoot() instanceof IEventBRoot,
+				Messages.bind(Messages.error_NonExistingElement, element));
+
+		POStatistics result = getStatistics((IEventBRoot) element.getRoot()).elements
+				.get(element);
+		return result == null ? POStatistics.EMPTY : result;
+	}
+
+	/**
+	 * Returns the statistics of the proof obligations of the elements of an
+	 * EXISTING component (machine or context), e.g. its events, invariants and
+	 * guards. Elements without proof obligation are not in the result. Proof
+	 * obligations whose source is an element of another component, e.g. an
+	 * abstract event, are also counted for that element.
+	 *
+	 * @param root
+	 *            a machine or context root.
+	 * @return the (unmodifiable) map from elements to the statistics of their
+	 *         proof obligations.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<IRodinElement, POStatistics> getElementPOStatistics(
+			IEventBRoot root) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(root, Messages.error_NullComponent);
+		Assert.isTrue(root.exists(), Messages.bind(
+				Messages.error_NonExistingComponent, root.getRodinFile()
+						.getBareName()));
+
+		return getStatistics(root).elements;
+	}
+
+	/**
+	 * Returns the statistics of the proof obligations of several EXISTING
+	 * components (machines or contexts). The components are independent,
+	 * hence their proof obligation and proof status files are read in
+	 * parallel on the common fork-join pool.
+	 *
+	 * @param roots
+	 *            machine or context roots.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the map from components to the statistics of their proof
+	 *         obligations, in the order of the given components.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<IEventBRoot, POStatistics> getPOStatistics(
+			Collection<? extends IEventBRoot> roots, IProgressMonitor monitor)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(roots, Messages.error_NullComponents);
+
+		return ParallelUtils.<IEventBRoot, POStatistics> map(roots,
+				EventBPOUtils::getPOStatistics,
+				Messages.progress_ReadProofStatuses, monitor);
+	}
+
+	/**
+	 * Returns the statistics of the proof obligations of all machines and
+	 * contexts of an EXISTING Event-B project, read in parallel.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the map from components to the statistics of their proof
+	 *         obligations, machines first.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 * @see #getPOStatistics(Collection, IProgressMonitor)
+	 */
+	public static Map<IEventBRoot, POStatistics> getPOStatistics(
+			IEventBProject prj, IProgressMonitor monitor) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IEventBRoot> roots = new ArrayList<IEventBRoot>();
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		return getPOStatistics(roots, monitor);
+	}
+
+	/**
+	 * Utility method for getting the (cached) statistics of a component. The
+	 * statistics are recomputed if the sources of the proof obligations have
+	 * changed since they were cached.
+	 *
+	 * @param root
+	 *            a machine or context root.
+	 * @return the statistics of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static Statistics getStatistics(IEventBRoot root)
+			throws CoreException {
+		final IPORoot poRoot = root.getPORoot();
+		if (!poRoot.exists())
+			return NO_STATISTICS;
+		final Map<String, List<IRodinElement>> sources = ComponentCache.get(
+				poRoot, SOURCES, () -> readSources(poRoot));
+
+		final IPSRoot psRoot = root.getPSRoot();
+		Statistics result = ComponentCache.get(psRoot, STATISTICS,
+				() -> computeStatistics(sources, psRoot));
+		if (result.sources != sources) {
+			result = ComponentCache.reload(psRoot, STATISTICS,
+					() -> computeStatistics(sources, psRoot));
+		}
+		return result;
+	}
+
+	/**
+	 * Utility method for reading the sources of the proof obligations of an
+	 * EXISTING proof obligation file.
+	 *
+	 * @param poRoot
+	 *            a proof obligation root.
+	 * @return the (unmodifiable) map from proof obligation names to their
+	 *         distinct sources.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static Map<String, List<IRodinElement>> readSources(
+			IPORoot poRoot) throws CoreException {
+		Map<String, List<IRodinElement>> result = new LinkedHashMap<String, List<IRodinElement>>();
+		for (IPOSequent sequent : poRoot.getSequents()) {
+			List<IRodinElement> sequentSources = new ArrayList<IRodinElement>();
+			for (IPOSource source : sequent.getSources()) {
+				IRodinElement element = source.getSource();
+				if (!sequentSources.contains(element))
+					sequentSources.add(element);
+			}
+			result.put(sequent.getElementName(), sequentSources);
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Utility method for computing the statistics of a component from the
+	 * sources of its proof obligations and from its proof status file, which
+	 * may not exist yet.
+	 *
+	 * @param sources
+	 *            the sources of the proof obligations.
+	 * @param psRoot
+	 *            a proof status root.
+	 * @return the statistics of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static Statistics computeStatistics(
+			Map<String, List<IRodinElement>> sources, IPSRoot psRoot)
+			throws CoreException {
+		// 1. The status of each proof obligation.
+		Map<String, Integer> statuses = new HashMap<String, Integer>();
+		if (psRoot.exists()) {
+			for (IPSStatus status : psRoot.getStatuses()) {
+				statuses.put(status.getElementName(), getStatus(status));
+			}
+		}
+
+		// 2. The counts of the component and of each source element: total,
+		// discharged and reviewed.
+		int[] total = new int[3];
+		Map<IRodinElement, int[]> counts = new LinkedHashMap<IRodinElement, int[]>();
+		for (Map.Entry<String, List<IRodinElement>> entry : sources
+				.entrySet()) {
+			Integer status = statuses.get(entry.getKey());
+			int value = status == null ? PENDING : status;
+			count(total, value);
+			for (IRodinElement element : entry.getValue()) {
+				int[] elementCounts = counts.get(element);
+				if (elementCounts == null) {
+					elementCounts = new int[3];
+					counts.put(element, elementCounts);
+				}
+				count(elementCounts, value);
+			}
+		}
+
+		Map<IRodinElement, POStatistics> elements = new LinkedHashMap<IRodinElement, POStatistics>();
+		for (Map.Entry<IRodinElement, int[]> entry : counts.entrySet()) {
+			elements.put(entry.getKey(), toStatistics(entry.getValue()));
+		}
+		return new Statistics(sources, toStatistics(total),
+				Collections.unmodifiableMap(elements));
+	}
+
+	/**
+	 * Utility method for classifying a proof status.
+	 *
+	 * @param status
+	 *            a proof status.
+	 * @return the status of the proof obligation: {@link #DISCHARGED},
+	 *         {@link #REVIEWED} or {@link #PENDING}.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static int getStatus(IPSStatus status) throws CoreException {
+		if (status.isBroken())
+			return PENDING;
+		int confidence = status.getConfidence();
+		if (confidence > IConfidence.REVIEWED_MAX)
+			return DISCHARGED;
+		if (confidence > IConfidence.PENDING)
+			return REVIEWED;
+		return PENDING;
+	}
+
+	/**
+	 * Utility method for counting a proof obligation.
+	 *
+	 * @param counts
+	 *            the total, discharged and reviewed counts.
+	 * @param status
+	 *            the status of the proof obligation.
+	 */
+	private static void count(int[] counts, int status) {
+		counts[0]++;
+		if (status == DISCHARGED)
+			counts[1]++;
+		else if (status == REVIEWED)
+			counts[2]++;
+	}
+
+	/**
+	 * Utility method for converting counts into statistics.
+	 *
+	 * @param counts
+	 *            the total, discharged and reviewed counts.
+	 * @return the corresponding statistics.
+	 */
+	private static POStatistics toStatistics(int[] counts) {
+		return new POStatistics(counts[0], counts[1], counts[2]);
+	}
+
+	/**
+	 * Utility classes shall not have a public or default constructor.
+	 */
+	private EventBPOUtils() {
+		// Do nothing
+	}
+
+}
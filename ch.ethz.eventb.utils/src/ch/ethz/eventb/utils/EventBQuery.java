@@ -0,0 +1,732 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.IAction;
+import org.eventb.core.IAssignmentElement;
+import org.eventb.core.IAxiom;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IExpressionElement;
+import org.eventb.core.IGuard;
+import org.eventb.core.IIdentifierElement;
+import org.eventb.core.IInvariant;
+import org.eventb.core.ILabeledElement;
+import org.eventb.core.IPredicateElement;
+import org.eventb.core.IVariable;
+import org.eventb.core.ast.FormulaFactory;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IInternalElementType;
+import org.rodinp.core.IRodinElement;
+
+import ch.ethz.eventb.internal.utils.FormulaIdentifiers;
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.utils.EventBComponentGraph.Relation;
+import ch.ethz.eventb.utils.EventBSymbolTable.Kind;
+import ch.ethz.eventb.utils.EventBSymbolTable.Symbol;
+
+/**
+ * <p>
+ * A composable query over the elements of a given type of an Event-B project,
+ * e.g.
+ * </p>
+ *
+ * <pre>
+ * EventBQuery.guards(prj).inExtendedEvents().mentioning(&quot;x&quot;).stream()
+ * EventBQuery.invariants(prj).notMentioning(Kind.VARIABLE).toList()
+ * </pre>
+ * <p>
+ * Queries are immutable: each condition returns a new query. When a query is
+ * executed, the candidate elements are taken from the
+ * {@link EventBOccurrenceIndex} for the queries on a mentioned identifier, or
+ * from the {@link EventBSymbolTable} for the queries on a declared
+ * identifier, if these indexes have already been built for the project (or
+ * if the query is {@link #indexed()}). Otherwise the candidates are streamed
+ * from the component of the query, or from the whole project, with an
+ * {@link EventBElementIterator}. The conditions are then checked cheapest
+ * first.
+ * </p>
+ * <p>
+ * Results are lazy: the database is read as the stream is consumed.
+ * Database failures while consuming the stream are reported as
+ * {@link IllegalStateException} wrapping the original exception.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @param <T>
+ *            the type of the returned elements.
+ * @since 0.3.0
+ */
+public final class EventBQuery<T extends IInternalElement> {
+
+	/**
+	 * <p>
+	 * A condition on the elements of a query.
+	 * </p>
+	 *
+	 * @param <T>
+	 *            the type of the elements.
+	 */
+	public interface Condition<T> {
+
+		/**
+		 * Checks whether an element satisfies the condition.
+		 *
+		 * @param element
+		 *            an element.
+		 * @return <code>true</code> if the element satisfies the condition.
+		 * @throws CoreException
+		 *             if a problem occurs while accessing the database.
+		 */
+		boolean test(T element) throws CoreException;
+
+	}
+
+	/*
+	 * A condition of the query, checked in increasing cost.
+	 */
+	private static abstract class Filter {
+
+		// The relative cost of the filter.
+		private final int cost;
+
+		private Filter(int cost) {
+			this.cost = cost;
+		}
+
+		abstract boolean test(IInternalElement element, Execution execution)
+				throws CoreException;
+
+	}
+
+	/*
+	 * Elements of a component.
+	 */
+	private static final class InComponent extends Filter {
+
+		private final IEventBRoot root;
+
+		private InComponent(IEventBRoot root) {
+			super(0);
+			this.root = root;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution) {
+			return root.equals(element.getRoot());
+		}
+
+	}
+
+	/*
+	 * Elements with a label.
+	 */
+	private static final class WithLabel extends Filter {
+
+		private final String label;
+
+		private WithLabel(String label) {
+			super(1);
+			this.label = label;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			return element instanceof ILabeledElement
+					&& ((ILabeledElement) element).hasLabel()
+					&& label.equals(((ILabeledElement) element).getLabel());
+		}
+
+	}
+
+	/*
+	 * Elements declaring an identifier.
+	 */
+	private static final class WithIdentifier extends Filter {
+
+		private final String identifier;
+
+		private WithIdentifier(String identifier) {
+			super(1);
+			this.identifier = identifier;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			return element instanceof IIdentifierElement
+					&& ((IIdentifierElement) element).hasIdentifierString()
+					&& identifier.equals(((IIdentifierElement) element)
+							.getIdentifierString());
+		}
+
+	}
+
+	/*
+	 * Extended events, or elements of extended events.
+	 */
+	private static final class InExtendedEvent extends Filter {
+
+		private InExtendedEvent() {
+			super(2);
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			IEvent event = getEvent(element);
+			return event != null && event.hasExtended() && event.isExtended();
+		}
+
+	}
+
+	/*
+	 * Formula elements mentioning an identifier.
+	 */
+	private static final class Mentioning extends Filter {
+
+		private final String identifier;
+
+		private Mentioning(String identifier) {
+			super(3);
+			this.identifier = identifier;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			return execution.getIdentifiers(element).contains(identifier);
+		}
+
+	}
+
+	/*
+	 * Formula elements mentioning (or not) an identifier of a kind.
+	 */
+	private static final class MentioningKind extends Filter {
+
+		private final Kind kind;
+
+		private final boolean expected;
+
+		private MentioningKind(Kind kind, boolean expected) {
+			super(4);
+			this.kind = kind;
+			this.expected = expected;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			for (String identifier : execution.getIdentifiers(element)) {
+				if (execution.isVisible(identifier, kind, element))
+					return expected;
+			}
+			return !expected;
+		}
+
+	}
+
+	/*
+	 * Elements satisfying a client condition.
+	 */
+	private static final class Where<T> extends Filter {
+
+		private final Condition<? super T> condition;
+
+		private Where(Condition<? super T> condition) {
+			super(5);
+			this.condition = condition;
+		}
+
+		@Override
+		boolean test(IInternalElement element, Execution execution)
+				throws CoreException {
+			@SuppressWarnings("unchecked")
+			T typed = (T) element;
+			return condition.test(typed);
+		}
+
+	}
+
+	/*
+	 * The state of an execution of the query: the indexes in use and the
+	 * results already computed.
+	 */
+	private static final class Execution {
+
+		private final IEventBProject prj;
+
+		// The occurrence index, or null if it is not available.
+		private final EventBOccurrenceIndex occurrences;
+
+		// The symbol table, built on demand.
+		private EventBSymbolTable symbols;
+
+		// The visible declarations already computed.
+		private final Map<String, Set<IEventBRoot>> visibleComponents = new HashMap<String, Set<IEventBRoot>>();
+
+		// The refinement chains already computed.
+		private final Map<IEventBRoot, Set<IEventBRoot>> refinedMachines = new HashMap<IEventBRoot, Set<IEventBRoot>>();
+
+		private Execution(IEventBProject prj,
+				EventBOccurrenceIndex occurrences) {
+			this.prj = prj;
+			this.occurrences = occurrences;
+		}
+
+		/*
+		 * Returns the identifiers mentioned by a formula element, from the
+		 * occurrence index or by parsing.
+		 */
+		private Set<String> getIdentifiers(IInternalElement element)
+				throws CoreException {
+			if (occurrences != null)
+				return occurrences.getIdentifiers(element);
+			Set<String> result = new HashSet<String>();
+			FormulaFactory ff = ((IEventBRoot) element.getRoot())
+					.getFormulaFactory();
+			if (element instanceof IPredicateElement)
+				FormulaIdentifiers.addPredicate(ff,
+						(IPredicateElement) element, result);
+			else if (element instanceof IExpressionElement)
+				FormulaIdentifiers.addExpression(ff,
+						(IExpressionElement) element, result);
+			else if (element instanceof IAssignmentElement)
+				FormulaIdentifiers.addAssignment(ff,
+						(IAssignmentElement) element, result);
+			return result;
+		}
+
+		/*
+		 * Checks whether an identifier is declared with a kind and visible
+		 * from an element.
+		 */
+		private boolean isVisible(String identifier, Kind kind,
+				IInternalElement element) throws CoreException {
+			if (symbols == null)
+				symbols = EventBSymbolTable.getSymbolTable(prj);
+			IEventBRoot root = (IEventBRoot) element.getRoot();
+			for (Symbol symbol : symbols.getDeclarations(identifier)) {
+				if (symbol.getKind() != kind)
+					continue;
+				switch (kind) {
+				case VARIABLE:
+					// Abstract variables are visible in gluing invariants
+					// and witnesses.
+					if (getRefinedMachines(root).contains(
+							symbol.getComponent()))
+						return true;
+					break;
+				case PARAMETER:
+					if (symbol.getElement().getParent()
+							.equals(getEvent(element)))
+						return true;
+					break;
+				default:
+					Set<IEventBRoot> visible = visibleComponents
+							.get(identifier);
+					if (visible == null) {
+						visible = symbols.getVisibleComponents(identifier);
+						visibleComponents.put(identifier, visible);
+					}
+					if (visible.contains(root))
+						return true;
+				}
+			}
+			return false;
+		}
+
+		/*
+		 * Returns a component together with the machines it refines directly
+		 * or indirectly.
+		 */
+		private Set<IEventBRoot> getRefinedMachines(IEventBRoot root)
+				throws CoreException {
+			Set<IEventBRoot> result = refinedMachines.get(root);
+			if (result != null)
+				return result;
+			EventBComponentGraph graph = EventBComponentGraph.getGraph(prj);
+			result = new LinkedHashSet<IEventBRoot>();
+			List<IEventBRoot> todo = new ArrayList<IEventBRoot>();
+			todo.add(root);
+			while (!todo.isEmpty()) {
+				IEventBRoot current = todo.remove(todo.size() - 1);
+				if (!result.add(current))
+					continue;
+				for (Map.Entry<IEventBRoot, Relation> edge : graph
+						.getDependencies(current).entrySet()) {
+					if (edge.getValue() == Relation.REFINES)
+						todo.add(edge.getKey());
+				}
+			}
+			refinedMachines.put(root, result);
+			return result;
+		}
+
+	}
+
+	// The Event-B project.
+	private final IEventBProject prj;
+
+	// The type of the elements.
+	private final IInternalElementType<T> type;
+
+	// The conditions, in the order they were added.
+	private final List<Filter> filters;
+
+	// Whether missing indexes should be built.
+	private final boolean indexed;
+
+	/**
+	 * Constructor: Create a query.
+	 */
+	private EventBQuery(IEventBProject prj, IInternalElementType<T> type,
+			List<Filter> filters, boolean indexed) {
+		this.prj = prj;
+		this.type = type;
+		this.filters = filters;
+		this.indexed = indexed;
+	}
+
+	/**
+	 * Returns a query over the elements of a given type of an EXISTING
+	 * Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @param type
+	 *            the type of the elements.
+	 * @return the query.
+	 */
+	public static <T extends IInternalElement> EventBQuery<T> elements(
+			IEventBProject prj, IInternalElementType<T> type) {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		return new EventBQuery<T>(prj, type, Collections.<Filter> emptyList(),
+				false);
+	}
+
+	/**
+	 * Returns a query over the axioms of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IAxiom> axioms(IEventBProject prj) {
+		return elements(prj, IAxiom.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Returns a query over the invariants of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IInvariant> invariants(IEventBProject prj) {
+		return elements(prj, IInvariant.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Returns a query over the variables of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IVariable> variables(IEventBProject prj) {
+		return elements(prj, IVariable.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Returns a query over the events of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IEvent> events(IEventBProject prj) {
+		return elements(prj, IEvent.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Returns a query over the guards of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IGuard> guards(IEventBProject prj) {
+		return elements(prj, IGuard.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Returns a query over the actions of an EXISTING Event-B project.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the query.
+	 */
+	public static EventBQuery<IAction> actions(IEventBProject prj) {
+		return elements(prj, IAction.ELEMENT_TYPE);
+	}
+
+	/**
+	 * Restricts the query to the elements of a component.
+	 *
+	 * @param root
+	 *            a component of the project.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> in(IEventBRoot root) {
+		Assert.isNotNull(root, Messages.error_NullComponent);
+		return with(new InComponent(root));
+	}
+
+	/**
+	 * Restricts the query to the elements with a label.
+	 *
+	 * @param label
+	 *            a label.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> withLabel(String label) {
+		return with(new WithLabel(label));
+	}
+
+	/**
+	 * Restricts the query to the elements declaring an identifier (carrier
+	 * sets, constants, variables or parameters).
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> withIdentifier(String identifier) {
+		Assert.isNotNull(identifier, Messages.error_NullIdentifier);
+		return with(new WithIdentifier(identifier));
+	}
+
+	/**
+	 * Restricts the query to the extended events, or to the elements of
+	 * extended events.
+	 *
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> inExtendedEvents() {
+		return with(new InExtendedEvent());
+	}
+
+	/**
+	 * Restricts the query to the formula elements mentioning an identifier.
+	 * Primed occurrences count as occurrences of the unprimed identifier.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> mentioning(String identifier) {
+		Assert.isNotNull(identifier, Messages.error_NullIdentifier);
+		return with(new Mentioning(identifier));
+	}
+
+	/**
+	 * Restricts the query to the formula elements mentioning an identifier of
+	 * the given kind visible from the element. The variables visible from an
+	 * element of a machine are those of the machine and of the machines it
+	 * refines, which gluing invariants and witnesses may mention.
+	 *
+	 * @param kind
+	 *            a kind of identifiers.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> mentioning(Kind kind) {
+		return with(new MentioningKind(kind, true));
+	}
+
+	/**
+	 * Restricts the query to the elements mentioning no identifier of the
+	 * given kind visible from the element.
+	 *
+	 * @param kind
+	 *            a kind of identifiers.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> notMentioning(Kind kind) {
+		return with(new MentioningKind(kind, false));
+	}
+
+	/**
+	 * Restricts the query to the elements satisfying a condition. Client
+	 * conditions are checked after all the other conditions.
+	 *
+	 * @param condition
+	 *            a condition.
+	 * @return the restricted query.
+	 */
+	public EventBQuery<T> where(Condition<? super T> condition) {
+		return with(new Where<T>(condition));
+	}
+
+	/**
+	 * Returns the same query, building the occurrence index and the symbol
+	 * table of the project if they are not available yet. This is worthwhile
+	 * when several queries on identifiers are run on the same project.
+	 *
+	 * @return the query using the indexes.
+	 */
+	public EventBQuery<T> indexed() {
+		return new EventBQuery<T>(prj, type, filters, true);
+	}
+
+	/**
+	 * Executes the query.
+	 *
+	 * @return a lazy stream over the elements satisfying all the conditions.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public Stream<T> stream() throws CoreException {
+		EventBOccurrenceIndex occurrences = indexed ? EventBOccurrenceIndex
+				.getOccurrenceIndex(prj) : EventBOccurrenceIndex
+				.peekOccurrenceIndex(prj);
+		Execution execution = new Execution(prj, occurrences);
+		List<Filter> ordered = new ArrayList<Filter>(filters);
+		ordered.sort(Comparator.comparingInt(filter -> filter.cost));
+		return getCandidates(execution).filter(
+				element -> element.getElementType() == type
+						&& accept(element, ordered, execution)).map(
+				element -> {
+					@SuppressWarnings("unchecked")
+					T result = (T) element;
+					return result;
+				});
+	}
+
+	/**
+	 * Executes the query and collects the result.
+	 *
+	 * @return the elements satisfying all the conditions.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public List<T> toList() throws CoreException {
+		try {
+			return stream().collect(Collectors.toList());
+		} catch (IllegalStateException e) {
+			if (e.getCause() instanceof CoreException)
+				throw (CoreException) e.getCause();
+			throw e;
+		}
+	}
+
+	/*
+	 * Returns a copy of this query with an additional condition.
+	 */
+	private EventBQuery<T> with(Filter filter) {
+		List<Filter> newFilters = new ArrayList<Filter>(filters);
+		newFilters.add(filter);
+		return new EventBQuery<T>(prj, type,
+				Collections.unmodifiableList(newFilters), indexed);
+	}
+
+	/*
+	 * Chooses the source of the candidate elements: an index when a condition
+	 * can be answered by an available index, the elements of a component,
+	 * or all the elements of the project.
+	 */
+	private Stream<? extends IInternalElement> getCandidates(
+			Execution execution) throws CoreException {
+		IEventBRoot root = null;
+		for (Filter filter : filters) {
+			if (filter instanceof InComponent)
+				root = ((InComponent) filter).root;
+		}
+		if (execution.occurrences != null) {
+			for (Filter filter : filters) {
+				if (filter instanceof Mentioning) {
+					String identifier = ((Mentioning) filter).identifier;
+					return (root == null ? execution.occurrences
+							.getOccurrences(identifier) : execution.occurrences
+							.getOccurrences(identifier, root)).stream();
+				}
+			}
+		}
+		for (Filter filter : filters) {
+			if (!(filter instanceof WithIdentifier))
+				continue;
+			EventBSymbolTable symbols = indexed ? EventBSymbolTable
+					.getSymbolTable(prj) : EventBSymbolTable
+					.peekSymbolTable(prj);
+			if (symbols != null)
+				return symbols
+						.getDeclarations(((WithIdentifier) filter).identifier)
+						.stream().map(Symbol::getElement);
+		}
+		if (root != null)
+			return EventBElementIterator.iterate(root, type).stream();
+		return EventBElementIterator.stream(prj, type);
+	}
+
+	/*
+	 * Checks whether an element satisfies all the conditions.
+	 */
+	private static boolean accept(IInternalElement element,
+			List<Filter> filters, Execution execution) {
+		try {
+			for (Filter filter : filters) {
+				if (!filter.test(element, execution))
+					return false;
+			}
+			return true;
+		} catch (CoreException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Returns an event or the event containing an element, or null.
+	 */
+	private static IEvent getEvent(IInternalElement element) {
+		if (element instanceof IEvent)
+			return (IEvent) element;
+		IRodinElement parent = element.getParent();
+		if (parent instanceof IEvent)
+			return (IEvent) parent;
+		return null;
+	}
+
+}
@@ -17,29 +17,67 @@
 package ch.ethz.eventb.utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eventb.core.IAxiom;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
 import org.eventb.core.IInvariant;
 import org.eventb.core.IMachineRoot;
+import org.eventb.core.ISCAction;
 import org.eventb.core.ISCAxiom;
 import org.eventb.core.ISCCarrierSet;
 import org.eventb.core.ISCConstant;
+import org.eventb.core.ISCEvent;
+import org.eventb.core.ISCGuard;
 import org.eventb.core.ISCIdentifierElement;
 import org.eventb.core.ISCInternalContext;
 import org.eventb.core.ISCInvariant;
 import org.eventb.core.ISCMachineRoot;
+import org.eventb.core.ISCParameter;
+import org.eventb.core.ISCRefinesMachine;
 import org.eventb.core.ISCVariable;
+import org.eventb.core.ISCWitness;
+import org.eventb.core.ast.Assignment;
+import org.eventb.core.ast.FormulaFactory;
+import org.eventb.core.ast.ITypeEnvironment;
+import org.eventb.core.ast.ITypeEnvironmentBuilder;
+import org.eventb.core.ast.Predicate;
 import org.eventb.core.ast.Type;
 import org.rodinp.core.IInternalElementType;
 import org.rodinp.core.IRodinElement;
+import org.rodinp.core.IRodinFile;
 import org.rodinp.core.RodinDBException;
 
+import ch.ethz.eventb.internal.utils.ComponentCache;
+import ch.ethz.eventb.internal.utils.ComponentCache.Key;
 import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ParallelUtils;
 
 /**
  * @author htson
@@ -50,6 +88,69 @@ import ch.ethz.eventb.internal.utils.Messages;
  */
 public final class EventBSCUtils {
 
+	// Cache key for the formula factory of a statically checked machine.
+	private static final Key<FormulaFactory> FORMULA_FACTORY = new Key<FormulaFactory>(
+			"formulaFactory"); //$NON-NLS-1$
+
+	// Cache key for the type environment of a statically checked machine.
+	private static final Key<ITypeEnvironment> TYPE_ENVIRONMENT = new Key<ITypeEnvironment>(
+			"typeEnvironment"); //$NON-NLS-1$
+
+	// Cache key for the variable identifiers of a statically checked machine.
+	private static final Key<Set<String>> VARIABLES = new Key<Set<String>>(
+			"variables"); //$NON-NLS-1$
+
+	// Cache keys for the typed seen axioms (resp. theorems) of a statically
+	// checked machine.
+	private static final Key<Map<String, Predicate>> SEEN_AXIOMS = new Key<Map<String, Predicate>>(
+			"seenAxioms"); //$NON-NLS-1$
+
+	private static final Key<Map<String, Predicate>> SEEN_THEOREMS = new Key<Map<String, Predicate>>(
+			"seenTheorems"); //$NON-NLS-1$
+
+	// Cache keys for the typed invariants (resp. theorems) of a statically
+	// checked machine.
+	private static final Key<Map<String, Predicate>> INVARIANTS = new Key<Map<String, Predicate>>(
+			"invariants"); //$NON-NLS-1$
+
+	private static final Key<Map<String, Predicate>> INVARIANT_THEOREMS = new Key<Map<String, Predicate>>(
+			"invariantTheorems"); //$NON-NLS-1$
+
+	// Cache key for the abstraction of a statically checked machine (a list
+	// with at most one element).
+	private static final Key<List<ISCMachineRoot>> ABSTRACT_MACHINE = new Key<List<ISCMachineRoot>>(
+			"abstractMachine"); //$NON-NLS-1$
+
+	// Cache keys for the inherited invariants (resp. theorems) of a
+	// statically checked machine.
+	private static final Key<InheritedInvariants> INHERITED_INVARIANTS = new Key<InheritedInvariants>(
+			"inheritedInvariants"); //$NON-NLS-1$
+
+	private static final Key<InheritedInvariants> INHERITED_THEOREMS = new Key<InheritedInvariants>(
+			"inheritedTheorems"); //$NON-NLS-1$
+
+	// Cache key for the typed events of a statically checked machine.
+	private static final Key<Map<String, SCEventInfo>> EVENTS = new Key<Map<String, SCEventInfo>>(
+			"events"); //$NON-NLS-1$
+
+	/*
+	 * The inherited invariants of a machine, together with the inherited
+	 * invariants of its abstraction they were computed from.
+	 */
+	private static final class InheritedInvariants {
+
+		private final Map<String, Predicate> abstractInvariants;
+
+		private final Map<String, Predicate> invariants;
+
+		private InheritedInvariants(Map<String, Predicate> abstractInvariants,
+				Map<String, Predicate> invariants) {
+			this.abstractInvariants = abstractInvariants;
+			this.invariants = invariants;
+		}
+
+	}
+
 	private EventBSCUtils() {
 		// Utility classes shall not have a public or default constructor.
 	}
@@ -117,6 +218,106 @@ public final class EventBSCUtils {
 
 	}
 
+	/**
+	 * Returns a map from label (String) to predicate string (String)
+	 * corresponding to the seen axioms of an EXISTING statically checked
+	 * machine root. Contrary to {@link #getSCSeenAxioms(IMachineRoot, boolean)}
+	 * this method never accesses the unchecked version of the contexts or of
+	 * the machine: the predicates are read from the statically checked axioms
+	 * only, so that only the statically checked machine file is loaded.
+	 * 
+	 * @param scMchRoot
+	 *            a statically checked machine root.
+	 * @param isTheorem
+	 *            the flag to indicate either only axioms or theorems can be
+	 *            selected.
+	 * @return the map of seen axioms of the input machine. Each axiom is a map
+	 *         from a label to a predicate string. The label is composed of the
+	 *         name of the context and the original label of the axiom separated
+	 *         by <code>/</code>. The predicate string is the pretty-printed
+	 *         form of the statically checked predicate, which may differ in
+	 *         layout from the source string. There is no guarantee on the order
+	 *         under which the axioms are sorted.
+	 * @see #getSCSeenAxiomPredicates(ISCMachineRoot, boolean)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, String> getSCSeenAxioms(
+			ISCMachineRoot scMchRoot, boolean isTheorem) throws CoreException {
+		return toPredicateStrings(getSCSeenAxiomPredicates(scMchRoot,
+				isTheorem));
+	}
+
+	/**
+	 * Returns a map from label (String) to type-checked predicate corresponding
+	 * to the seen axioms of an EXISTING machine root. This is done by checking
+	 * the statically checked version of the machine (as a result, the
+	 * statically checked version must exist).
+	 * 
+	 * @param mchRoot
+	 *            a machine root.
+	 * @param isTheorem
+	 *            the flag to indicate either only axioms or theorems can be
+	 *            selected.
+	 * @return the map of seen axioms of the input machine.
+	 * @see #getSCSeenAxiomPredicates(ISCMachineRoot, boolean)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCSeenAxiomPredicates(
+			IMachineRoot mchRoot, boolean isTheorem) throws CoreException {
+		return getSCSeenAxiomPredicates(getExistingSCMachineRoot(mchRoot),
+				isTheorem);
+	}
+
+	/**
+	 * Returns a map from label (String) to type-checked predicate corresponding
+	 * to the seen axioms of an EXISTING statically checked machine root. The
+	 * predicates are read from the statically checked axioms and type-checked
+	 * against the type environment of the machine. The result is cached until
+	 * the statically checked machine changes.
+	 * 
+	 * @param scMchRoot
+	 *            a statically checked machine root.
+	 * @param isTheorem
+	 *            the flag to indicate either only axioms or theorems can be
+	 *            selected.
+	 * @return the (unmodifiable) map of seen axioms of the input machine. Each
+	 *         axiom is a map from a label to a predicate. The label is composed
+	 *         of the name of the context and the original label of the axiom
+	 *         separated by <code>/</code>. There is no guarantee on the order
+	 *         under which the axioms are sorted.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCSeenAxiomPredicates(
+			final ISCMachineRoot scMchRoot, final boolean isTheorem)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(scMchRoot, isTheorem ? SEEN_THEOREMS
+				: SEEN_AXIOMS, () -> {
+			ITypeEnvironment typeEnv = getSCTypeEnvironment(scMchRoot);
+			Map<String, Predicate> result = new HashMap<String, Predicate>();
+			for (ISCInternalContext scSeenContext : scMchRoot
+					.getSCSeenContexts()) {
+				for (ISCAxiom scAxiom : scSeenContext.getSCAxioms()) {
+					if (scAxiom.isTheorem() == isTheorem) {
+						String key = scSeenContext.getElementName() + "/"
+								+ scAxiom.getLabel();
+						result.put(key, EventBFormulaStore.getPredicate(scAxiom,
+								typeEnv));
+					}
+				}
+			}
+			return Collections.unmodifiableMap(result);
+		});
+	}
+
 	/**
 	 * Utility method for getting the collection of statically checked seen
 	 * element (e.g. carrier set or constant) identifier strings of an EXISTING
@@ -246,6 +447,232 @@ public final class EventBSCUtils {
 		return result;
 	}
 
+	/**
+	 * Utility method for getting the invariants of an EXISTING statically
+	 * checked machine root. Contrary to
+	 * {@link #getSCInvariants(IMachineRoot, boolean)} this method never
+	 * accesses the unchecked version of the machine: the predicates are read
+	 * from the statically checked invariants only, so that only the statically
+	 * checked machine file is loaded.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @return the map of invariants' labels (including the machine name) and
+	 *         the pretty-printed form of the corresponding statically checked
+	 *         predicate.
+	 * @see #getSCInvariantPredicates(ISCMachineRoot, boolean)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, String> getSCInvariants(
+			ISCMachineRoot scMchRoot, boolean isTheorem) throws CoreException {
+		return toPredicateStrings(getSCInvariantPredicates(scMchRoot,
+				isTheorem));
+	}
+
+	/**
+	 * Utility method for getting statically checked invariants of an EXISTING
+	 * machine root as type-checked predicates, by looking at the statically
+	 * checked version of the machine (as a result, the statically checked
+	 * version must exist).
+	 * 
+	 * @param mchRoot
+	 *            the input machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @return the map of invariants' labels and the corresponding predicate.
+	 * @see #getSCInvariantPredicates(ISCMachineRoot, boolean)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCInvariantPredicates(
+			IMachineRoot mchRoot, boolean isTheorem) throws CoreException {
+		return getSCInvariantPredicates(getExistingSCMachineRoot(mchRoot),
+				isTheorem);
+	}
+
+	/**
+	 * Utility method for getting the invariants of an EXISTING statically
+	 * checked machine root as type-checked predicates. The predicates are read
+	 * from the statically checked invariants and type-checked against the type
+	 * environment of the machine. The result is cached until the statically
+	 * checked machine changes.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @return the (unmodifiable) map of invariants' labels (including the
+	 *         machine name) and the corresponding predicate.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCInvariantPredicates(
+			final ISCMachineRoot scMchRoot, final boolean isTheorem)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(scMchRoot, isTheorem ? INVARIANT_THEOREMS
+				: INVARIANTS, () -> {
+			ITypeEnvironment typeEnv = getSCTypeEnvironment(scMchRoot);
+			Map<String, Predicate> result = new HashMap<String, Predicate>();
+			for (ISCInvariant scInvariant : scMchRoot.getSCInvariants()) {
+				if (scInvariant.isTheorem() == isTheorem) {
+					String key = scMchRoot.getElementName() + "/"
+							+ scInvariant.getLabel();
+					result.put(key, EventBFormulaStore.getPredicate(
+							scInvariant, typeEnv));
+				}
+			}
+			return Collections.unmodifiableMap(result);
+		});
+	}
+
+	/**
+	 * Utility method for getting the invariants of an EXISTING machine root
+	 * together with the invariants inherited from all its abstractions, by
+	 * looking at the statically checked version of the machines (as a result,
+	 * the statically checked version must exist).
+	 * 
+	 * @param mchRoot
+	 *            the input machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @return the map of invariants' labels and the corresponding predicate.
+	 * @see #getSCInheritedInvariantPredicates(ISCMachineRoot, boolean)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCInheritedInvariantPredicates(
+			IMachineRoot mchRoot, boolean isTheorem) throws CoreException {
+		return getSCInheritedInvariantPredicates(
+				getExistingSCMachineRoot(mchRoot), isTheorem);
+	}
+
+	/**
+	 * Utility method for getting the invariants of an EXISTING statically
+	 * checked machine root together with the invariants inherited from all its
+	 * abstractions, following the refinement chain of the statically checked
+	 * machines. The result is memoised for every machine of the chain: the
+	 * invariants of an abstraction are computed once and shared by all its
+	 * refinements, and are recomputed only when one of the statically checked
+	 * machines of the chain changes. Abstractions without statically checked
+	 * version are ignored.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @return the (unmodifiable) map of invariants' labels (including the
+	 *         machine name) and the corresponding predicate.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Map<String, Predicate> getSCInheritedInvariantPredicates(
+			ISCMachineRoot scMchRoot, boolean isTheorem) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+
+		Set<ISCMachineRoot> visited = new HashSet<ISCMachineRoot>();
+		visited.add(scMchRoot);
+		return getSCInheritedInvariantPredicates(scMchRoot, isTheorem,
+				visited);
+	}
+
+	/**
+	 * Utility method for computing the inherited invariants of an EXISTING
+	 * statically checked machine, guarding against refinement cycles.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root
+	 * @param isTheorem
+	 *            indicating if theorems in invariants are included
+	 * @param visited
+	 *            the machines already visited along the refinement chain.
+	 * @return the map of invariants' labels and the corresponding predicate.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static Map<String, Predicate> getSCInheritedInvariantPredicates(
+			ISCMachineRoot scMchRoot, boolean isTheorem,
+			Set<ISCMachineRoot> visited) throws CoreException {
+		Map<String, Predicate> abstractInvariants = Collections.emptyMap();
+		for (ISCMachineRoot absRoot : getAbstractSCMachineRoot(scMchRoot)) {
+			if (visited.add(absRoot))
+				abstractInvariants = getSCInheritedInvariantPredicates(
+						absRoot, isTheorem, visited);
+		}
+
+		// Reuse the memoised result if the abstraction did not change.
+		Key<InheritedInvariants> key = isTheorem ? INHERITED_THEOREMS
+				: INHERITED_INVARIANTS;
+		final Map<String, Predicate> absInvs = abstractInvariants;
+		InheritedInvariants result = ComponentCache.get(scMchRoot, key,
+				() -> new InheritedInvariants(absInvs, mergeInvariants(
+						absInvs, getSCInvariantPredicates(scMchRoot,
+								isTheorem))));
+		if (result.abstractInvariants != abstractInvariants) {
+			result = ComponentCache.reload(scMchRoot, key,
+					() -> new InheritedInvariants(absInvs, mergeInvariants(
+							absInvs, getSCInvariantPredicates(scMchRoot,
+									isTheorem))));
+		}
+		return result.invariants;
+	}
+
+	/**
+	 * Utility method for merging the invariants of a machine with the
+	 * invariants inherited from its abstraction.
+	 * 
+	 * @param abstractInvariants
+	 *            the invariants inherited from the abstraction.
+	 * @param invariants
+	 *            the invariants of the machine.
+	 * @return the (unmodifiable) merged invariants.
+	 */
+	private static Map<String, Predicate> mergeInvariants(
+			Map<String, Predicate> abstractInvariants,
+			Map<String, Predicate> invariants) {
+		Map<String, Predicate> result = new HashMap<String, Predicate>(
+				abstractInvariants);
+		result.putAll(invariants);
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Utility method for getting the (cached) statically checked abstraction
+	 * of an EXISTING statically checked machine.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root
+	 * @return a list containing the existing statically checked abstract
+	 *         machine if any, an empty list otherwise.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static List<ISCMachineRoot> getAbstractSCMachineRoot(
+			final ISCMachineRoot scMchRoot) throws CoreException {
+		return ComponentCache.get(scMchRoot, ABSTRACT_MACHINE, () -> {
+			for (ISCRefinesMachine scRefines : scMchRoot
+					.getSCRefinesClauses()) {
+				IRodinFile absFile = scRefines.getAbstractSCMachine();
+				if (absFile != null && absFile.exists())
+					return Collections.singletonList((ISCMachineRoot) absFile
+							.getRoot());
+			}
+			return Collections.<ISCMachineRoot> emptyList();
+		});
+	}
+
 	/**
 	 * Utility method for getting the collection of statically checked seen
 	 * carrier set identifier strings of an EXISTING machine by looking at the
@@ -329,32 +756,640 @@ public final class EventBSCUtils {
 	}
 
 	/**
+	 * Returns the type of a variable of an EXISTING machine by looking at the
+	 * statically checked version of the machine (as a result, the statically
+	 * checked version must exist). The lookup uses the cached type environment
+	 * of the statically checked machine.
+	 * 
 	 * @param mchRoot
+	 *            the input machine root.
 	 * @param identifier
-	 * @return 
-	 * @throws CoreException 
+	 *            the identifier of the variable.
+	 * @return the type of the variable, or <code>null</code> if the machine
+	 *         has no such statically checked variable.
+	 * @see #getSCTypeEnvironment(ISCMachineRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
 	 */
 	public static Type getVariableType(IMachineRoot mchRoot, String identifier)
 			throws CoreException {
+		ISCMachineRoot scMchRoot = getExistingSCMachineRoot(mchRoot);
+		if (!getSCVariableIdentifierStrings(scMchRoot).contains(identifier))
+			return null;
+		return getSCTypeEnvironment(scMchRoot).getType(identifier);
+	}
+
+	/**
+	 * Returns the type environment of an EXISTING machine by looking at the
+	 * statically checked version of the machine (as a result, the statically
+	 * checked version must exist).
+	 * 
+	 * @param mchRoot
+	 *            the input machine root.
+	 * @return the type environment of the statically checked machine.
+	 * @see #getSCTypeEnvironment(ISCMachineRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static ITypeEnvironment getSCTypeEnvironment(IMachineRoot mchRoot)
+			throws CoreException {
+		return getSCTypeEnvironment(getExistingSCMachineRoot(mchRoot));
+	}
+
+	/**
+	 * Returns the formula factory of an EXISTING machine by looking at the
+	 * statically checked version of the machine (as a result, the statically
+	 * checked version must exist).
+	 * 
+	 * @param mchRoot
+	 *            the input machine root.
+	 * @return the formula factory of the statically checked machine.
+	 * @see #getSCFormulaFactory(ISCMachineRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static FormulaFactory getSCFormulaFactory(IMachineRoot mchRoot)
+			throws CoreException {
+		return getSCFormulaFactory(getExistingSCMachineRoot(mchRoot));
+	}
+
+	/**
+	 * Returns the formula factory of an EXISTING statically checked machine.
+	 * Resolving the factory can be expensive when mathematical extensions are
+	 * installed, hence it is resolved once and cached until the statically
+	 * checked machine changes. All the typed queries of this class on the
+	 * machine share this factory.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root.
+	 * @return the formula factory of the statically checked machine.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static FormulaFactory getSCFormulaFactory(
+			final ISCMachineRoot scMchRoot) throws CoreException {
 		// Assert preconditions.
-		Assert.isNotNull(mchRoot, Messages.error_NullMachine);
-		Assert.isTrue(mchRoot.exists(), Messages.bind(
-				Messages.error_NonExistingMachine, mchRoot.getRodinFile()
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
 						.getBareName()));
-		ISCMachineRoot scMchRoot = mchRoot.getSCMachineRoot();
+
+		return ComponentCache.get(scMchRoot, FORMULA_FACTORY,
+				() -> scMchRoot.getFormulaFactory());
+	}
+
+	/**
+	 * Returns the type environment of an EXISTING statically checked machine.
+	 * The type environment contains the carrier sets and constants of the seen
+	 * contexts and the variables of the machine. It is built once with the
+	 * cached formula factory of the machine and cached until the statically
+	 * checked machine changes, so that looking up the type of an identifier
+	 * is done in constant time.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root.
+	 * @return the (immutable) type environment of the statically checked
+	 *         machine.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static ITypeEnvironment getSCTypeEnvironment(
+			final ISCMachineRoot scMchRoot) throws CoreException {
+		// Assert preconditions.
 		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
 		Assert.isTrue(scMchRoot.exists(), Messages.bind(
 				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
 						.getBareName()));
 
-		ISCVariable[] scVariables = scMchRoot.getSCVariables();
-		for (ISCVariable scVariable : scVariables) {
-			if (scVariable.getIdentifierString().equals(identifier)) {
-				return scVariable.getType(scMchRoot.getFormulaFactory());
+		return ComponentCache.get(scMchRoot, TYPE_ENVIRONMENT, () -> {
+			FormulaFactory ff = getSCFormulaFactory(scMchRoot);
+			ITypeEnvironmentBuilder result = ff.makeTypeEnvironment();
+			for (ISCInternalContext scSeenContext : scMchRoot
+					.getSCSeenContexts()) {
+				for (ISCCarrierSet scCarrierSet : scSeenContext
+						.getSCCarrierSets()) {
+					result.addGivenSet(scCarrierSet.getIdentifierString());
+				}
+				for (ISCConstant scConstant : scSeenContext.getSCConstants()) {
+					result.addName(scConstant.getIdentifierString(),
+							scConstant.getType(ff));
+				}
+			}
+			for (ISCVariable scVariable : scMchRoot.getSCVariables()) {
+				result.addName(scVariable.getIdentifierString(),
+						scVariable.getType(ff));
+			}
+			return result.makeSnapshot();
+		});
+	}
+
+	/**
+	 * Returns the statically checked events of an EXISTING machine by looking
+	 * at the statically checked version of the machine (as a result, the
+	 * statically checked version must exist).
+	 * 
+	 * @param mchRoot
+	 *            the input machine root.
+	 * @return the map from event labels to statically checked events.
+	 * @see #getSCEvents(ISCMachineRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static Map<String, SCEventInfo> getSCEvents(IMachineRoot mchRoot)
+			throws CoreException {
+		return getSCEvents(getExistingSCMachineRoot(mchRoot));
+	}
+
+	/**
+	 * Returns the events of an EXISTING statically checked machine, with their
+	 * typed parameters, guards, witnesses and actions as type-checked formulas.
+	 * All events are read in one pass over the statically checked machine and
+	 * the result is cached until the statically checked machine changes.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root.
+	 * @return the (unmodifiable) map from event labels to statically checked
+	 *         events, in the order of the statically checked machine.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static Map<String, SCEventInfo> getSCEvents(
+			final ISCMachineRoot scMchRoot) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(scMchRoot, EVENTS, () -> {
+			ITypeEnvironment mchTypeEnv = getSCTypeEnvironment(scMchRoot);
+			Set<String> variables = getSCVariableIdentifierStrings(scMchRoot);
+			Map<String, SCEventInfo> result = new LinkedHashMap<String, SCEventInfo>();
+			for (ISCEvent scEvent : scMchRoot.getSCEvents()) {
+				SCEventInfo info = getSCEvent(scEvent, mchTypeEnv, variables);
+				result.put(info.getLabel(), info);
+			}
+			return Collections.unmodifiableMap(result);
+		});
+	}
+
+	/**
+	 * Utility method for reading a statically checked event.
+	 * 
+	 * @param scEvent
+	 *            the statically checked event.
+	 * @param mchTypeEnv
+	 *            the type environment of the enclosing machine.
+	 * @param variables
+	 *            the variable identifiers of the enclosing machine.
+	 * @return the information of the statically checked event.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	private static SCEventInfo getSCEvent(ISCEvent scEvent,
+			ITypeEnvironment mchTypeEnv, Set<String> variables)
+			throws CoreException {
+		FormulaFactory ff = mchTypeEnv.getFormulaFactory();
+
+		// 1. Parameters.
+		ITypeEnvironmentBuilder evtTypeEnv = mchTypeEnv.makeBuilder();
+		Map<String, Type> parameters = new LinkedHashMap<String, Type>();
+		for (ISCParameter scParameter : scEvent.getSCParameters()) {
+			Type type = scParameter.getType(ff);
+			parameters.put(scParameter.getIdentifierString(), type);
+			evtTypeEnv.addName(scParameter.getIdentifierString(), type);
+		}
+		ITypeEnvironment typeEnv = evtTypeEnv.makeSnapshot();
+
+		// 2. Guards.
+		Map<String, Predicate> guards = new LinkedHashMap<String, Predicate>();
+		for (ISCGuard scGuard : scEvent.getSCGuards()) {
+			guards.put(scGuard.getLabel(),
+					EventBFormulaStore.getPredicate(scGuard, typeEnv));
+		}
+
+		// 3. Witnesses: they may refer to the after-state of the variables and
+		// to the parameters of the abstract events.
+		Map<String, Predicate> witnesses = new LinkedHashMap<String, Predicate>();
+		ISCWitness[] scWitnesses = scEvent.getSCWitnesses();
+		if (scWitnesses.length != 0) {
+			ITypeEnvironmentBuilder witTypeEnv = typeEnv.makeBuilder();
+			for (String variable : variables) {
+				witTypeEnv.addName(variable + "'", //$NON-NLS-1$
+						mchTypeEnv.getType(variable));
+			}
+			for (ISCEvent absEvent : scEvent.getAbstractSCEvents()) {
+				for (ISCParameter absParameter : absEvent.getSCParameters()) {
+					String ident = absParameter.getIdentifierString();
+					if (!witTypeEnv.contains(ident))
+						witTypeEnv.addName(ident, absParameter.getType(ff));
+				}
+			}
+			for (ISCWitness scWitness : scWitnesses) {
+				witnesses.put(scWitness.getLabel(),
+						EventBFormulaStore.getPredicate(scWitness, witTypeEnv));
+			}
+		}
+
+		// 4. Actions.
+		Map<String, Assignment> actions = new LinkedHashMap<String, Assignment>();
+		for (ISCAction scAction : scEvent.getSCActions()) {
+			actions.put(scAction.getLabel(),
+					EventBFormulaStore.getAssignment(scAction, typeEnv));
+		}
+
+		return new SCEventInfo(scEvent.getLabel(), typeEnv, parameters,
+				guards, witnesses, actions);
+	}
+
+	/**
+	 * Extracts the statically checked content of all machines of an EXISTING
+	 * Event-B project. The statically checked machines are independent and
+	 * read-only, hence they are summarised in parallel on the common
+	 * fork-join pool. Each summary records the time spent extracting it.
+	 * 
+	 * @param prj
+	 *            an Event-B project.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the map from machine names to the summaries of the statically
+	 *         checked machines of the project.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static Map<String, SCMachineSummary> getSCMachineSummaries(
+			IEventBProject prj, IProgressMonitor monitor) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		ISCMachineRoot[] scMchRoots = prj.getRodinProject()
+				.getRootElementsOfType(ISCMachineRoot.ELEMENT_TYPE);
+		Map<ISCMachineRoot, SCMachineSummary> summaries = ParallelUtils.map(
+				Arrays.asList(scMchRoots), EventBSCUtils::getSCMachineSummary,
+				Messages.progress_ExtractSCMachines, monitor);
+
+		// Merge the summaries.
+		Map<String, SCMachineSummary> result = new LinkedHashMap<String, SCMachineSummary>();
+		for (Map.Entry<ISCMachineRoot, SCMachineSummary> entry : summaries
+				.entrySet()) {
+			result.put(entry.getKey().getRodinFile().getBareName(),
+					entry.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Utility method for summarising an EXISTING statically checked machine.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root.
+	 * @return the summary of the statically checked machine.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	private static SCMachineSummary getSCMachineSummary(
+			ISCMachineRoot scMchRoot) throws CoreException {
+		long start = System.nanoTime();
+		ITypeEnvironment typeEnv = getSCTypeEnvironment(scMchRoot);
+		Map<String, Predicate> seenAxioms = new HashMap<String, Predicate>(
+				getSCSeenAxiomPredicates(scMchRoot, false));
+		seenAxioms.putAll(getSCSeenAxiomPredicates(scMchRoot, true));
+		Map<String, Predicate> invariants = new HashMap<String, Predicate>(
+				getSCInvariantPredicates(scMchRoot, false));
+		invariants.putAll(getSCInvariantPredicates(scMchRoot, true));
+		Map<String, SCEventInfo> events = getSCEvents(scMchRoot);
+		return new SCMachineSummary(scMchRoot, typeEnv,
+				Collections.unmodifiableMap(seenAxioms),
+				Collections.unmodifiableMap(invariants), events,
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * Runs the static checker on the given components and on the components
+	 * depending on them, without building the whole workspace. Components
+	 * with unsaved changes are saved first. The static checker is run in a
+	 * background job through an incremental build of the WHOLE enclosing
+	 * projects (in Event-B, components never depend on components of other
+	 * projects): the Rodin builder cannot be restricted to some files, hence
+	 * any other file of these projects which changed since the last build is
+	 * re-checked as well, together with its dependants, and the builders
+	 * other than the static checker (e.g. the proof obligation generator and
+	 * the auto-prover) are run too.
+	 * <p>
+	 * The build job holds the workspace rule. Hence waiting for the returned
+	 * future (e.g. with {@link CompletableFuture#get()}) in a thread holding
+	 * the workspace rule, or a rule conflicting with it, deadlocks.
+	 * </p>
+	 * 
+	 * @param roots
+	 *            the edited components (machines or contexts).
+	 * @return a future which completes when the statically checked files of
+	 *         the components are up to date. The future completes
+	 *         exceptionally with a {@link CoreException} if the build failed,
+	 *         and is cancelled if the build job is cancelled, including
+	 *         before it started.
+	 */
+	public static CompletableFuture<Void> staticCheck(
+			Collection<? extends IEventBRoot> roots) {
+		// Assert preconditions.
+		Assert.isNotNull(roots, Messages.error_NullComponents);
+
+		final Set<IRodinFile> files = new LinkedHashSet<IRodinFile>();
+		final Set<IProject> projects = new LinkedHashSet<IProject>();
+		for (IEventBRoot root : roots) {
+			files.add(root.getRodinFile());
+			projects.add(root.getRodinProject().getProject());
+		}
+
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		WorkspaceJob job = new WorkspaceJob(Messages.progress_StaticCheck) {
+
+			@Override
+			public IStatus runInWorkspace(IProgressMonitor monitor)
+					throws CoreException {
+				// Split the progress monitor.
+				SubMonitor subMonitor = SubMonitor.convert(monitor,
+						Messages.progress_StaticCheck, files.size()
+								+ projects.size());
+				try {
+					// 1. Save the edited components.
+					subMonitor.subTask(Messages.progress_SaveComponents);
+					for (IRodinFile file : files) {
+						if (file.exists() && file.hasUnsavedChanges())
+							file.save(subMonitor.newChild(1), false);
+						else
+							subMonitor.worked(1);
+					}
+
+					// 2. Incrementally build the enclosing projects.
+					subMonitor.subTask(Messages.progress_BuildProjects);
+					for (IProject project : projects) {
+						project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD,
+								subMonitor.newChild(1));
+					}
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				}
+				return Status.OK_STATUS;
+			}
+
+		};
+		// Complete the future once the job is done, including when it is
+		// cancelled before running.
+		job.addJobChangeListener(new JobChangeAdapter() {
+
+			@Override
+			public void done(IJobChangeEvent event) {
+				IStatus result = event.getResult();
+				if (result.getSeverity() == IStatus.CANCEL)
+					future.cancel(false);
+				else if (result.matches(IStatus.ERROR)) {
+					Throwable exception = result.getException();
+					future.completeExceptionally(exception != null ? exception
+							: new CoreException(result));
+				} else
+					future.complete(null);
+			}
+
+		});
+		job.setRule(ResourcesPlugin.getWorkspace().getRoot());
+		job.schedule();
+		return future;
+	}
+
+	/**
+	 * Returns the status of the statically checked version of a component.
+	 * The statically checked version of a component contains a copy of the
+	 * content of its abstractions and seen contexts, hence it is current only
+	 * if it is not older than the unchecked files of all the components on
+	 * which the component directly or indirectly depends (through the EXTENDS,
+	 * SEES and REFINES relations), and if the statically checked versions of
+	 * these components are current too. The status is computed from the local
+	 * time stamps of the files and from the dependency graph of the project,
+	 * without opening the statically checked files.
+	 * 
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the status of the statically checked version of the component.
+	 * @see EventBComponentGraph
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static SCStatus getSCStatus(IEventBRoot root)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(root, Messages.error_NullComponent);
+
+		return getSCStatus(root, new HashMap<IEventBRoot, SCStatus>());
+	}
+
+	/**
+	 * Returns the status of the statically checked version of every component
+	 * (machine or context) of an EXISTING Event-B project.
+	 * 
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the map from components to the status of their statically
+	 *         checked versions.
+	 * @see #getSCStatus(IEventBRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static Map<IEventBRoot, SCStatus> getSCStatus(IEventBProject prj)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		// The status of the components, shared along the dependencies.
+		Map<IEventBRoot, SCStatus> status = new HashMap<IEventBRoot, SCStatus>();
+		Map<IEventBRoot, SCStatus> result = new LinkedHashMap<IEventBRoot, SCStatus>();
+		for (IContextRoot ctxRoot : prj.getRodinProject()
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)) {
+			result.put(ctxRoot, getSCStatus(ctxRoot, status));
+		}
+		for (IMachineRoot mchRoot : prj.getRodinProject()
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)) {
+			result.put(mchRoot, getSCStatus(mchRoot, status));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statically checked version of an EXISTING machine, provided
+	 * that it is current. This allows to cheaply reject queries on stale
+	 * statically checked machines, before using any of the methods of this
+	 * class taking a statically checked machine as input.
+	 * 
+	 * @param mchRoot
+	 *            the input machine root.
+	 * @return the current statically checked machine root.
+	 * @see #getSCStatus(IEventBRoot)
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	public static ISCMachineRoot getCurrentSCMachineRoot(IMachineRoot mchRoot)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(mchRoot, Messages.error_NullMachine);
+		ISCMachineRoot scMchRoot = mchRoot.getSCMachineRoot();
+		SCStatus status = getSCStatus(mchRoot);
+		Assert.isTrue(status != SCStatus.MISSING, Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+		Assert.isTrue(status == SCStatus.CURRENT, Messages.bind(
+				Messages.error_StaleSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+		return scMchRoot;
+	}
+
+	/**
+	 * Utility method for getting the status of the statically checked version
+	 * of a component, given the status of the components already visited.
+	 * The components of a dependency cycle are considered current with
+	 * respect to each other.
+	 * 
+	 * @param root
+	 *            a component (machine or context).
+	 * @param status
+	 *            the status of the components already visited, updated with
+	 *            the status of the component and of its dependencies.
+	 * @return the status of the statically checked version of the component.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	private static SCStatus getSCStatus(IEventBRoot root,
+			Map<IEventBRoot, SCStatus> status) throws CoreException {
+		SCStatus result = status.get(root);
+		if (result != null)
+			return result;
+
+		// Break the dependency cycles.
+		status.put(root, SCStatus.CURRENT);
+		result = computeSCStatus(root, status);
+		status.put(root, result);
+		return result;
+	}
+
+	/**
+	 * Utility method for computing the status of the statically checked
+	 * version of a component from the time stamps of its files and of the
+	 * files of its dependencies.
+	 * 
+	 * @param root
+	 *            a component (machine or context).
+	 * @param status
+	 *            the status of the components already visited.
+	 * @return the status of the statically checked version of the component.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	private static SCStatus computeSCStatus(IEventBRoot root,
+			Map<IEventBRoot, SCStatus> status) throws CoreException {
+		long scStamp = getSCFile(root).getResource().getLocalTimeStamp();
+		if (scStamp == IResource.NULL_STAMP)
+			return SCStatus.MISSING;
+		IRodinFile file = root.getRodinFile();
+		if (file.hasUnsavedChanges()
+				|| file.getResource().getLocalTimeStamp() > scStamp)
+			return SCStatus.STALE;
+		if (!root.exists())
+			return SCStatus.CURRENT;
+
+		// The statically checked version is stale if a dependency changed
+		// after it was checked, or if the statically checked version of a
+		// dependency is not current.
+		EventBComponentGraph graph = EventBComponentGraph.getGraph(root
+				.getEventBProject());
+		for (IEventBRoot dependency : graph.getDependencies(root).keySet()) {
+			if (!dependency.exists())
+				continue;
+			if (dependency.getRodinFile().getResource().getLocalTimeStamp() > scStamp
+					|| getSCStatus(dependency, status) != SCStatus.CURRENT)
+				return SCStatus.STALE;
+		}
+		return SCStatus.CURRENT;
+	}
+
+	/**
+	 * Utility method for getting the statically checked file of a component.
+	 * 
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the statically checked machine or context file.
+	 */
+	private static IRodinFile getSCFile(IEventBRoot root) {
+		if (root instanceof IMachineRoot)
+			return root.getSCMachineRoot().getRodinFile();
+		return root.getSCContextRoot().getRodinFile();
+	}
+
+	/**
+	 * Utility method for getting the (cached) set of variable identifier
+	 * strings of an EXISTING statically checked machine.
+	 * 
+	 * @param scMchRoot
+	 *            the input statically checked machine root.
+	 * @return the set of variable identifier strings.
+	 * @throws CoreException
+	 *             if there was a problem accessing the database.
+	 */
+	private static Set<String> getSCVariableIdentifierStrings(
+			final ISCMachineRoot scMchRoot) throws CoreException {
+		return ComponentCache.get(scMchRoot, VARIABLES, () -> {
+			Set<String> result = new HashSet<String>();
+			for (ISCVariable scVariable : scMchRoot.getSCVariables()) {
+				result.add(scVariable.getIdentifierString());
 			}
+			return Collections.unmodifiableSet(result);
+		});
+	}
+
+	/**
+	 * Utility method for converting a map of predicates into a map of their
+	 * pretty-printed strings.
+	 * 
+	 * @param predicates
+	 *            a map from labels to predicates.
+	 * @return the map from labels to predicate strings.
+	 */
+	private static Map<String, String> toPredicateStrings(
+			Map<String, Predicate> predicates) {
+		Map<String, String> result = new HashMap<String, String>();
+		for (Map.Entry<String, Predicate> entry : predicates.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().toString());
 		}
+		return result;
+	}
 
-		return null;
+	/**
+	 * Utility method for getting the statically checked version of an
+	 * EXISTING machine. The statically checked version must exist.
+	 * 
+	 * @param mchRoot
+	 *            the input machine root.
+	 * @return the statically checked machine root.
+	 */
+	private static ISCMachineRoot getExistingSCMachineRoot(
+			IMachineRoot mchRoot) {
+		// Assert preconditions.
+		Assert.isNotNull(mchRoot, Messages.error_NullMachine);
+		Assert.isTrue(mchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingMachine, mchRoot.getRodinFile()
+						.getBareName()));
+		ISCMachineRoot scMchRoot = mchRoot.getSCMachineRoot();
+		Assert.isNotNull(scMchRoot, Messages.error_NullSCMachine);
+		Assert.isTrue(scMchRoot.exists(), Messages.bind(
+				Messages.error_NonExistingSCMachine, scMchRoot.getRodinFile()
+						.getBareName()));
+		return scMchRoot;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,607 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IConvergenceElement.Convergence;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.ast.FormulaFactory;
+import org.rodinp.core.RodinCore;
+
+import ch.ethz.eventb.internal.utils.FormulaIdentifiers;
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.utils.EventBFlattenedEvents.FlattenedEvent;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBSnapshots.Context;
+import ch.ethz.eventb.utils.EventBSnapshots.Machine;
+
+/**
+ * <p>
+ * Utility for slicing a machine with respect to some of its variables.
+ * </p>
+ * <p>
+ * The relevant variables are the given variables, closed under the
+ * following rules, using the free identifiers of the formulas:
+ * <ul>
+ * <li>an action assigning a relevant variable is kept, and the variables it
+ * reads become relevant;</li>
+ * <li>an event is kept if it is the <code>INITIALISATION</code> or if it
+ * keeps an action, and the variables read by its guards become relevant;</li>
+ * <li>if no kept invariant mentions a relevant variable, the variables of
+ * the first invariant mentioning it become relevant, so that the slice still
+ * types it.</li>
+ * </ul>
+ * The slice contains the relevant variables, the invariants mentioning only
+ * relevant variables and the carrier sets and constants of the seen contexts,
+ * and the kept events with all their guards, their kept actions and the
+ * parameters these mention. Invariants mentioning other identifiers, e.g.
+ * gluing invariants mentioning abstract variables, are not kept.
+ * </p>
+ * <p>
+ * Events are sliced in their flattened form (see
+ * {@link EventBFlattenedEvents}), so that the slice does not refine any
+ * machine: the materialised slice sees the same contexts as the original
+ * machine, has no witnesses nor variants, and all its events are ordinary
+ * and not extended. The invariants of the refined machines (directly or
+ * indirectly) which mention only relevant variables and the carrier sets and
+ * constants of the seen contexts are kept as inherited invariants, and are
+ * copied into the materialised slice before its own invariants.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBSlicing {
+
+	/**
+	 * <p>
+	 * A sliced event.
+	 * </p>
+	 */
+	public static final class SlicedEvent {
+
+		// The label of the event.
+		private final String label;
+
+		// The kept parameters.
+		private final List<String> parameters;
+
+		// The kept guards.
+		private final List<Clause> guards;
+
+		// The kept actions.
+		private final List<Clause> actions;
+
+		/**
+		 * Constructor: Create a sliced event.
+		 */
+		private SlicedEvent(String label, List<String> parameters,
+				List<Clause> guards, List<Clause> actions) {
+			this.label = label;
+			this.parameters = Collections.unmodifiableList(parameters);
+			this.guards = Collections.unmodifiableList(guards);
+			this.actions = Collections.unmodifiableList(actions);
+		}
+
+		/**
+		 * Returns the label of the event.
+		 *
+		 * @return the label.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Returns the identifiers of the kept parameters.
+		 *
+		 * @return the parameters.
+		 */
+		public List<String> getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Returns the kept guards.
+		 *
+		 * @return the guards.
+		 */
+		public List<Clause> getGuards() {
+			return guards;
+		}
+
+		/**
+		 * Returns the kept actions.
+		 *
+		 * @return the actions.
+		 */
+		public List<Clause> getActions() {
+			return actions;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * The slice of a machine.
+	 * </p>
+	 */
+	public static final class Slice {
+
+		// The sliced machine.
+		private final IMachineRoot mch;
+
+		// The relevant variables, in order.
+		private final List<String> variables;
+
+		// The kept inherited invariants, the most abstract first.
+		private final List<Clause> inheritedInvariants;
+
+		// The kept invariants.
+		private final List<Clause> invariants;
+
+		// The kept events.
+		private final List<SlicedEvent> events;
+
+		/**
+		 * Constructor: Create a slice.
+		 */
+		private Slice(IMachineRoot mch, List<String> variables,
+				List<Clause> inheritedInvariants, List<Clause> invariants,
+				List<SlicedEvent> events) {
+			this.mch = mch;
+			this.variables = Collections.unmodifiableList(variables);
+			this.inheritedInvariants = Collections
+					.unmodifiableList(inheritedInvariants);
+			this.invariants = Collections.unmodifiableList(invariants);
+			this.events = Collections.unmodifiableList(events);
+		}
+
+		/**
+		 * Returns the sliced machine.
+		 *
+		 * @return the sliced machine.
+		 */
+		public IMachineRoot getMachine() {
+			return mch;
+		}
+
+		/**
+		 * Returns the relevant variables.
+		 *
+		 * @return the relevant variables.
+		 */
+		public List<String> getVariables() {
+			return variables;
+		}
+
+		/**
+		 * Returns the kept invariants of the machines refined by the sliced
+		 * machine, the most abstract first.
+		 *
+		 * @return the inherited invariants.
+		 */
+		public List<Clause> getInheritedInvariants() {
+			return inheritedInvariants;
+		}
+
+		/**
+		 * Returns the kept invariants of the sliced machine.
+		 *
+		 * @return the invariants.
+		 */
+		public List<Clause> getInvariants() {
+			return invariants;
+		}
+
+		/**
+		 * Returns the kept events.
+		 *
+		 * @return the events.
+		 */
+		public List<SlicedEvent> getEvents() {
+			return events;
+		}
+
+	}
+
+	/*
+	 * The formulas of an event, with the identifiers they mention.
+	 */
+	private static final class EventInfo {
+
+		private final FlattenedEvent event;
+
+		private final List<Set<String>> guardIdentifiers = new ArrayList<Set<String>>();
+
+		private final List<Set<String>> actionIdentifiers = new ArrayList<Set<String>>();
+
+		private final List<Set<String>> assignedIdentifiers = new ArrayList<Set<String>>();
+
+		private final boolean[] keptActions;
+
+		private boolean kept;
+
+		private EventInfo(FlattenedEvent event, FormulaFactory ff) {
+			this.event = event;
+			for (Clause guard : event.getGuards()) {
+				Set<String> identifiers = new HashSet<String>();
+				FormulaIdentifiers.addPredicate(ff, guard.getFormula(),
+						identifiers);
+				guardIdentifiers.add(identifiers);
+			}
+			for (Clause action : event.getActions()) {
+				Set<String> identifiers = new HashSet<String>();
+				FormulaIdentifiers.addAssignment(ff, action.getFormula(),
+						identifiers);
+				actionIdentifiers.add(identifiers);
+				Set<String> assigned = new HashSet<String>();
+				FormulaIdentifiers.addAssignedIdentifiers(ff,
+						action.getFormula(), assigned);
+				assignedIdentifiers.add(assigned);
+			}
+			keptActions = new boolean[event.getActions().size()];
+			kept = IEvent.INITIALISATION.equals(event.getEvent().getLabel());
+		}
+
+	}
+
+	private EventBSlicing() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Computes the slice of an EXISTING machine with respect to some of its
+	 * variables.
+	 *
+	 * @param mch
+	 *            a machine.
+	 * @param variables
+	 *            variables of the machine.
+	 * @return the slice of the machine.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Slice computeSlice(IMachineRoot mch,
+			Collection<String> variables) throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(mch, Messages.error_NullMachine);
+		Assert.isTrue(mch.exists(), Messages.bind(
+				Messages.error_NonExistingMachine, mch.getRodinFile()
+						.getBareName()));
+		Machine machine = EventBSnapshots.getMachineSnapshot(mch);
+		Set<String> machineVariables = new LinkedHashSet<String>(
+				machine.getVariables());
+		for (String variable : variables) {
+			Assert.isTrue(machineVariables.contains(variable), Messages.bind(
+					Messages.error_NotAVariable, variable, machine.getName()));
+		}
+
+		// Read the identifiers of the flattened events.
+		FormulaFactory ff = mch.getFormulaFactory();
+		List<EventInfo> infos = new ArrayList<EventInfo>();
+		for (FlattenedEvent event : EventBFlattenedEvents.getFlattenedEvents(
+				mch.getEventBProject()).getFlattenedEvents(mch)) {
+			infos.add(new EventInfo(event, ff));
+		}
+
+		// Read the identifiers of the invariants, the most abstract first.
+		IEventBProject prj = mch.getEventBProject();
+		Set<String> contextIdentifiers = getContextIdentifiers(prj,
+				machine.getSeenContexts());
+		List<Machine> refinedMachines = getRefinedMachines(prj, machine);
+		List<Set<String>> invariantIdentifiers = new ArrayList<Set<String>>();
+		for (int i = refinedMachines.size() - 1; i >= -1; i--) {
+			Machine current = i < 0 ? machine : refinedMachines.get(i);
+			for (Clause invariant : current.getInvariants()) {
+				Set<String> identifiers = new HashSet<String>();
+				FormulaIdentifiers.addPredicate(ff, invariant.getFormula(),
+						identifiers);
+				invariantIdentifiers.add(identifiers);
+			}
+		}
+
+		// Close the relevant variables over the events, then over the
+		// invariants typing them.
+		Set<String> relevant = new HashSet<String>(variables);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (EventInfo info : infos) {
+				for (int i = 0; i < info.keptActions.length; i++) {
+					if (info.keptActions[i]
+							|| Collections.disjoint(
+									info.assignedIdentifiers.get(i), relevant))
+						continue;
+					info.keptActions[i] = true;
+					info.kept = true;
+					changed |= addVariables(info.actionIdentifiers.get(i),
+							machineVariables, relevant);
+				}
+				if (info.kept) {
+					for (Set<String> identifiers : info.guardIdentifiers) {
+						changed |= addVariables(identifiers, machineVariables,
+								relevant);
+					}
+				}
+			}
+			if (!changed)
+				changed = addTypingVariables(invariantIdentifiers,
+						contextIdentifiers, machineVariables, relevant);
+		}
+
+		// Collect the slice.
+		List<String> sliceVariables = new ArrayList<String>();
+		for (String variable : machineVariables) {
+			if (relevant.contains(variable))
+				sliceVariables.add(variable);
+		}
+		Set<String> declared = new HashSet<String>(relevant);
+		declared.addAll(contextIdentifiers);
+		List<Clause> inheritedInvariants = new ArrayList<Clause>();
+		for (Machine abstractMachine : refinedMachines) {
+			inheritedInvariants.addAll(0, getDeclaredInvariants(ff,
+					abstractMachine, declared));
+		}
+		List<Clause> invariants = getDeclaredInvariants(ff, machine,
+				declared);
+		List<SlicedEvent> events = new ArrayList<SlicedEvent>();
+		for (EventInfo info : infos) {
+			if (info.kept)
+				events.add(makeSlicedEvent(info));
+		}
+		return new Slice(mch, sliceVariables, inheritedInvariants, invariants,
+				events);
+	}
+
+	/**
+	 * Creates a new machine containing the slice of an EXISTING machine with
+	 * respect to some of its variables. The machine is created and saved in
+	 * a single database operation.
+	 *
+	 * @param mch
+	 *            a machine.
+	 * @param variables
+	 *            variables of the machine.
+	 * @param barename
+	 *            the intended bare-name of the new machine.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the new machine.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static IMachineRoot createSlice(IMachineRoot mch,
+			Collection<String> variables, String barename,
+			IProgressMonitor monitor) throws CoreException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor,
+				Messages.progress_CreateSlice, 2);
+		Slice slice = computeSlice(mch, variables);
+		subMonitor.worked(1);
+		IMachineRoot[] result = new IMachineRoot[1];
+		RodinCore.run(
+				pm -> result[0] = createMachine(mch.getEventBProject(), slice,
+						barename, pm), subMonitor.newChild(1));
+		return result[0];
+	}
+
+	/*
+	 * Creates and saves a machine with the content of a slice.
+	 */
+	private static IMachineRoot createMachine(IEventBProject prj, Slice slice,
+			String barename, IProgressMonitor monitor) throws CoreException {
+		Machine machine = EventBSnapshots.getMachineSnapshot(slice
+				.getMachine());
+		IMachineRoot root = EventBUtils.createMachine(prj, barename, monitor);
+		for (String ctx : machine.getSeenContexts()) {
+			EventBUtils.createSeesContextClause(root, ctx, null, monitor);
+		}
+		for (String variable : slice.getVariables()) {
+			EventBUtils.createVariable(root, variable, null, monitor);
+		}
+		// The labels of the inherited invariants are prefixed with the name
+		// of their machine if they clash with other labels.
+		Set<String> labels = new HashSet<String>();
+		for (Clause invariant : slice.getInvariants()) {
+			labels.add(invariant.getLabel());
+		}
+		for (Clause invariant : slice.getInheritedInvariants()) {
+			String label = invariant.getLabel();
+			if (labels.contains(label))
+				label = invariant.getElement().getRodinFile().getBareName()
+						+ "_" + label; //$NON-NLS-1$
+			labels.add(label);
+			EventBUtils.createInvariant(root, label, invariant.getFormula(),
+					invariant.isTheorem(), null, monitor);
+		}
+		for (Clause invariant : slice.getInvariants()) {
+			EventBUtils.createInvariant(root, invariant.getLabel(),
+					invariant.getFormula(), invariant.isTheorem(), null,
+					monitor);
+		}
+		for (SlicedEvent event : slice.getEvents()) {
+			IEvent evt = EventBUtils.createEvent(root, event.getLabel(),
+					Convergence.ORDINARY, false, null, monitor);
+			for (String parameter : event.getParameters()) {
+				EventBUtils.createParameter(evt, parameter, null, monitor);
+			}
+			for (Clause guard : event.getGuards()) {
+				EventBUtils.createGuard(evt, guard.getLabel(),
+						guard.getFormula(), guard.isTheorem(), null, monitor);
+			}
+			for (Clause action : event.getActions()) {
+				EventBUtils.createAction(evt, action.getLabel(),
+						action.getFormula(), null, monitor);
+			}
+		}
+		root.getRodinFile().save(monitor, false);
+		return root;
+	}
+
+	/*
+	 * Builds a sliced event from its kept actions, keeping the parameters
+	 * mentioned by its guards and kept actions.
+	 */
+	private static SlicedEvent makeSlicedEvent(EventInfo info) {
+		Set<String> mentioned = new HashSet<String>();
+		for (Set<String> identifiers : info.guardIdentifiers) {
+			mentioned.addAll(identifiers);
+		}
+		List<Clause> actions = new ArrayList<Clause>();
+		List<Clause> allActions = info.event.getActions();
+		for (int i = 0; i < allActions.size(); i++) {
+			if (info.keptActions[i]) {
+				actions.add(allActions.get(i));
+				mentioned.addAll(info.actionIdentifiers.get(i));
+			}
+		}
+		List<String> parameters = new ArrayList<String>();
+		for (String parameter : info.event.getParameters()) {
+			if (mentioned.contains(parameter))
+				parameters.add(parameter);
+		}
+		return new SlicedEvent(info.event.getEvent().getLabel(), parameters,
+				info.event.getGuards(), actions);
+	}
+
+	/*
+	 * Returns the invariants of a machine mentioning only the given declared
+	 * identifiers.
+	 */
+	private static List<Clause> getDeclaredInvariants(FormulaFactory ff,
+			Machine machine, Set<String> declared) {
+		List<Clause> result = new ArrayList<Clause>();
+		for (Clause invariant : machine.getInvariants()) {
+			Set<String> identifiers = new HashSet<String>();
+			FormulaIdentifiers.addPredicate(ff, invariant.getFormula(),
+					identifiers);
+			if (declared.containsAll(identifiers))
+				result.add(invariant);
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the existing machines refined directly or indirectly by a
+	 * machine, the most concrete first.
+	 */
+	private static List<Machine> getRefinedMachines(IEventBProject prj,
+			Machine machine) throws CoreException {
+		List<Machine> result = new ArrayList<Machine>();
+		Set<IMachineRoot> visited = new HashSet<IMachineRoot>();
+		visited.add(machine.getElement());
+		Machine current = machine;
+		while (!current.getRefinedMachines().isEmpty()) {
+			IMachineRoot abstractMch = prj.getMachineRoot(current
+					.getRefinedMachines().get(0));
+			if (!abstractMch.exists() || !visited.add(abstractMch))
+				break;
+			current = EventBSnapshots.getMachineSnapshot(abstractMch);
+			result.add(current);
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the carrier sets and constants of the given existing contexts
+	 * and of the contexts they extend directly or indirectly.
+	 */
+	private static Set<String> getContextIdentifiers(IEventBProject prj,
+			List<String> contexts) throws CoreException {
+		Set<String> result = new HashSet<String>();
+		Set<IContextRoot> visited = new HashSet<IContextRoot>();
+		List<String> todo = new ArrayList<String>(contexts);
+		while (!todo.isEmpty()) {
+			IContextRoot ctx = prj.getContextRoot(todo.remove(todo.size() - 1));
+			if (!ctx.exists() || !visited.add(ctx))
+				continue;
+			Context context = EventBSnapshots.getContextSnapshot(ctx);
+			result.addAll(context.getCarrierSets());
+			result.addAll(context.getConstants());
+			todo.addAll(context.getExtendedContexts());
+		}
+		return result;
+	}
+
+	/*
+	 * Ensures that each relevant variable is mentioned by an invariant kept
+	 * in the slice, so that the sliced machine still types it. For a relevant
+	 * variable which is not, adds the variables of the first invariant
+	 * mentioning it and only machine variables and context identifiers, e.g.
+	 * y for x and "x ∈ ℕ ∧ y ∈ ℕ". Returns whether a variable was added.
+	 */
+	private static boolean addTypingVariables(
+			List<Set<String>> invariantIdentifiers,
+			Set<String> contextIdentifiers, Set<String> machineVariables,
+			Set<String> relevant) {
+		Set<String> declared = new HashSet<String>(relevant);
+		declared.addAll(contextIdentifiers);
+		Set<String> available = new HashSet<String>(machineVariables);
+		available.addAll(contextIdentifiers);
+		Set<String> typed = new HashSet<String>();
+		for (Set<String> identifiers : invariantIdentifiers) {
+			if (declared.containsAll(identifiers))
+				typed.addAll(identifiers);
+		}
+		boolean changed = false;
+		for (String variable : new ArrayList<String>(relevant)) {
+			if (typed.contains(variable))
+				continue;
+			for (Set<String> identifiers : invariantIdentifiers) {
+				if (identifiers.contains(variable)
+						&& available.containsAll(identifiers)) {
+					changed |= addVariables(identifiers, machineVariables,
+							relevant);
+					typed.addAll(identifiers);
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/*
+	 * Adds the variables among some identifiers to the relevant variables.
+	 * Returns whether a variable was added.
+	 */
+	private static boolean addVariables(Set<String> identifiers,
+			Set<String> machineVariables, Set<String> relevant) {
+		boolean changed = false;
+		for (String identifier : identifiers) {
+			if (machineVariables.contains(identifier))
+				changed |= relevant.add(identifier);
+		}
+		return changed;
+	}
+
+}
@@ -0,0 +1,721 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.EventBAttributes;
+import org.eventb.core.IAction;
+import org.eventb.core.IAxiom;
+import org.eventb.core.ICarrierSet;
+import org.eventb.core.IConstant;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IConvergenceElement.Convergence;
+import org.eventb.core.IEvent;
+import org.eventb.core.IExtendsContext;
+import org.eventb.core.IGuard;
+import org.eventb.core.IInvariant;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IParameter;
+import org.eventb.core.IRefinesEvent;
+import org.eventb.core.IRefinesMachine;
+import org.eventb.core.ISeesContext;
+import org.eventb.core.IVariable;
+import org.eventb.core.IVariant;
+import org.eventb.core.IWitness;
+import org.rodinp.core.IAttributeType;
+import org.rodinp.core.IAttributeValue;
+import org.rodinp.core.IInternalElement;
+import org.rodinp.core.IInternalElementType;
+import org.rodinp.core.IRodinElement;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.ComponentCache;
+import ch.ethz.eventb.internal.utils.Messages;
+
+/**
+ * <p>
+ * Utility for loading immutable snapshots of (unchecked) machines and
+ * contexts. A component is read in a single pass, fetching all the
+ * attributes of each element at once; the resulting objects are plain Java
+ * objects which never access the database again and can be shared between
+ * threads. Snapshots are cached until the component changes.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBSnapshots {
+
+	/**
+	 * <p>
+	 * A snapshot of a labelled formula element: an axiom, an invariant, a
+	 * variant, a guard, a witness or an action.
+	 * </p>
+	 */
+	public static final class Clause {
+
+		// The element handle.
+		private final IInternalElement element;
+
+		// The label, or null.
+		private final String label;
+
+		// The formula string, or null.
+		private final String formula;
+
+		// Whether the clause is a theorem.
+		private final boolean theorem;
+
+		/**
+		 * Constructor: Create a clause snapshot.
+		 */
+		Clause(IInternalElement element, String label, String formula,
+				boolean theorem) {
+			this.element = element;
+			this.label = label;
+			this.formula = formula;
+			this.theorem = theorem;
+		}
+
+		/**
+		 * Returns the handle of the element. Using the handle may access the
+		 * database.
+		 *
+		 * @return the handle of the element.
+		 */
+		public IInternalElement getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the label of the clause.
+		 *
+		 * @return the label, or <code>null</code> if the element has no label.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Returns the formula (predicate, expression or assignment) string of
+		 * the clause.
+		 *
+		 * @return the formula string, or <code>null</code> if it is not set.
+		 */
+		public String getFormula() {
+			return formula;
+		}
+
+		/**
+		 * Returns whether the clause is a theorem.
+		 *
+		 * @return <code>true</code> if the clause is a theorem.
+		 */
+		public boolean isTheorem() {
+			return theorem;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return label + ": " + formula; //$NON-NLS-1$
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A snapshot of an event.
+	 * </p>
+	 */
+	public static final class Event {
+
+		private final IEvent element;
+
+		private final String label;
+
+		private final boolean extended;
+
+		private final Convergence convergence;
+
+		private final List<String> refinedEvents;
+
+		private final List<String> parameters;
+
+		private final List<Clause> guards;
+
+		private final List<Clause> witnesses;
+
+		private final List<Clause> actions;
+
+		/**
+		 * Constructor: Create an event snapshot. The lists are kept as is and
+		 * must not be modified afterwards.
+		 */
+		Event(IEvent element, String label, boolean extended,
+				Convergence convergence, List<String> refinedEvents,
+				List<String> parameters, List<Clause> guards,
+				List<Clause> witnesses, List<Clause> actions) {
+			this.element = element;
+			this.label = label;
+			this.extended = extended;
+			this.convergence = convergence;
+			this.refinedEvents = Collections.unmodifiableList(refinedEvents);
+			this.parameters = Collections.unmodifiableList(parameters);
+			this.guards = Collections.unmodifiableList(guards);
+			this.witnesses = Collections.unmodifiableList(witnesses);
+			this.actions = Collections.unmodifiableList(actions);
+		}
+
+		/**
+		 * Returns the handle of the event.
+		 *
+		 * @return the handle of the event.
+		 */
+		public IEvent getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the label of the event.
+		 *
+		 * @return the label of the event, or <code>null</code>.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Returns whether the event is extended.
+		 *
+		 * @return <code>true</code> if the event is extended.
+		 */
+		public boolean isExtended() {
+			return extended;
+		}
+
+		/**
+		 * Returns the convergence of the event.
+		 *
+		 * @return the convergence, or <code>null</code> if it is not set.
+		 */
+		public Convergence getConvergence() {
+			return convergence;
+		}
+
+		/**
+		 * Returns the labels of the abstract events refined by the event.
+		 *
+		 * @return the labels of the refined events.
+		 */
+		public List<String> getRefinedEvents() {
+			return refinedEvents;
+		}
+
+		/**
+		 * Returns the identifiers of the parameters of the event.
+		 *
+		 * @return the parameter identifiers.
+		 */
+		public List<String> getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Returns the guards (including theorems) of the event.
+		 *
+		 * @return the guards.
+		 */
+		public List<Clause> getGuards() {
+			return guards;
+		}
+
+		/**
+		 * Returns the witnesses of the event.
+		 *
+		 * @return the witnesses.
+		 */
+		public List<Clause> getWitnesses() {
+			return witnesses;
+		}
+
+		/**
+		 * Returns the actions of the event.
+		 *
+		 * @return the actions.
+		 */
+		public List<Clause> getActions() {
+			return actions;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return label;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A snapshot of a machine.
+	 * </p>
+	 */
+	public static final class Machine {
+
+		private final IMachineRoot element;
+
+		private final List<String> refinedMachines;
+
+		private final List<String> seenContexts;
+
+		private final List<String> variables;
+
+		private final List<Clause> invariants;
+
+		private final List<Clause> variants;
+
+		private final List<Event> events;
+
+		/**
+		 * Constructor: Create a machine snapshot. The lists are kept as is and
+		 * must not be modified afterwards.
+		 */
+		Machine(IMachineRoot element, List<String> refinedMachines,
+				List<String> seenContexts, List<String> variables,
+				List<Clause> invariants, List<Clause> variants,
+				List<Event> events) {
+			this.element = element;
+			this.refinedMachines = Collections.unmodifiableList(refinedMachines);
+			this.seenContexts = Collections.unmodifiableList(seenContexts);
+			this.variables = Collections.unmodifiableList(variables);
+			this.invariants = Collections.unmodifiableList(invariants);
+			this.variants = Collections.unmodifiableList(variants);
+			this.events = Collections.unmodifiableList(events);
+		}
+
+		/**
+		 * Returns the handle of the machine.
+		 *
+		 * @return the machine root.
+		 */
+		public IMachineRoot getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the name of the machine.
+		 *
+		 * @return the name of the machine.
+		 */
+		public String getName() {
+			return element.getRodinFile().getBareName();
+		}
+
+		/**
+		 * Returns the names of the machines refined by the machine.
+		 *
+		 * @return the names of the refined machines.
+		 */
+		public List<String> getRefinedMachines() {
+			return refinedMachines;
+		}
+
+		/**
+		 * Returns the names of the contexts seen by the machine.
+		 *
+		 * @return the names of the seen contexts.
+		 */
+		public List<String> getSeenContexts() {
+			return seenContexts;
+		}
+
+		/**
+		 * Returns the identifiers of the variables of the machine.
+		 *
+		 * @return the variable identifiers.
+		 */
+		public List<String> getVariables() {
+			return variables;
+		}
+
+		/**
+		 * Returns the invariants (including theorems) of the machine.
+		 *
+		 * @return the invariants.
+		 */
+		public List<Clause> getInvariants() {
+			return invariants;
+		}
+
+		/**
+		 * Returns the variants of the machine.
+		 *
+		 * @return the variants.
+		 */
+		public List<Clause> getVariants() {
+			return variants;
+		}
+
+		/**
+		 * Returns the events of the machine.
+		 *
+		 * @return the events.
+		 */
+		public List<Event> getEvents() {
+			return events;
+		}
+
+		/**
+		 * Returns the event with the given label.
+		 *
+		 * @param label
+		 *            an event label.
+		 * @return the event, or <code>null</code> if there is no such event.
+		 */
+		public Event getEvent(String label) {
+			for (Event evt : events) {
+				if (label.equals(evt.getLabel()))
+					return evt;
+			}
+			return null;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return getName();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A snapshot of a context.
+	 * </p>
+	 */
+	public static final class Context {
+
+		private final IContextRoot element;
+
+		private final List<String> extendedContexts;
+
+		private final List<String> carrierSets;
+
+		private final List<String> constants;
+
+		private final List<Clause> axioms;
+
+		/**
+		 * Constructor: Create a context snapshot. The lists are kept as is and
+		 * must not be modified afterwards.
+		 */
+		Context(IContextRoot element, List<String> extendedContexts,
+				List<String> carrierSets, List<String> constants,
+				List<Clause> axioms) {
+			this.element = element;
+			this.extendedContexts = Collections
+					.unmodifiableList(extendedContexts);
+			this.carrierSets = Collections.unmodifiableList(carrierSets);
+			this.constants = Collections.unmodifiableList(constants);
+			this.axioms = Collections.unmodifiableList(axioms);
+		}
+
+		/**
+		 * Returns the handle of the context.
+		 *
+		 * @return the context root.
+		 */
+		public IContextRoot getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the name of the context.
+		 *
+		 * @return the name of the context.
+		 */
+		public String getName() {
+			return element.getRodinFile().getBareName();
+		}
+
+		/**
+		 * Returns the names of the contexts extended by the context.
+		 *
+		 * @return the names of the extended contexts.
+		 */
+		public List<String> getExtendedContexts() {
+			return extendedContexts;
+		}
+
+		/**
+		 * Returns the identifiers of the carrier sets of the context.
+		 *
+		 * @return the carrier set identifiers.
+		 */
+		public List<String> getCarrierSets() {
+			return carrierSets;
+		}
+
+		/**
+		 * Returns the identifiers of the constants of the context.
+		 *
+		 * @return the constant identifiers.
+		 */
+		public List<String> getConstants() {
+			return constants;
+		}
+
+		/**
+		 * Returns the axioms (including theorems) of the context.
+		 *
+		 * @return the axioms.
+		 */
+		public List<Clause> getAxioms() {
+			return axioms;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return getName();
+		}
+
+	}
+
+	// Cache key for machine snapshots.
+	private static final ComponentCache.Key<Machine> MACHINE = new ComponentCache.Key<Machine>(
+			"machineSnapshot"); //$NON-NLS-1$
+
+	// Cache key for context snapshots.
+	private static final ComponentCache.Key<Context> CONTEXT = new ComponentCache.Key<Context>(
+			"contextSnapshot"); //$NON-NLS-1$
+
+	private EventBSnapshots() {
+		// Utility classes shall not have a public or default constructor.
+	}
+
+	/**
+	 * Returns a snapshot of an EXISTING machine.
+	 *
+	 * @param mch
+	 *            a machine.
+	 * @return the snapshot of the machine.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Machine getMachineSnapshot(IMachineRoot mch)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(mch, Messages.error_NullMachine);
+		Assert.isTrue(mch.exists(), Messages.bind(
+				Messages.error_NonExistingMachine, mch.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(mch, MACHINE, () -> loadMachine(mch));
+	}
+
+	/**
+	 * Returns a snapshot of an EXISTING context.
+	 *
+	 * @param ctx
+	 *            a context.
+	 * @return the snapshot of the context.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static Context getContextSnapshot(IContextRoot ctx)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(ctx, Messages.error_NullContext);
+		Assert.isTrue(ctx.exists(), Messages.bind(
+				Messages.error_NonExistingContext, ctx.getRodinFile()
+						.getBareName()));
+
+		return ComponentCache.get(ctx, CONTEXT, () -> loadContext(ctx));
+	}
+
+	/*
+	 * Reads a machine in one pass over its children.
+	 */
+	private static Machine loadMachine(IMachineRoot mch)
+			throws RodinDBException {
+		List<String> refinedMachines = new ArrayList<String>();
+		List<String> seenContexts = new ArrayList<String>();
+		List<String> variables = new ArrayList<String>();
+		List<Clause> invariants = new ArrayList<Clause>();
+		List<Clause> variants = new ArrayList<Clause>();
+		List<Event> events = new ArrayList<Event>();
+		for (IRodinElement child : mch.getChildren()) {
+			IInternalElement element = (IInternalElement) child;
+			IInternalElementType<?> type = element.getElementType();
+			Map<IAttributeType, Object> attributes = getAttributes(element);
+			if (type == IRefinesMachine.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.TARGET_ATTRIBUTE,
+						refinedMachines);
+			} else if (type == ISeesContext.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.TARGET_ATTRIBUTE,
+						seenContexts);
+			} else if (type == IVariable.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.IDENTIFIER_ATTRIBUTE,
+						variables);
+			} else if (type == IInvariant.ELEMENT_TYPE) {
+				invariants.add(makeClause(element, attributes,
+						EventBAttributes.PREDICATE_ATTRIBUTE));
+			} else if (type == IVariant.ELEMENT_TYPE) {
+				variants.add(makeClause(element, attributes,
+						EventBAttributes.EXPRESSION_ATTRIBUTE));
+			} else if (type == IEvent.ELEMENT_TYPE) {
+				events.add(loadEvent((IEvent) element, attributes));
+			}
+		}
+		return new Machine(mch, refinedMachines, seenContexts, variables,
+				invariants, variants, events);
+	}
+
+	/*
+	 * Reads an event in one pass over its children.
+	 */
+	private static Event loadEvent(IEvent evt,
+			Map<IAttributeType, Object> attributes) throws RodinDBException {
+		List<String> refinedEvents = new ArrayList<String>();
+		List<String> parameters = new ArrayList<String>();
+		List<Clause> guards = new ArrayList<Clause>();
+		List<Clause> witnesses = new ArrayList<Clause>();
+		List<Clause> actions = new ArrayList<Clause>();
+		for (IRodinElement child : evt.getChildren()) {
+			IInternalElement element = (IInternalElement) child;
+			IInternalElementType<?> type = element.getElementType();
+			Map<IAttributeType, Object> childAttributes = getAttributes(element);
+			if (type == IRefinesEvent.ELEMENT_TYPE) {
+				addString(childAttributes, EventBAttributes.TARGET_ATTRIBUTE,
+						refinedEvents);
+			} else if (type == IParameter.ELEMENT_TYPE) {
+				addString(childAttributes,
+						EventBAttributes.IDENTIFIER_ATTRIBUTE, parameters);
+			} else if (type == IGuard.ELEMENT_TYPE) {
+				guards.add(makeClause(element, childAttributes,
+						EventBAttributes.PREDICATE_ATTRIBUTE));
+			} else if (type == IWitness.ELEMENT_TYPE) {
+				witnesses.add(makeClause(element, childAttributes,
+						EventBAttributes.PREDICATE_ATTRIBUTE));
+			} else if (type == IAction.ELEMENT_TYPE) {
+				actions.add(makeClause(element, childAttributes,
+						EventBAttributes.ASSIGNMENT_ATTRIBUTE));
+			}
+		}
+		Object extended = attributes.get(EventBAttributes.EXTENDED_ATTRIBUTE);
+		Object convergence = attributes
+				.get(EventBAttributes.CONVERGENCE_ATTRIBUTE);
+		return new Event(evt,
+				(String) attributes.get(EventBAttributes.LABEL_ATTRIBUTE),
+				Boolean.TRUE.equals(extended),
+				convergence == null ? null : Convergence
+						.valueOf((Integer) convergence), refinedEvents,
+				parameters, guards, witnesses, actions);
+	}
+
+	/*
+	 * Reads a context in one pass over its children.
+	 */
+	private static Context loadContext(IContextRoot ctx)
+			throws RodinDBException {
+		List<String> extendedContexts = new ArrayList<String>();
+		List<String> carrierSets = new ArrayList<String>();
+		List<String> constants = new ArrayList<String>();
+		List<Clause> axioms = new ArrayList<Clause>();
+		for (IRodinElement child : ctx.getChildren()) {
+			IInternalElement element = (IInternalElement) child;
+			IInternalElementType<?> type = element.getElementType();
+			Map<IAttributeType, Object> attributes = getAttributes(element);
+			if (type == IExtendsContext.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.TARGET_ATTRIBUTE,
+						extendedContexts);
+			} else if (type == ICarrierSet.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.IDENTIFIER_ATTRIBUTE,
+						carrierSets);
+			} else if (type == IConstant.ELEMENT_TYPE) {
+				addString(attributes, EventBAttributes.IDENTIFIER_ATTRIBUTE,
+						constants);
+			} else if (type == IAxiom.ELEMENT_TYPE) {
+				axioms.add(makeClause(element, attributes,
+						EventBAttributes.PREDICATE_ATTRIBUTE));
+			}
+		}
+		return new Context(ctx, extendedContexts, carrierSets, constants,
+				axioms);
+	}
+
+	/*
+	 * Reads all the attributes of an element with a single database access.
+	 */
+	private static Map<IAttributeType, Object> getAttributes(
+			IInternalElement element) throws RodinDBException {
+		IAttributeValue[] values = element.getAttributeValues();
+		Map<IAttributeType, Object> result = new HashMap<IAttributeType, Object>(
+				values.length * 2);
+		for (IAttributeValue value : values) {
+			result.put(value.getType(), value.getValue());
+		}
+		return result;
+	}
+
+	/*
+	 * Utility method to add a string attribute to a list, if it is set.
+	 */
+	private static void addString(Map<IAttributeType, Object> attributes,
+			IAttributeType.String type, List<String> result) {
+		Object value = attributes.get(type);
+		if (value != null)
+			result.add((String) value);
+	}
+
+	/*
+	 * Utility method to make a clause from the attributes of an element.
+	 */
+	private static Clause makeClause(IInternalElement element,
+			Map<IAttributeType, Object> attributes,
+			IAttributeType.String formulaType) {
+		return new Clause(element,
+				(String) attributes.get(EventBAttributes.LABEL_ATTRIBUTE),
+				(String) attributes.get(formulaType),
+				Boolean.TRUE.equals(attributes
+						.get(EventBAttributes.THEOREM_ATTRIBUTE)));
+	}
+
+}
@@ -0,0 +1,814 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IMachineRoot;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinCore;
+
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ParallelUtils;
+import ch.ethz.eventb.utils.EventBSnapshots.Clause;
+import ch.ethz.eventb.utils.EventBSnapshots.Context;
+import ch.ethz.eventb.utils.EventBSnapshots.Event;
+import ch.ethz.eventb.utils.EventBSnapshots.Machine;
+
+/**
+ * <p>
+ * Size metrics of the machines and contexts of Event-B projects: numbers of
+ * variables, invariants, events, guards, axioms, etc., the lengths of their
+ * formulas and the statistics of their proof obligations, together with
+ * histograms of the main distributions. The statistics can be written as CSV
+ * (one line per component) or as JSON.
+ * </p>
+ * <p>
+ * Every component is read in a single pass through its
+ * {@link EventBSnapshots snapshot} and its proof obligation statistics (see
+ * {@link EventBPOUtils}), and the components are processed in parallel on the
+ * common fork-join pool. Instances are immutable.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @since 0.3.0
+ */
+public final class EventBStatistics {
+
+	/**
+	 * <p>
+	 * A histogram with logarithmic buckets: bucket 0 counts the zero values
+	 * and bucket <code>i &gt; 0</code> counts the values between
+	 * <code>2<sup>i-1</sup></code> and <code>2<sup>i</sup> - 1</code>.
+	 * Negative values are not allowed.
+	 * </p>
+	 */
+	public static final class Histogram {
+
+		// The counts of the buckets.
+		private final long[] counts = new long[Integer.SIZE];
+
+		// The number of values.
+		private long total;
+
+		// The sum of the values.
+		private long sum;
+
+		// The maximum value.
+		private int max;
+
+		/**
+		 * Constructor: Create an empty histogram.
+		 */
+		Histogram() {
+			// Do nothing
+		}
+
+		/*
+		 * Adds a value.
+		 */
+		void add(int value) {
+			counts[Integer.SIZE - Integer.numberOfLeadingZeros(value)]++;
+			total++;
+			sum += value;
+			max = Math.max(max, value);
+		}
+
+		/*
+		 * Adds the values of another histogram.
+		 */
+		void addAll(Histogram other) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += other.counts[i];
+			}
+			total += other.total;
+			sum += other.sum;
+			max = Math.max(max, other.max);
+		}
+
+		/**
+		 * Returns the number of buckets, up to the last non-empty one.
+		 *
+		 * @return the number of buckets.
+		 */
+		public int getBucketCount() {
+			return total == 0 ? 0 : Integer.SIZE
+					- Integer.numberOfLeadingZeros(max) + 1;
+		}
+
+		/**
+		 * Returns the smallest value of a bucket.
+		 *
+		 * @param bucket
+		 *            the index of a bucket.
+		 * @return the smallest value counted in the bucket.
+		 */
+		public int getLowerBound(int bucket) {
+			return bucket == 0 ? 0 : 1 << (bucket - 1);
+		}
+
+		/**
+		 * Returns the largest value of a bucket.
+		 *
+		 * @param bucket
+		 *            the index of a bucket.
+		 * @return the largest value counted in the bucket.
+		 */
+		public int getUpperBound(int bucket) {
+			return bucket == 0 ? 0 : (int) ((1L << bucket) - 1);
+		}
+
+		/**
+		 * Returns the number of values in a bucket.
+		 *
+		 * @param bucket
+		 *            the index of a bucket.
+		 * @return the number of values counted in the bucket.
+		 */
+		public long getCount(int bucket) {
+			return counts[bucket];
+		}
+
+		/**
+		 * Returns the number of values.
+		 *
+		 * @return the number of values.
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * Returns the sum of the values.
+		 *
+		 * @return the sum of the values.
+		 */
+		public long getSum() {
+			return sum;
+		}
+
+		/**
+		 * Returns the maximum value.
+		 *
+		 * @return the maximum value, or 0 if the histogram is empty.
+		 */
+		public int getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the mean of the values.
+		 *
+		 * @return the mean of the values, or 0 if the histogram is empty.
+		 */
+		public double getMean() {
+			return total == 0 ? 0 : (double) sum / total;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * The metrics of a machine or of a context. The counts which do not apply
+	 * to the kind of the component are 0.
+	 * </p>
+	 */
+	public static final class ComponentStatistics {
+
+		// The component.
+		private final IEventBRoot root;
+
+		// The counts of the elements of the component.
+		private int variables;
+
+		private int invariants;
+
+		private int events;
+
+		private int parameters;
+
+		private int guards;
+
+		private int actions;
+
+		private int carrierSets;
+
+		private int constants;
+
+		private int axioms;
+
+		// The lengths of the formulas of the component.
+		private final Histogram formulaLengths = new Histogram();
+
+		// The numbers of guards of the events of the component.
+		private final Histogram guardsPerEvent = new Histogram();
+
+		// The statistics of the proof obligations of the component.
+		private final POStatistics poStatistics;
+
+		/**
+		 * Constructor: Compute the metrics of a machine.
+		 */
+		private ComponentStatistics(Machine machine, POStatistics poStatistics) {
+			this.root = machine.getElement();
+			this.poStatistics = poStatistics;
+			variables = machine.getVariables().size();
+			invariants = machine.getInvariants().size();
+			events = machine.getEvents().size();
+			addFormulas(machine.getInvariants());
+			addFormulas(machine.getVariants());
+			for (Event event : machine.getEvents()) {
+				parameters += event.getParameters().size();
+				guards += event.getGuards().size();
+				actions += event.getActions().size();
+				guardsPerEvent.add(event.getGuards().size());
+				addFormulas(event.getGuards());
+				addFormulas(event.getWitnesses());
+				addFormulas(event.getActions());
+			}
+		}
+
+		/**
+		 * Constructor: Compute the metrics of a context.
+		 */
+		private ComponentStatistics(Context context, POStatistics poStatistics) {
+			this.root = context.getElement();
+			this.poStatistics = poStatistics;
+			carrierSets = context.getCarrierSets().size();
+			constants = context.getConstants().size();
+			axioms = context.getAxioms().size();
+			addFormulas(context.getAxioms());
+		}
+
+		/*
+		 * Adds the lengths of the formulas of some clauses.
+		 */
+		private void addFormulas(List<Clause> clauses) {
+			for (Clause clause : clauses) {
+				String formula = clause.getFormula();
+				if (formula != null)
+					formulaLengths.add(formula.codePointCount(0,
+							formula.length()));
+			}
+		}
+
+		/**
+		 * Returns the component.
+		 *
+		 * @return the machine or context root.
+		 */
+		public IEventBRoot getRoot() {
+			return root;
+		}
+
+		/**
+		 * Returns whether the component is a machine.
+		 *
+		 * @return <code>true</code> for a machine, <code>false</code> for a
+		 *         context.
+		 */
+		public boolean isMachine() {
+			return root instanceof IMachineRoot;
+		}
+
+		/**
+		 * Returns the number of variables of the machine.
+		 *
+		 * @return the number of variables.
+		 */
+		public int getVariables() {
+			return variables;
+		}
+
+		/**
+		 * Returns the number of invariants (including theorems) of the
+		 * machine.
+		 *
+		 * @return the number of invariants.
+		 */
+		public int getInvariants() {
+			return invariants;
+		}
+
+		/**
+		 * Returns the number of events (including the initialisation) of the
+		 * machine.
+		 *
+		 * @return the number of events.
+		 */
+		public int getEvents() {
+			return events;
+		}
+
+		/**
+		 * Returns the number of parameters of the events of the machine,
+		 * without the inherited ones.
+		 *
+		 * @return the number of parameters.
+		 */
+		public int getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Returns the number of guards of the events of the machine, without
+		 * the inherited ones.
+		 *
+		 * @return the number of guards.
+		 */
+		public int getGuards() {
+			return guards;
+		}
+
+		/**
+		 * Returns the number of actions of the events of the machine, without
+		 * the inherited ones.
+		 *
+		 * @return the number of actions.
+		 */
+		public int getActions() {
+			return actions;
+		}
+
+		/**
+		 * Returns the number of carrier sets of the context.
+		 *
+		 * @return the number of carrier sets.
+		 */
+		public int getCarrierSets() {
+			return carrierSets;
+		}
+
+		/**
+		 * Returns the number of constants of the context.
+		 *
+		 * @return the number of constants.
+		 */
+		public int getConstants() {
+			return constants;
+		}
+
+		/**
+		 * Returns the number of axioms (including theorems) of the context.
+		 *
+		 * @return the number of axioms.
+		 */
+		public int getAxioms() {
+			return axioms;
+		}
+
+		/**
+		 * Returns the histogram of the lengths (in characters) of the
+		 * formulas of the component.
+		 *
+		 * @return the histogram of the formula lengths.
+		 */
+		public Histogram getFormulaLengths() {
+			return formulaLengths;
+		}
+
+		/**
+		 * Returns the histogram of the numbers of guards of the events of the
+		 * machine.
+		 *
+		 * @return the histogram of the guards per event.
+		 */
+		public Histogram getGuardsPerEvent() {
+			return guardsPerEvent;
+		}
+
+		/**
+		 * Returns the statistics of the proof obligations of the component.
+		 *
+		 * @return the statistics of the proof obligations.
+		 */
+		public POStatistics getPOStatistics() {
+			return poStatistics;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return root.getRodinProject().getElementName() + "/" //$NON-NLS-1$
+					+ root.getRodinFile().getBareName();
+		}
+
+	}
+
+	// The header of the CSV output.
+	private static final String[] CSV_HEADER = { "project", "component", //$NON-NLS-1$ //$NON-NLS-2$
+			"kind", "variables", "invariants", "events", "parameters", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			"guards", "actions", "carrierSets", "constants", "axioms", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			"formulas", "formulaLength", "maxFormulaLength", "pos", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"discharged", "reviewed" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	// The statistics of the components.
+	private final List<ComponentStatistics> components;
+
+	// The histograms over all the components.
+	private final Histogram eventsPerMachine = new Histogram();
+
+	private final Histogram invariantsPerMachine = new Histogram();
+
+	private final Histogram guardsPerEvent = new Histogram();
+
+	private final Histogram formulaLengths = new Histogram();
+
+	private final Histogram posPerComponent = new Histogram();
+
+	/**
+	 * Constructor: Aggregate the statistics of some components.
+	 */
+	private EventBStatistics(List<ComponentStatistics> components) {
+		this.components = Collections.unmodifiableList(components);
+		for (ComponentStatistics component : components) {
+			if (component.isMachine()) {
+				eventsPerMachine.add(component.getEvents());
+				invariantsPerMachine.add(component.getInvariants());
+			}
+			guardsPerEvent.addAll(component.getGuardsPerEvent());
+			formulaLengths.addAll(component.getFormulaLengths());
+			posPerComponent.add(component.getPOStatistics().getTotal());
+		}
+	}
+
+	/**
+	 * Computes the statistics of all the machines and contexts of the
+	 * workspace.
+	 *
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the statistics of the workspace.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 * @see #compute(Collection, IProgressMonitor)
+	 */
+	public static EventBStatistics compute(IProgressMonitor monitor)
+			throws CoreException {
+		List<IEventBProject> prjs = new ArrayList<IEventBProject>();
+		for (IRodinProject rodinPrj : RodinCore.getRodinDB()
+				.getRodinProjects()) {
+			prjs.add((IEventBProject) rodinPrj
+					.getAdapter(IEventBProject.class));
+		}
+		return compute(prjs, monitor);
+	}
+
+	/**
+	 * Computes the statistics of the machines and contexts of some EXISTING
+	 * Event-B projects. All the components of all the projects are processed
+	 * in parallel.
+	 *
+	 * @param prjs
+	 *            Event-B projects.
+	 * @param monitor
+	 *            the progress monitor to use for reporting progress to the
+	 *            user. It is the caller's responsibility to call done() on the
+	 *            given monitor. Accepts <code>null</code>, indicating that no
+	 *            progress should be reported and that the operation cannot be
+	 *            cancelled.
+	 * @return the statistics of the projects.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBStatistics compute(
+			Collection<? extends IEventBProject> prjs, IProgressMonitor monitor)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prjs, Messages.error_NullProject);
+
+		List<IEventBRoot> roots = new ArrayList<IEventBRoot>();
+		for (IEventBProject prj : prjs) {
+			Assert.isNotNull(prj, Messages.error_NullProject);
+			IRodinProject rodinPrj = prj.getRodinProject();
+			Assert.isTrue(rodinPrj.exists(),
+					Messages.bind(Messages.error_NonExistingProject, prj));
+			roots.addAll(Arrays.asList(rodinPrj
+					.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+			roots.addAll(Arrays.asList(rodinPrj
+					.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		}
+		Map<IEventBRoot, ComponentStatistics> statistics = ParallelUtils
+				.<IEventBRoot, ComponentStatistics> map(roots,
+						EventBStatistics::computeComponent,
+						Messages.progress_ComputeStatistics, monitor);
+		return new EventBStatistics(new ArrayList<ComponentStatistics>(
+				statistics.values()));
+	}
+
+	/**
+	 * Returns the statistics of the components, contexts first, in the order
+	 * of the projects.
+	 *
+	 * @return the (unmodifiable) statistics of the components.
+	 */
+	public List<ComponentStatistics> getComponents() {
+		return components;
+	}
+
+	/**
+	 * Returns the histogram of the numbers of events of the machines.
+	 *
+	 * @return the histogram of the events per machine.
+	 */
+	public Histogram getEventsPerMachine() {
+		return eventsPerMachine;
+	}
+
+	/**
+	 * Returns the histogram of the numbers of invariants of the machines.
+	 *
+	 * @return the histogram of the invariants per machine.
+	 */
+	public Histogram getInvariantsPerMachine() {
+		return invariantsPerMachine;
+	}
+
+	/**
+	 * Returns the histogram of the numbers of guards of the events, without
+	 * the inherited ones.
+	 *
+	 * @return the histogram of the guards per event.
+	 */
+	public Histogram getGuardsPerEvent() {
+		return guardsPerEvent;
+	}
+
+	/**
+	 * Returns the histogram of the lengths (in characters) of the formulas.
+	 *
+	 * @return the histogram of the formula lengths.
+	 */
+	public Histogram getFormulaLengths() {
+		return formulaLengths;
+	}
+
+	/**
+	 * Returns the histogram of the numbers of proof obligations of the
+	 * components.
+	 *
+	 * @return the histogram of the proof obligations per component.
+	 */
+	public Histogram getPOsPerComponent() {
+		return posPerComponent;
+	}
+
+	/**
+	 * Writes the statistics of the components as CSV, with a header line and
+	 * one line per component.
+	 *
+	 * @param out
+	 *            the output.
+	 * @throws IOException
+	 *             if a problem occurs while writing.
+	 */
+	public void writeCSV(Appendable out) throws IOException {
+		for (int i = 0; i < CSV_HEADER.length; i++) {
+			if (i != 0)
+				out.append(',');
+			out.append(CSV_HEADER[i]);
+		}
+		out.append('\n');
+		for (ComponentStatistics component : components) {
+			IEventBRoot root = component.getRoot();
+			appendCSVString(out, root.getRodinProject().getElementName());
+			out.append(',');
+			appendCSVString(out, root.getRodinFile().getBareName());
+			out.append(',');
+			out.append(component.isMachine() ? "machine" : "context"); //$NON-NLS-1$ //$NON-NLS-2$
+			for (long value : getValues(component)) {
+				out.append(',');
+				out.append(Long.toString(value));
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Writes the statistics of the components and the histograms as a JSON
+	 * object.
+	 *
+	 * @param out
+	 *            the output.
+	 * @throws IOException
+	 *             if a problem occurs while writing.
+	 */
+	public void writeJSON(Appendable out) throws IOException {
+		out.append("{\"components\":["); //$NON-NLS-1$
+		for (int i = 0; i < components.size(); i++) {
+			ComponentStatistics component = components.get(i);
+			IEventBRoot root = component.getRoot();
+			if (i != 0)
+				out.append(',');
+			out.append("{\"project\":"); //$NON-NLS-1$
+			appendJSONString(out, root.getRodinProject().getElementName());
+			out.append(",\"component\":"); //$NON-NLS-1$
+			appendJSONString(out, root.getRodinFile().getBareName());
+			out.append(",\"kind\":"); //$NON-NLS-1$
+			appendJSONString(out, component.isMachine() ? "machine" //$NON-NLS-1$
+					: "context"); //$NON-NLS-1$
+			long[] values = getValues(component);
+			for (int j = 0; j < values.length; j++) {
+				out.append(",\"").append(CSV_HEADER[j + 3]).append("\":") //$NON-NLS-1$ //$NON-NLS-2$
+						.append(Long.toString(values[j]));
+			}
+			out.append('}');
+		}
+		out.append("],\"histograms\":{"); //$NON-NLS-1$
+		appendJSONHistogram(out, "eventsPerMachine", eventsPerMachine); //$NON-NLS-1$
+		out.append(',');
+		appendJSONHistogram(out, "invariantsPerMachine", invariantsPerMachine); //$NON-NLS-1$
+		out.append(',');
+		appendJSONHistogram(out, "guardsPerEvent", guardsPerEvent); //$NON-NLS-1$
+		out.append(',');
+		appendJSONHistogram(out, "formulaLengths", formulaLengths); //$NON-NLS-1$
+		out.append(',');
+		appendJSONHistogram(out, "posPerComponent", posPerComponent); //$NON-NLS-1$
+		out.append("}}"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the statistics of the components as CSV.
+	 *
+	 * @return the CSV output.
+	 * @see #writeCSV(Appendable)
+	 */
+	public String toCSV() {
+		StringBuilder result = new StringBuilder();
+		try {
+			writeCSV(result);
+		} catch (IOException e) {
+			// Cannot happen with a string builder.
+			throw new IllegalStateException(e);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the statistics of the components and the histograms as JSON.
+	 *
+	 * @return the JSON output.
+	 * @see #writeJSON(Appendable)
+	 */
+	public String toJSON() {
+		StringBuilder result = new StringBuilder();
+		try {
+			writeJSON(result);
+		} catch (IOException e) {
+			// Cannot happen with a string builder.
+			throw new IllegalStateException(e);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Utility method for computing the statistics of a component.
+	 *
+	 * @param root
+	 *            a machine or context root.
+	 * @return the statistics of the component.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	private static ComponentStatistics computeComponent(IEventBRoot root)
+			throws CoreException {
+		POStatistics poStatistics = EventBPOUtils.getPOStatistics(root);
+		if (root instanceof IMachineRoot)
+			return new ComponentStatistics(
+					EventBSnapshots.getMachineSnapshot((IMachineRoot) root),
+					poStatistics);
+		return new ComponentStatistics(
+				EventBSnapshots.getContextSnapshot((IContextRoot) root),
+				poStatistics);
+	}
+
+	/**
+	 * Utility method for getting the numeric values of a component, in the
+	 * order of the CSV header.
+	 *
+	 * @param component
+	 *            the statistics of a component.
+	 * @return the values of the component.
+	 */
+	private static long[] getValues(ComponentStatistics component) {
+		Histogram lengths = component.getFormulaLengths();
+		POStatistics pos = component.getPOStatistics();
+		return new long[] { component.getVariables(),
+				component.getInvariants(), component.getEvents(),
+				component.getParameters(), component.getGuards(),
+				component.getActions(), component.getCarrierSets(),
+				component.getConstants(), component.getAxioms(),
+				lengths.getTotal(), lengths.getSum(), lengths.getMax(),
+				pos.getTotal(), pos.getDischarged(), pos.getReviewed() };
+	}
+
+	/**
+	 * Utility method for writing a CSV field, quoted if needed.
+	 *
+	 * @param out
+	 *            the output.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if a problem occurs while writing.
+	 */
+	private static void appendCSVString(Appendable out, String value)
+			throws IOException {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+				&& value.indexOf('\n') < 0) {
+			out.append(value);
+			return;
+		}
+		out.append('"').append(value.replace("\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Utility method for writing a JSON string.
+	 *
+	 * @param out
+	 *            the output.
+	 * @param value
+	 *            the string.
+	 * @throws IOException
+	 *             if a problem occurs while writing.
+	 */
+	private static void appendJSONString(Appendable out, String value)
+			throws IOException {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				out.append('\\').append(c);
+			else if (c < 0x20)
+				out.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+			else
+				out.append(c);
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Utility method for writing a named histogram as a JSON member.
+	 *
+	 * @param out
+	 *            the output.
+	 * @param name
+	 *            the name of the histogram.
+	 * @param histogram
+	 *            the histogram.
+	 * @throws IOException
+	 *             if a problem occurs while writing.
+	 */
+	private static void appendJSONHistogram(Appendable out, String name,
+			Histogram histogram) throws IOException {
+		appendJSONString(out, name);
+		out.append(":{\"total\":").append(Long.toString(histogram.getTotal())) //$NON-NLS-1$
+				.append(",\"sum\":").append(Long.toString(histogram.getSum())) //$NON-NLS-1$
+				.append(",\"max\":").append(Integer.toString(histogram.getMax())) //$NON-NLS-1$
+				.append(",\"buckets\":["); //$NON-NLS-1$
+		for (int i = 0; i < histogram.getBucketCount(); i++) {
+			if (i != 0)
+				out.append(',');
+			out.append("{\"min\":") //$NON-NLS-1$
+					.append(Integer.toString(histogram.getLowerBound(i)))
+					.append(",\"max\":") //$NON-NLS-1$
+					.append(Integer.toString(histogram.getUpperBound(i)))
+					.append(",\"count\":") //$NON-NLS-1$
+					.append(Long.toString(histogram.getCount(i))).append('}');
+		}
+		out.append("]}"); //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,447 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eventb.core.ICarrierSet;
+import org.eventb.core.IConstant;
+import org.eventb.core.IContextRoot;
+import org.eventb.core.IEvent;
+import org.eventb.core.IEventBProject;
+import org.eventb.core.IEventBRoot;
+import org.eventb.core.IIdentifierElement;
+import org.eventb.core.IMachineRoot;
+import org.eventb.core.IParameter;
+import org.eventb.core.IVariable;
+import org.rodinp.core.IRodinProject;
+import org.rodinp.core.RodinDBException;
+
+import ch.ethz.eventb.internal.utils.Messages;
+import ch.ethz.eventb.internal.utils.ParallelUtils;
+import ch.ethz.eventb.internal.utils.ProjectRegistry;
+
+/**
+ * <p>
+ * The symbol table of an Event-B project, mapping the identifiers of carrier
+ * sets, constants, variables and parameters to the elements declaring them.
+ * The table of a project is built in parallel at first use, then maintained
+ * incrementally from the Rodin element deltas: only the components which
+ * changed since the last query are re-read.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBComponentGraph
+ * @since 0.3.0
+ */
+public final class EventBSymbolTable {
+
+	/**
+	 * The kinds of declared identifiers.
+	 */
+	public enum Kind {
+
+		/**
+		 * A carrier set of a context.
+		 */
+		CARRIER_SET,
+
+		/**
+		 * A constant of a context.
+		 */
+		CONSTANT,
+
+		/**
+		 * A variable of a machine.
+		 */
+		VARIABLE,
+
+		/**
+		 * A parameter of an event.
+		 */
+		PARAMETER
+
+	}
+
+	/**
+	 * <p>
+	 * The declaration of an identifier.
+	 * </p>
+	 */
+	public static final class Symbol {
+
+		// The declared identifier.
+		private final String identifier;
+
+		// The kind of the declaration.
+		private final Kind kind;
+
+		// The declaring element.
+		private final IIdentifierElement element;
+
+		// The component containing the declaring element.
+		private final IEventBRoot component;
+
+		/**
+		 * Constructor: Create the declaration of an identifier.
+		 */
+		Symbol(String identifier, Kind kind, IIdentifierElement element,
+				IEventBRoot component) {
+			this.identifier = identifier;
+			this.kind = kind;
+			this.element = element;
+			this.component = component;
+		}
+
+		/**
+		 * Returns the declared identifier.
+		 *
+		 * @return the declared identifier.
+		 */
+		public String getIdentifier() {
+			return identifier;
+		}
+
+		/**
+		 * Returns the kind of the declaration.
+		 *
+		 * @return the kind of the declaration.
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the element declaring the identifier.
+		 *
+		 * @return the declaring element.
+		 */
+		public IIdentifierElement getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the component (machine or context) containing the declaring
+		 * element.
+		 *
+		 * @return the declaring component.
+		 */
+		public IEventBRoot getComponent() {
+			return component;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return identifier + " (" + kind + " in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ component.getRodinFile().getBareName() + ")"; //$NON-NLS-1$
+		}
+
+	}
+
+	// The symbol tables of the projects which have been queried so far.
+	private static final ProjectRegistry<EventBSymbolTable> tables = new ProjectRegistry<EventBSymbolTable>(
+			EventBSymbolTable::build, EventBSymbolTable::setChanged);
+
+	// The Event-B project.
+	private final IEventBProject prj;
+
+	// The declarations of each identifier.
+	private final Map<String, List<Symbol>> symbols = new HashMap<String, List<Symbol>>();
+
+	// The declarations of each component.
+	private final Map<IEventBRoot, List<Symbol>> componentSymbols = new HashMap<IEventBRoot, List<Symbol>>();
+
+	// The components which changed since the last query.
+	private final Set<IEventBRoot> changed = new LinkedHashSet<IEventBRoot>();
+
+	/**
+	 * Constructor: Create an empty symbol table for a project.
+	 */
+	private EventBSymbolTable(IEventBProject prj) {
+		this.prj = prj;
+	}
+
+	/*
+	 * Builds the symbol table of a project, reading the components in
+	 * parallel.
+	 */
+	private static EventBSymbolTable build(IEventBProject prj)
+			throws CoreException {
+		EventBSymbolTable table = new EventBSymbolTable(prj);
+		IRodinProject rodinPrj = prj.getRodinProject();
+		List<IEventBRoot> roots = new ArrayList<IEventBRoot>();
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IContextRoot.ELEMENT_TYPE)));
+		roots.addAll(Arrays.asList(rodinPrj
+				.getRootElementsOfType(IMachineRoot.ELEMENT_TYPE)));
+		Map<IEventBRoot, List<Symbol>> declarations = ParallelUtils.map(roots,
+				EventBSymbolTable::readDeclarations,
+				Messages.progress_BuildSymbolTable, null);
+		for (Map.Entry<IEventBRoot, List<Symbol>> entry : declarations
+				.entrySet()) {
+			table.add(entry.getKey(), entry.getValue());
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the symbol table of an EXISTING Event-B project. The table is
+	 * built at the first call for the project, then kept up to date with the
+	 * changes of the Rodin database.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the symbol table of the project.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public static EventBSymbolTable getSymbolTable(IEventBProject prj)
+			throws CoreException {
+		// Assert preconditions.
+		Assert.isNotNull(prj, Messages.error_NullProject);
+		Assert.isTrue(prj.getRodinProject().exists(),
+				Messages.bind(Messages.error_NonExistingProject, prj));
+
+		return tables.get(prj);
+	}
+
+	/**
+	 * Returns the symbol table of a project if it has already been built.
+	 *
+	 * @param prj
+	 *            an Event-B project.
+	 * @return the symbol table of the project, or <code>null</code>.
+	 */
+	static EventBSymbolTable peekSymbolTable(IEventBProject prj) {
+		return tables.peek(prj.getRodinProject());
+	}
+
+	/**
+	 * Returns the Event-B project of this symbol table.
+	 *
+	 * @return the Event-B project.
+	 */
+	public IEventBProject getEventBProject() {
+		return prj;
+	}
+
+	/**
+	 * Returns the identifiers declared in the project.
+	 *
+	 * @return the declared identifiers.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized Set<String> getIdentifiers() throws RodinDBException {
+		refresh();
+		return new LinkedHashSet<String>(symbols.keySet());
+	}
+
+	/**
+	 * Returns the declarations of an identifier. An identifier can be
+	 * declared several times, e.g. a variable kept by a refinement or
+	 * parameters of different events.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the declarations of the identifier, empty if the identifier is
+	 *         not declared in the project.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<Symbol> getDeclarations(String identifier)
+			throws RodinDBException {
+		// Assert preconditions.
+		Assert.isNotNull(identifier, Messages.error_NullIdentifier);
+
+		refresh();
+		List<Symbol> result = symbols.get(identifier);
+		if (result == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(new ArrayList<Symbol>(result));
+	}
+
+	/**
+	 * Returns the declarations of a component.
+	 *
+	 * @param root
+	 *            a component (machine or context).
+	 * @return the declarations of the component.
+	 * @throws RodinDBException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public synchronized List<Symbol> getDeclarations(IEventBRoot root)
+			throws RodinDBException {
+		refresh();
+		List<Symbol> result = componentSymbols.get(root);
+		if (result == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(new ArrayList<Symbol>(result));
+	}
+
+	/**
+	 * Returns the components in which an identifier is visible. Carrier sets
+	 * and constants are visible in their context and in every component
+	 * depending on it directly or indirectly. Variables and parameters are
+	 * visible in the machines declaring them.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the components in which the identifier is visible.
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public Set<IEventBRoot> getVisibleComponents(String identifier)
+			throws CoreException {
+		EventBComponentGraph graph = EventBComponentGraph.getGraph(prj);
+		Set<IEventBRoot> result = new LinkedHashSet<IEventBRoot>();
+		for (Symbol symbol : getDeclarations(identifier)) {
+			result.add(symbol.getComponent());
+			if (symbol.getKind() == Kind.CARRIER_SET
+					|| symbol.getKind() == Kind.CONSTANT)
+				result.addAll(graph.getImpactedComponents(symbol
+						.getComponent()));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the refinement levels at which an identifier is visible, i.e.
+	 * the refinement levels of the machines in which it is visible.
+	 *
+	 * @param identifier
+	 *            an identifier.
+	 * @return the sorted refinement levels.
+	 * @see EventBComponentGraph#getRefinementLevel(IMachineRoot)
+	 * @throws CoreException
+	 *             if a problem occurs while accessing the database.
+	 */
+	public SortedSet<Integer> getRefinementLevels(String identifier)
+			throws CoreException {
+		EventBComponentGraph graph = EventBComponentGraph.getGraph(prj);
+		SortedSet<Integer> result = new TreeSet<Integer>();
+		for (IEventBRoot root : getVisibleComponents(identifier)) {
+			if (root instanceof IMachineRoot)
+				result.add(graph.getRefinementLevel((IMachineRoot) root));
+		}
+		return result;
+	}
+
+	/*
+	 * Records that a component changed.
+	 */
+	private synchronized void setChanged(IEventBRoot root) {
+		changed.add(root);
+	}
+
+	/*
+	 * Re-reads the components which changed since the last query.
+	 */
+	private void refresh() throws RodinDBException {
+		while (!changed.isEmpty()) {
+			IEventBRoot root = changed.iterator().next();
+			remove(root);
+			if (root.exists())
+				add(root, readDeclarations(root));
+			changed.remove(root);
+		}
+	}
+
+	/*
+	 * Adds the declarations of a component.
+	 */
+	private void add(IEventBRoot root, List<Symbol> declarations) {
+		componentSymbols.put(root, declarations);
+		for (Symbol symbol : declarations) {
+			List<Symbol> list = symbols.get(symbol.getIdentifier());
+			if (list == null) {
+				list = new ArrayList<Symbol>(1);
+				symbols.put(symbol.getIdentifier(), list);
+			}
+			list.add(symbol);
+		}
+	}
+
+	/*
+	 * Removes the declarations of a component.
+	 */
+	private void remove(IEventBRoot root) {
+		List<Symbol> declarations = componentSymbols.remove(root);
+		if (declarations == null)
+			return;
+		for (Symbol symbol : declarations) {
+			List<Symbol> list = symbols.get(symbol.getIdentifier());
+			list.remove(symbol);
+			if (list.isEmpty())
+				symbols.remove(symbol.getIdentifier());
+		}
+	}
+
+	/*
+	 * Reads the declarations of an existing component.
+	 */
+	private static List<Symbol> readDeclarations(IEventBRoot root)
+			throws RodinDBException {
+		List<Symbol> result = new ArrayList<Symbol>();
+		if (root instanceof IContextRoot) {
+			IContextRoot ctx = (IContextRoot) root;
+			for (ICarrierSet set : ctx.getCarrierSets()) {
+				addSymbol(root, set, Kind.CARRIER_SET, result);
+			}
+			for (IConstant cst : ctx.getConstants()) {
+				addSymbol(root, cst, Kind.CONSTANT, result);
+			}
+		} else if (root instanceof IMachineRoot) {
+			IMachineRoot mch = (IMachineRoot) root;
+			for (IVariable var : mch.getVariables()) {
+				addSymbol(root, var, Kind.VARIABLE, result);
+			}
+			for (IEvent evt : mch.getEvents()) {
+				for (IParameter par : evt.getParameters()) {
+					addSymbol(root, par, Kind.PARAMETER, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Utility method to add the declaration of an identifier element, if its
+	 * identifier is set.
+	 */
+	private static void addSymbol(IEventBRoot root, IIdentifierElement element,
+			Kind kind, List<Symbol> result) throws RodinDBException {
+		if (element.hasIdentifierString())
+			result.add(new Symbol(element.getIdentifierString(), kind,
+					element, root));
+	}
+
+}
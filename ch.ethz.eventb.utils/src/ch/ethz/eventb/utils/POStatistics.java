@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+/**
+ * <p>
+ * The numbers of proof obligations of a component or of an element, by
+ * proof status. A proof obligation is discharged if it has a valid proof
+ * whose confidence is above the reviewed level, reviewed if it has a valid
+ * reviewed proof, and pending otherwise (including broken proofs and proof
+ * obligations which have not been attempted yet). Instances are immutable
+ * and are obtained with {@link EventBPOUtils}.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBPOUtils
+ * @since 0.3.0
+ */
+public final class POStatistics {
+
+	// The statistics of a component without proof obligations.
+	static final POStatistics EMPTY = new POStatistics(0, 0, 0);
+
+	// The number of proof obligations.
+	private final int total;
+
+	// The number of discharged proof obligations.
+	private final int discharged;
+
+	// The number of reviewed proof obligations.
+	private final int reviewed;
+
+	/**
+	 * Constructor: Create the statistics for the given numbers of proof
+	 * obligations.
+	 */
+	POStatistics(int total, int discharged, int reviewed) {
+		this.total = total;
+		this.discharged = discharged;
+		this.reviewed = reviewed;
+	}
+
+	/**
+	 * Returns the number of proof obligations.
+	 *
+	 * @return the number of proof obligations.
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the number of discharged proof obligations.
+	 *
+	 * @return the number of discharged proof obligations.
+	 */
+	public int getDischarged() {
+		return discharged;
+	}
+
+	/**
+	 * Returns the number of reviewed proof obligations.
+	 *
+	 * @return the number of reviewed proof obligations.
+	 */
+	public int getReviewed() {
+		return reviewed;
+	}
+
+	/**
+	 * Returns the number of proof obligations which are neither discharged
+	 * nor reviewed.
+	 *
+	 * @return the number of pending proof obligations.
+	 */
+	public int getPending() {
+		return total - discharged - reviewed;
+	}
+
+	/**
+	 * Returns the number of proof obligations which are not discharged, i.e.
+	 * reviewed or pending.
+	 *
+	 * @return the number of undischarged proof obligations.
+	 */
+	public int getUndischarged() {
+		return total - discharged;
+	}
+
+	/**
+	 * Tells whether all the proof obligations are discharged.
+	 *
+	 * @return <code>true</code> if all the proof obligations are discharged,
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isDischarged() {
+		return discharged == total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof POStatistics))
+			return false;
+		POStatistics other = (POStatistics) obj;
+		return total == other.total && discharged == other.discharged
+				&& reviewed == other.reviewed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * (31 * total + discharged) + reviewed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return discharged + "/" + total + " discharged, " + reviewed //$NON-NLS-1$ //$NON-NLS-2$
+				+ " reviewed"; //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.eventb.core.ast.Assignment;
+import org.eventb.core.ast.ITypeEnvironment;
+import org.eventb.core.ast.Predicate;
+import org.eventb.core.ast.Type;
+
+/**
+ * <p>
+ * The content of a statically checked event: its typed parameters, its guards,
+ * its witnesses and its actions as type-checked formulas. Instances are
+ * immutable and are obtained with {@link EventBSCUtils#getSCEvents}.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSCUtils#getSCEvents(org.eventb.core.ISCMachineRoot)
+ * @since 0.3.0
+ */
+public final class SCEventInfo {
+
+	// The label of the event.
+	private final String label;
+
+	// The type environment of the event (machine and parameters).
+	private final ITypeEnvironment typeEnvironment;
+
+	// The parameters of the event, from identifiers to types.
+	private final Map<String, Type> parameters;
+
+	// The guards (including theorems) of the event, from labels to predicates.
+	private final Map<String, Predicate> guards;
+
+	// The witnesses of the event, from labels to predicates.
+	private final Map<String, Predicate> witnesses;
+
+	// The actions of the event, from labels to assignments.
+	private final Map<String, Assignment> actions;
+
+	/**
+	 * Constructor: Create the information for a statically checked event. The
+	 * maps are kept as is and must not be modified afterwards.
+	 */
+	SCEventInfo(String label, ITypeEnvironment typeEnvironment,
+			Map<String, Type> parameters, Map<String, Predicate> guards,
+			Map<String, Predicate> witnesses, Map<String, Assignment> actions) {
+		this.label = label;
+		this.typeEnvironment = typeEnvironment;
+		this.parameters = Collections.unmodifiableMap(parameters);
+		this.guards = Collections.unmodifiableMap(guards);
+		this.witnesses = Collections.unmodifiableMap(witnesses);
+		this.actions = Collections.unmodifiableMap(actions);
+	}
+
+	/**
+	 * Returns the label of the event.
+	 *
+	 * @return the label of the event.
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Returns the type environment of the event, i.e. the type environment of
+	 * the machine extended with the parameters of the event.
+	 *
+	 * @return the (immutable) type environment of the event.
+	 */
+	public ITypeEnvironment getTypeEnvironment() {
+		return typeEnvironment;
+	}
+
+	/**
+	 * Returns the parameters of the event with their types, in the order of
+	 * the statically checked event.
+	 *
+	 * @return the map from parameter identifiers to types.
+	 */
+	public Map<String, Type> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Returns the guards (including theorems) of the event, in the order of
+	 * the statically checked event.
+	 *
+	 * @return the map from guard labels to type-checked predicates.
+	 */
+	public Map<String, Predicate> getGuards() {
+		return guards;
+	}
+
+	/**
+	 * Returns the witnesses of the event, in the order of the statically
+	 * checked event.
+	 *
+	 * @return the map from witness labels to type-checked predicates.
+	 */
+	public Map<String, Predicate> getWitnesses() {
+		return witnesses;
+	}
+
+	/**
+	 * Returns the actions of the event, in the order of the statically checked
+	 * event.
+	 *
+	 * @return the map from action labels to type-checked assignments.
+	 */
+	public Map<String, Assignment> getActions() {
+		return actions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return label;
+	}
+
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+import java.util.Map;
+
+import org.eventb.core.ISCMachineRoot;
+import org.eventb.core.ast.ITypeEnvironment;
+import org.eventb.core.ast.Predicate;
+
+/**
+ * <p>
+ * A summary of the statically checked content of a machine: its type
+ * environment, its seen axioms, its invariants and its events, together with
+ * the time spent extracting them. Instances are immutable and are obtained
+ * with {@link EventBSCUtils#getSCMachineSummaries}.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSCUtils#getSCMachineSummaries(org.eventb.core.IEventBProject,
+ *      org.eclipse.core.runtime.IProgressMonitor)
+ * @since 0.3.0
+ */
+public final class SCMachineSummary {
+
+	// The statically checked machine root.
+	private final ISCMachineRoot scMchRoot;
+
+	// The type environment of the machine.
+	private final ITypeEnvironment typeEnvironment;
+
+	// The seen axioms and theorems of the machine.
+	private final Map<String, Predicate> seenAxioms;
+
+	// The invariants and theorems of the machine.
+	private final Map<String, Predicate> invariants;
+
+	// The events of the machine.
+	private final Map<String, SCEventInfo> events;
+
+	// The time spent extracting the summary, in nanoseconds.
+	private final long extractionTime;
+
+	/**
+	 * Constructor: Create a summary of a statically checked machine. The maps
+	 * are kept as is and must not be modified afterwards.
+	 */
+	SCMachineSummary(ISCMachineRoot scMchRoot,
+			ITypeEnvironment typeEnvironment, Map<String, Predicate> seenAxioms,
+			Map<String, Predicate> invariants, Map<String, SCEventInfo> events,
+			long extractionTime) {
+		this.scMchRoot = scMchRoot;
+		this.typeEnvironment = typeEnvironment;
+		this.seenAxioms = seenAxioms;
+		this.invariants = invariants;
+		this.events = events;
+		this.extractionTime = extractionTime;
+	}
+
+	/**
+	 * Returns the statically checked machine root summarised.
+	 *
+	 * @return the statically checked machine root.
+	 */
+	public ISCMachineRoot getSCMachineRoot() {
+		return scMchRoot;
+	}
+
+	/**
+	 * Returns the type environment of the machine.
+	 *
+	 * @return the type environment of the machine.
+	 * @see EventBSCUtils#getSCTypeEnvironment(ISCMachineRoot)
+	 */
+	public ITypeEnvironment getTypeEnvironment() {
+		return typeEnvironment;
+	}
+
+	/**
+	 * Returns the seen axioms (including theorems) of the machine.
+	 *
+	 * @return the map from labels to seen axioms.
+	 * @see EventBSCUtils#getSCSeenAxiomPredicates(ISCMachineRoot, boolean)
+	 */
+	public Map<String, Predicate> getSeenAxioms() {
+		return seenAxioms;
+	}
+
+	/**
+	 * Returns the invariants (including theorems) of the machine.
+	 *
+	 * @return the map from labels to invariants.
+	 * @see EventBSCUtils#getSCInvariantPredicates(ISCMachineRoot, boolean)
+	 */
+	public Map<String, Predicate> getInvariants() {
+		return invariants;
+	}
+
+	/**
+	 * Returns the events of the machine.
+	 *
+	 * @return the map from labels to events.
+	 * @see EventBSCUtils#getSCEvents(ISCMachineRoot)
+	 */
+	public Map<String, SCEventInfo> getEvents() {
+		return events;
+	}
+
+	/**
+	 * Returns the time spent extracting this summary. This is close to zero
+	 * when the content of the machine was already cached.
+	 *
+	 * @return the extraction time in nanoseconds.
+	 */
+	public long getExtractionTime() {
+		return extractionTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return scMchRoot.getRodinFile().getBareName();
+	}
+
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2020 University of Southampton.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     University of Southampton - initial API and implementation
+ *******************************************************************************/
+package ch.ethz.eventb.utils;
+
+/**
+ * <p>
+ * The status of the statically checked version of a component with respect to
+ * its unchecked version.
+ * </p>
+ *
+ * @author htson
+ * @version 0.1
+ * @see EventBSCUtils#getSCStatus(org.eventb.core.IEventBRoot)
+ * @since 0.3.0
+ */
+public enum SCStatus {
+
+	/**
+	 * The statically checked file exists and is not older than the unchecked
+	 * files of the component and of its dependencies, whose statically
+	 * checked files are current too.
+	 */
+	CURRENT,
+
+	/**
+	 * The statically checked file exists but is older than the unchecked file
+	 * of the component or of one of its dependencies, the unchecked file has
+	 * unsaved changes, or the statically checked file of a dependency is
+	 * stale or missing.
+	 */
+	STALE,
+
+	/**
+	 * The statically checked file does not exist.
+	 */
+	MISSING
+
+}
@@ -17,11 +17,68 @@
  * This package provides utility for Event-B elements. 
  * Currently the package contains the following classes:
  * <ul>
+ * <li>{@link ch.ethz.eventb.utils.EventBColumnarModel}:
+ * A compact columnar representation of an Event-B project.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBComponentGraph}:
+ * The dependency graph of the components of an Event-B project.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBDiff}:
+ * The structural difference between two versions of a component.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBElementIterator}:
+ * A lazy depth-first iterator over the elements of an Event-B project.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBFingerprints}:
+ * Content fingerprints of components, events and clauses.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBFlattenedEvents}:
+ * The events of an Event-B project with their inherited elements.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBFormulaStore}:
+ * A shared store of hash-consed type-checked formulas.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBModelChanges}:
+ * A coalesced stream of the changes of machines and contexts.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBOccurrenceIndex}:
+ * The formula elements mentioning each identifier of an Event-B project.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBPOUtils}:
+ * Proof obligation statistics of Event-B components.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBQuery}:
+ * Composable queries over the elements of an Event-B project.</li>
+ * 
  * <li>{@link ch.ethz.eventb.utils.EventBSCUtils}: 
  * Utility for manipulating Event-B statically checked elements.</li>
  * 
+ * <li>{@link ch.ethz.eventb.utils.EventBSlicing}:
+ * The slice of a machine with respect to some of its variables.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBSnapshots}:
+ * Immutable snapshots of Event-B statically un-checked components.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBStatistics}:
+ * Size and proof metrics of the components of Event-B projects.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.EventBSymbolTable}:
+ * The declarations of the identifiers of an Event-B project.</li>
+ * 
  * <li>{@link ch.ethz.eventb.utils.EventBUtils}:
  * Utility for manipulating Event-B statically un-checked elements.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.POStatistics}:
+ * The numbers of proof obligations of a component or element by status.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.SCEventInfo}:
+ * The typed content of a statically checked event.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.SCMachineSummary}:
+ * The typed content of a statically checked machine.</li>
+ * 
+ * <li>{@link ch.ethz.eventb.utils.SCStatus}:
+ * The status of the statically checked version of a component.</li>
  * </ul>
  * </p>
  *